@@ -23,6 +23,7 @@ import io.cloudbeaver.model.WebConnectionConfig;
 import io.cloudbeaver.model.WebPropertyInfo;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.server.CBApplication;
+import io.cloudbeaver.server.CBConstants;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.Log;
@@ -48,9 +49,15 @@ import org.jkiss.dbeaver.runtime.properties.PropertyCollector;
 import org.jkiss.utils.CommonUtils;
 
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Various constants
@@ -61,6 +68,37 @@ public class WebServiceUtils {
 
     private static final Gson gson = new GsonBuilder().create();
 
+    public static String formatISODate(long time) {
+        return CBConstants.ISO_DATE_FORMAT.format(Instant.ofEpochMilli(time));
+    }
+
+    @Nullable
+    public static String formatISODate(@Nullable Date date) {
+        return date == null ? null : formatISODate(date.getTime());
+    }
+
+    /**
+     * Creates fixed size executor with bounded queue. Idle threads are stopped.
+     * If the queue is full then task is executed in the caller thread.
+     */
+    @NotNull
+    public static ThreadPoolExecutor createBoundedExecutor(@NotNull String threadName, int threadCount, int queueSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            r -> {
+                Thread thread = new Thread(r, threadName + " " + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public static String makeIconId(@Nullable DBPImage icon) {
         return icon == null ? null : icon.getLocation();
     }
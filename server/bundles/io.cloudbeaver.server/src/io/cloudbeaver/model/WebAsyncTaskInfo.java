@@ -26,6 +26,11 @@ public class WebAsyncTaskInfo {
     private String id;
     private String name;
     private boolean running;
+    private volatile boolean queued;
+    private boolean rejected;
+    private long finishTime;
+    private long resultSize;
+    private boolean resultEvicted;
     private Object result;
     private Object extendedResult;
     private String status;
@@ -62,6 +67,61 @@ public class WebAsyncTaskInfo {
         this.running = running;
     }
 
+    /**
+     * Task waits for a free slot in the async task scheduler
+     */
+    public boolean isQueued() {
+        return queued;
+    }
+
+    public void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+
+    /**
+     * Task was not started because too many tasks of the session are already queued
+     */
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    public void setRejected(boolean rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * Time when task finished or 0 if it is still running
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public void setFinishTime(long finishTime) {
+        this.finishTime = finishTime;
+    }
+
+    /**
+     * Estimated heap size of retained extended results
+     */
+    public long getResultSize() {
+        return resultSize;
+    }
+
+    public void setResultSize(long resultSize) {
+        this.resultSize = resultSize;
+    }
+
+    /**
+     * Extended results were dropped because session results budget was exceeded
+     */
+    public boolean isResultEvicted() {
+        return resultEvicted;
+    }
+
+    public void setResultEvicted(boolean resultEvicted) {
+        this.resultEvicted = resultEvicted;
+    }
+
     public Object getTaskResult() {
         return result;
     }
@@ -18,7 +18,6 @@ package io.cloudbeaver.model;
 
 import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.model.session.WebSession;
-import io.cloudbeaver.server.CBConstants;
 import io.cloudbeaver.service.sql.WebDataFormat;
 import org.jkiss.dbeaver.model.DBPDataSource;
 import org.jkiss.dbeaver.model.DBPDataSourceContainer;
@@ -43,6 +42,10 @@ public class WebConnectionInfo {
 
     private final WebSession session;
     private DBPDataSourceContainer dataSourceContainer;
+    // Set if connection uses data source from shared pool instead of own connection
+    private WebSharedDataSourcePool.SharedDataSource sharedDataSource;
+    // Set if connection is attached to the shared metadata cache
+    private String metadataCacheIdentity;
     private WebServerError connectError;
 
     private String connectTime;
@@ -64,9 +67,28 @@ public class WebConnectionInfo {
     }
 
     public DBPDataSource getDataSource() {
+        if (sharedDataSource != null) {
+            return sharedDataSource.getDataSource();
+        }
         return dataSourceContainer.getDataSource();
     }
 
+    public WebSharedDataSourcePool.SharedDataSource getSharedDataSource() {
+        return sharedDataSource;
+    }
+
+    public void setSharedDataSource(WebSharedDataSourcePool.SharedDataSource sharedDataSource) {
+        this.sharedDataSource = sharedDataSource;
+    }
+
+    public String getMetadataCacheIdentity() {
+        return metadataCacheIdentity;
+    }
+
+    void setMetadataCacheIdentity(String metadataCacheIdentity) {
+        this.metadataCacheIdentity = metadataCacheIdentity;
+    }
+
     @Property
     public String getId() {
         return dataSourceContainer.getId();
@@ -119,7 +141,7 @@ public class WebConnectionInfo {
 
     @Property
     public boolean isConnected() {
-        return dataSourceContainer.isConnected();
+        return sharedDataSource != null || dataSourceContainer.isConnected();
     }
 
     @Property
@@ -149,7 +171,10 @@ public class WebConnectionInfo {
 
     @Property
     public String getConnectTime() {
-        return CBConstants.ISO_DATE_FORMAT.format(dataSourceContainer.getConnectTime());
+        if (sharedDataSource != null) {
+            return WebServiceUtils.formatISODate(sharedDataSource.getContainer().getConnectTime());
+        }
+        return WebServiceUtils.formatISODate(dataSourceContainer.getConnectTime());
     }
 
     @Property
@@ -187,7 +212,7 @@ public class WebConnectionInfo {
     public String[] getFeatures() {
         List<String> features = new ArrayList<>();
 
-        if (dataSourceContainer.isConnected()) {
+        if (isConnected()) {
             features.add("connected");
         }
         if (dataSourceContainer.isHidden()) {
@@ -218,7 +243,7 @@ public class WebConnectionInfo {
     public List<WebDataFormat> getSupportedDataFormats() {
         List<WebDataFormat> formats = new ArrayList<>();
         formats.add(WebDataFormat.resultset);
-        DBPDataSource dataSource = dataSourceContainer.getDataSource();
+        DBPDataSource dataSource = getDataSource();
         if (dataSource == null) {
             return formats;
         }
@@ -235,7 +260,7 @@ public class WebConnectionInfo {
 
     @Property
     public boolean isAuthNeeded() {
-        return !dataSourceContainer.isConnected() &&
+        return !isConnected() &&
             !dataSourceContainer.isSavePassword() &&
             !dataSourceContainer.getDriver().isAnonymousAccess();
     }
@@ -0,0 +1,419 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Metadata cache shared between web sessions.
+ * <p>
+ * Cached values are session independent snapshots (navigator node children, struct containers,
+ * completion names of containers and tables) grouped by physical data source identity (driver, URL and credentials).
+ * Connections attach to the identity group while they use the cache. Group is dropped when the last
+ * connection detaches. Values are loaded on demand, concurrent loads of the same value are coalesced.
+ * Total estimated size of values is limited, least recently used values are evicted first.
+ * Categories of large values (e.g. search indexes) may have their own size limit, so they
+ * don't evict small values of other categories and vice versa.
+ */
+public class WebMetadataCache {
+
+    private static final Log log = Log.getLog(WebMetadataCache.class);
+
+    public static final String CATEGORY_NAVIGATOR = "navigator";
+    public static final String CATEGORY_STRUCT = "struct";
+    public static final String CATEGORY_COMPLETION = "completion";
+    public static final String CATEGORY_SEARCH = "search";
+
+    /**
+     * Cached value. Must be immutable and must not reference session objects.
+     */
+    public interface CachedValue {
+        long getEstimatedSize();
+    }
+
+    @FunctionalInterface
+    public interface ValueLoader<T extends CachedValue> {
+        @NotNull
+        T loadValue() throws DBException;
+    }
+
+    private static class ValueKey {
+        final String identity;
+        final String category;
+        final String key;
+
+        ValueKey(String identity, String category, String key) {
+            this.identity = identity;
+            this.category = category;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ValueKey)) {
+                return false;
+            }
+            ValueKey other = (ValueKey) obj;
+            return identity.equals(other.identity) && category.equals(other.category) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(identity, category, key);
+        }
+    }
+
+    private static class IdentityGroup {
+        final Set<ValueKey> keys = new HashSet<>();
+        int refCount;
+    }
+
+    /**
+     * Values with common size limit
+     */
+    private static class Segment {
+        final long maxSize;
+        // Access ordered, so iteration starts from least recently used value
+        final LinkedHashMap<ValueKey, CachedValue> values = new LinkedHashMap<>(256, 0.75f, true);
+        long totalSize;
+
+        Segment(long maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    private final long maxSize;
+    private final Map<String, IdentityGroup> groups = new HashMap<>();
+    private final Segment defaultSegment;
+    private final Map<String, Segment> categorySegments = new HashMap<>();
+    private final Map<ValueKey, CompletableFuture<CachedValue>> pendingLoads = new HashMap<>();
+    // Pending loads of invalidated values. Their results are returned to callers but not cached
+    private final Set<ValueKey> staleLoads = new HashSet<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public WebMetadataCache(long maxSize) {
+        this.maxSize = maxSize;
+        this.defaultSegment = new Segment(maxSize);
+    }
+
+    /**
+     * Sets own size limit for values of the category. Must be called before cache is used.
+     */
+    public synchronized void setCategoryMaxSize(@NotNull String category, long categoryMaxSize) {
+        categorySegments.put(category, new Segment(categoryMaxSize));
+    }
+
+    /**
+     * Attaches connection to the cache group of its data source identity.
+     * Does nothing if connection is already attached.
+     */
+    public synchronized void attachConnection(@NotNull WebConnectionInfo connectionInfo) {
+        if (connectionInfo.getMetadataCacheIdentity() != null) {
+            return;
+        }
+        String identity = WebSharedDataSourcePool.makeDataSourceKey(connectionInfo.getDataSourceContainer());
+        groups.computeIfAbsent(identity, k -> new IdentityGroup()).refCount++;
+        connectionInfo.setMetadataCacheIdentity(identity);
+    }
+
+    /**
+     * Detaches connection. Cached values of its identity are dropped if no other connections use them.
+     */
+    public synchronized void detachConnection(@NotNull WebConnectionInfo connectionInfo) {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        if (identity == null) {
+            return;
+        }
+        connectionInfo.setMetadataCacheIdentity(null);
+        IdentityGroup group = groups.get(identity);
+        if (group != null && --group.refCount <= 0) {
+            for (ValueKey valueKey : group.keys) {
+                removeValue(valueKey);
+            }
+            groups.remove(identity);
+            for (ValueKey valueKey : pendingLoads.keySet()) {
+                if (valueKey.identity.equals(identity)) {
+                    staleLoads.add(valueKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns cached value or loads it.
+     * Connection must be attached to the cache.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <T extends CachedValue> T getValue(@NotNull WebConnectionInfo connectionInfo, @NotNull String category, @NotNull String key, @NotNull ValueLoader<T> loader) throws DBException {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        if (identity == null) {
+            return loader.loadValue();
+        }
+        ValueKey valueKey = new ValueKey(identity, category, key);
+        CompletableFuture<CachedValue> pendingLoad;
+        boolean loadOwner = false;
+        synchronized (this) {
+            CachedValue value = getSegment(category).values.get(valueKey);
+            if (value != null) {
+                hitCount.incrementAndGet();
+                return (T) value;
+            }
+            missCount.incrementAndGet();
+            pendingLoad = pendingLoads.get(valueKey);
+            if (pendingLoad == null) {
+                pendingLoad = new CompletableFuture<>();
+                pendingLoads.put(valueKey, pendingLoad);
+                loadOwner = true;
+            }
+        }
+        if (!loadOwner) {
+            // The same value is being loaded by another session
+            try {
+                return (T) pendingLoad.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DBException("Interrupted while waiting for metadata", e);
+            } catch (ExecutionException e) {
+                // Load in the other session failed, try on our own
+                return loader.loadValue();
+            }
+        }
+        T value;
+        try {
+            value = loader.loadValue();
+        } catch (Throwable e) {
+            synchronized (this) {
+                pendingLoads.remove(valueKey);
+                staleLoads.remove(valueKey);
+            }
+            pendingLoad.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            pendingLoads.remove(valueKey);
+            boolean stale = staleLoads.remove(valueKey);
+            IdentityGroup group = groups.get(identity);
+            // Do not cache values which were invalidated while they were loaded
+            if (!stale && group != null) {
+                storeValue(group, valueKey, value);
+            }
+        }
+        pendingLoad.complete(value);
+        return value;
+    }
+
+    /**
+     * Replaces cached value. Value which is being loaded now won't replace it.
+     * Does nothing if connection is not attached to the cache.
+     */
+    public synchronized void putValue(@NotNull WebConnectionInfo connectionInfo, @NotNull String category, @NotNull String key, @NotNull CachedValue value) {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        IdentityGroup group = identity == null ? null : groups.get(identity);
+        if (group == null) {
+            return;
+        }
+        ValueKey valueKey = new ValueKey(identity, category, key);
+        if (pendingLoads.containsKey(valueKey)) {
+            staleLoads.add(valueKey);
+        }
+        storeValue(group, valueKey, value);
+    }
+
+    /**
+     * Returns cached value or null if value is not loaded yet.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends CachedValue> T peekValue(@NotNull WebConnectionInfo connectionInfo, @NotNull String category, @NotNull String key) {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        if (identity == null) {
+            return null;
+        }
+        return (T) getSegment(category).values.get(new ValueKey(identity, category, key));
+    }
+
+    /**
+     * Removes cached values of the connection identity.
+     *
+     * @param category  value category or null for all categories
+     * @param keyPrefix value key prefix or null for all values of the category
+     */
+    public void invalidate(@NotNull WebConnectionInfo connectionInfo, @Nullable String category, @Nullable String keyPrefix) {
+        invalidate(connectionInfo, valueKey ->
+            (category == null || category.equals(valueKey.category)) &&
+            (keyPrefix == null || valueKey.key.startsWith(keyPrefix)));
+    }
+
+    /**
+     * Removes matching values. Matching values which are being loaded now won't be cached,
+     * loads of other values are not affected.
+     */
+    private synchronized void invalidate(@NotNull WebConnectionInfo connectionInfo, @NotNull Predicate<ValueKey> filter) {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        if (identity == null) {
+            identity = WebSharedDataSourcePool.makeDataSourceKey(connectionInfo.getDataSourceContainer());
+        }
+        IdentityGroup group = groups.get(identity);
+        if (group == null) {
+            return;
+        }
+        for (ValueKey valueKey : pendingLoads.keySet()) {
+            if (valueKey.identity.equals(identity) && filter.test(valueKey)) {
+                staleLoads.add(valueKey);
+            }
+        }
+        for (Iterator<ValueKey> iter = group.keys.iterator(); iter.hasNext(); ) {
+            ValueKey valueKey = iter.next();
+            if (filter.test(valueKey)) {
+                iter.remove();
+                removeValue(valueKey);
+            }
+        }
+    }
+
+    public synchronized void dispose() {
+        log.debug(toString());
+        defaultSegment.values.clear();
+        defaultSegment.totalSize = 0;
+        for (Segment segment : categorySegments.values()) {
+            segment.values.clear();
+            segment.totalSize = 0;
+        }
+        groups.clear();
+    }
+
+    private Segment getSegment(String category) {
+        Segment segment = categorySegments.get(category);
+        return segment != null ? segment : defaultSegment;
+    }
+
+    private void storeValue(IdentityGroup group, ValueKey valueKey, CachedValue value) {
+        Segment segment = getSegment(valueKey.category);
+        CachedValue oldValue = segment.values.put(valueKey, value);
+        if (oldValue != null) {
+            segment.totalSize -= oldValue.getEstimatedSize();
+        }
+        group.keys.add(valueKey);
+        segment.totalSize += value.getEstimatedSize();
+        evictValues(segment);
+    }
+
+    private void removeValue(ValueKey valueKey) {
+        Segment segment = getSegment(valueKey.category);
+        CachedValue value = segment.values.remove(valueKey);
+        if (value != null) {
+            segment.totalSize -= value.getEstimatedSize();
+        }
+    }
+
+    private void evictValues(Segment segment) {
+        // The most recently stored value is kept even if it alone exceeds the limit, otherwise it would be re-loaded forever
+        for (Iterator<Map.Entry<ValueKey, CachedValue>> iter = segment.values.entrySet().iterator();
+             segment.totalSize > segment.maxSize && segment.values.size() > 1 && iter.hasNext(); )
+        {
+            Map.Entry<ValueKey, CachedValue> entry = iter.next();
+            iter.remove();
+            segment.totalSize -= entry.getValue().getEstimatedSize();
+            IdentityGroup group = groups.get(entry.getKey().identity);
+            if (group != null) {
+                group.keys.remove(entry.getKey());
+            }
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    ///////////////////////////////////
+    // Statistics
+
+    public synchronized int getIdentityCount() {
+        return groups.size();
+    }
+
+    public synchronized int getValueCount() {
+        int count = defaultSegment.values.size();
+        for (Segment segment : categorySegments.values()) {
+            count += segment.values.size();
+        }
+        return count;
+    }
+
+    public synchronized long getTotalSize() {
+        long size = defaultSegment.totalSize;
+        for (Segment segment : categorySegments.values()) {
+            size += segment.totalSize;
+        }
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Metadata cache: data sources=" + getIdentityCount() +
+            ", values=" + getValueCount() +
+            ", size=" + getTotalSize() + "/" + maxSize +
+            ", hits=" + getHitCount() +
+            ", misses=" + getMissCount() +
+            ", evictions=" + getEvictionCount();
+    }
+
+    ///////////////////////////////////
+    // Size estimation helpers
+
+    public static long estimateSize(@Nullable String str) {
+        return str == null ? 0 : 40 + str.length() * 2L;
+    }
+
+    public static long estimateSize(@Nullable String[] strings) {
+        if (strings == null) {
+            return 0;
+        }
+        long size = 16 + strings.length * 8L;
+        for (String str : strings) {
+            size += estimateSize(str);
+        }
+        return size;
+    }
+
+}
@@ -16,7 +16,7 @@
  */
 package io.cloudbeaver.model;
 
-import io.cloudbeaver.server.CBConstants;
+import io.cloudbeaver.WebServiceUtils;
 
 /**
  * Web server message
@@ -46,7 +46,7 @@ public class WebServerMessage {
     }
 
     public String getTime() {
-        return CBConstants.ISO_DATE_FORMAT.format(time);
+        return WebServiceUtils.formatISODate(time);
     }
 
     public String getMessage() {
@@ -0,0 +1,558 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model;
+
+import io.cloudbeaver.WebServiceUtils;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPDataSourceContainer;
+import org.jkiss.dbeaver.model.DBPTransactionIsolation;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.connection.DBPConnectionBootstrap;
+import org.jkiss.dbeaver.model.connection.DBPConnectionConfiguration;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.net.DBWHandlerConfiguration;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
+import org.jkiss.dbeaver.registry.DataSourceDescriptor;
+import org.jkiss.utils.CommonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of data sources shared between web sessions.
+ * <p>
+ * Session copies of global connections with the same effective configuration (driver, URL, credentials,
+ * properties, network handlers and bootstrap settings) use one connected data source.
+ * Queries are executed in isolated execution contexts leased from a bounded per-datasource pool,
+ * so sessions never share transactions. Released contexts are rolled back and contexts which executed arbitrary SQL
+ * get their initial default catalog and schema back. Contexts with changed transaction settings (manual commit mode,
+ * isolation) or failed reset are closed instead of being returned to the pool.
+ * Idle contexts and unused data sources are closed after idle timeout.
+ */
+public class WebSharedDataSourcePool {
+
+    private static final Log log = Log.getLog(WebSharedDataSourcePool.class);
+
+    private final int maxContexts;
+    private final long idleTimeout;
+    private final long maxWaitTime;
+    private final Map<String, SharedDataSource> dataSources = new HashMap<>();
+
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong waitCount = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTimeObserved = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Connected data source shared between sessions
+     */
+    public class SharedDataSource {
+        private final String key;
+        private final DBPDataSourceContainer container;
+        private final Deque<PooledContext> idleContexts = new ArrayDeque<>();
+        // Guards connect. Lease waiters use data source monitor, so they are not blocked by slow connect
+        private final Object connectLock = new Object();
+        private int openContexts;
+        private int refCount;
+        private long lastReleaseTime;
+
+        SharedDataSource(String key, DBPDataSourceContainer container) {
+            this.key = key;
+            this.container = container;
+        }
+
+        @NotNull
+        public DBPDataSourceContainer getContainer() {
+            return container;
+        }
+
+        @Nullable
+        public DBPDataSource getDataSource() {
+            return container.getDataSource();
+        }
+
+        /**
+         * Leases isolated execution context. Waits if all contexts are in use.
+         * Context defaults are set to the specified catalog and schema.
+         */
+        @NotNull
+        public ContextLease leaseContext(@NotNull DBRProgressMonitor monitor, @Nullable String catalogName, @Nullable String schemaName) throws DBCException {
+            leaseCount.incrementAndGet();
+            PooledContext pooledContext = null;
+            synchronized (this) {
+                long waitStart = System.currentTimeMillis();
+                boolean waited = false;
+                while (idleContexts.isEmpty() && openContexts >= maxContexts) {
+                    long remaining = maxWaitTime - (System.currentTimeMillis() - waitStart);
+                    if (remaining <= 0 || monitor.isCanceled()) {
+                        timeoutCount.incrementAndGet();
+                        throw new DBCException("Timeout waiting for shared connection of '" + container.getName() + "'");
+                    }
+                    waited = true;
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DBCException("Interrupted while waiting for shared connection", e);
+                    }
+                }
+                if (waited) {
+                    long waitTime = System.currentTimeMillis() - waitStart;
+                    waitCount.incrementAndGet();
+                    totalWaitTime.addAndGet(waitTime);
+                    maxWaitTimeObserved.accumulateAndGet(waitTime, Math::max);
+                }
+                if (!idleContexts.isEmpty()) {
+                    pooledContext = idleContexts.pollLast();
+                } else {
+                    // Reserve slot. Context is opened outside of the lock
+                    openContexts++;
+                }
+            }
+            if (pooledContext == null) {
+                try {
+                    DBPDataSource dataSource = getDataSource();
+                    if (dataSource == null) {
+                        throw new DBCException("Shared data source '" + container.getName() + "' is not connected");
+                    }
+                    pooledContext = new PooledContext(
+                        dataSource.getDefaultInstance().openIsolatedContext(monitor, "Shared web session context", null));
+                } catch (DBException e) {
+                    synchronized (this) {
+                        openContexts--;
+                        notifyAll();
+                    }
+                    throw e instanceof DBCException ? (DBCException) e : new DBCException("Error opening shared execution context", e);
+                }
+            }
+            try {
+                pooledContext.setDefaults(monitor, catalogName, schemaName);
+            } catch (DBException e) {
+                releaseContext(pooledContext, true, false);
+                throw new DBCException("Error setting shared context defaults", e);
+            }
+            return new ContextLease(this, pooledContext);
+        }
+
+        void releaseContext(@NotNull PooledContext pooledContext, boolean close, boolean restoreDefaults) {
+            // Reset outside of the lock, it talks to database
+            if (!close && !pooledContext.reset(restoreDefaults)) {
+                close = true;
+            }
+            synchronized (this) {
+                if (close || !pooledContext.context.isConnected()) {
+                    openContexts--;
+                } else {
+                    pooledContext.idleSince = System.currentTimeMillis();
+                    idleContexts.addLast(pooledContext);
+                    pooledContext = null;
+                }
+                notifyAll();
+            }
+            if (pooledContext != null) {
+                pooledContext.close();
+            }
+        }
+
+        /**
+         * Closes contexts which were idle longer than idle timeout
+         */
+        void evictIdleContexts(long currentTime) {
+            List<PooledContext> toClose = new ArrayList<>();
+            synchronized (this) {
+                for (Iterator<PooledContext> iter = idleContexts.iterator(); iter.hasNext(); ) {
+                    PooledContext pooledContext = iter.next();
+                    if (currentTime - pooledContext.idleSince > idleTimeout) {
+                        iter.remove();
+                        openContexts--;
+                        toClose.add(pooledContext);
+                    }
+                }
+            }
+            for (PooledContext pooledContext : toClose) {
+                evictionCount.incrementAndGet();
+                pooledContext.close();
+            }
+        }
+
+        synchronized boolean isUnused() {
+            return refCount == 0 && openContexts == 0;
+        }
+
+        void close() {
+            List<PooledContext> toClose;
+            synchronized (this) {
+                toClose = new ArrayList<>(idleContexts);
+                idleContexts.clear();
+                openContexts -= toClose.size();
+            }
+            for (PooledContext pooledContext : toClose) {
+                pooledContext.close();
+            }
+            try {
+                container.disconnect(new VoidProgressMonitor());
+            } catch (DBException e) {
+                log.error("Error disconnecting shared data source '" + container.getName() + "'", e);
+            }
+        }
+    }
+
+    private static class PooledContext {
+        private final DBCExecutionContext context;
+        private final Boolean initialAutoCommit;
+        private final DBPTransactionIsolation initialIsolation;
+        private final String initialCatalogName;
+        private final String initialSchemaName;
+        private long idleSince;
+        private String catalogName;
+        private String schemaName;
+
+        PooledContext(DBCExecutionContext context) {
+            this.context = context;
+            Boolean autoCommit = null;
+            DBPTransactionIsolation isolation = null;
+            DBCTransactionManager txnManager = DBUtils.getTransactionManager(context);
+            if (txnManager != null) {
+                try {
+                    autoCommit = txnManager.isAutoCommit();
+                    isolation = txnManager.getTransactionIsolation();
+                } catch (DBCException e) {
+                    log.debug("Error reading shared context transaction settings", e);
+                }
+            }
+            this.initialAutoCommit = autoCommit;
+            this.initialIsolation = isolation;
+            DBCExecutionContextDefaults<?, ?> contextDefaults = context.getContextDefaults();
+            this.initialCatalogName = contextDefaults == null || contextDefaults.getDefaultCatalog() == null ?
+                null : contextDefaults.getDefaultCatalog().getName();
+            this.initialSchemaName = contextDefaults == null || contextDefaults.getDefaultSchema() == null ?
+                null : contextDefaults.getDefaultSchema().getName();
+            this.catalogName = initialCatalogName;
+            this.schemaName = initialSchemaName;
+        }
+
+        /**
+         * Rolls back open transaction and restores initial default catalog and schema.
+         * @param restoreDefaults force defaults restore (executed statements might change them)
+         * @return false if context transaction settings differ from initial ones or reset failed,
+         * so context must not be reused
+         */
+        boolean reset(boolean restoreDefaults) {
+            if (!context.isConnected()) {
+                return true;
+            }
+            DBCTransactionManager txnManager = DBUtils.getTransactionManager(context);
+            try {
+                if (txnManager != null) {
+                    boolean autoCommit = txnManager.isAutoCommit();
+                    if (!autoCommit) {
+                        try (DBCSession session = context.openSession(new VoidProgressMonitor(), DBCExecutionPurpose.UTIL, "Rollback shared context")) {
+                            txnManager.rollback(session, null);
+                        }
+                    }
+                    if (initialAutoCommit == null || autoCommit != initialAutoCommit ||
+                        !CommonUtils.equalObjects(txnManager.getTransactionIsolation(), initialIsolation))
+                    {
+                        return false;
+                    }
+                }
+                if (restoreDefaults ||
+                    !CommonUtils.equalObjects(catalogName, initialCatalogName) ||
+                    !CommonUtils.equalObjects(schemaName, initialSchemaName))
+                {
+                    if (initialCatalogName != null || initialSchemaName != null) {
+                        // Current catalog is unknown after arbitrary SQL, so it is always switched
+                        DBExecUtils.setExecutionContextDefaults(
+                            new VoidProgressMonitor(), context.getDataSource(), context, initialCatalogName, null, initialSchemaName);
+                    }
+                    catalogName = initialCatalogName;
+                    schemaName = initialSchemaName;
+                }
+                return true;
+            } catch (DBException e) {
+                log.debug("Error resetting shared execution context", e);
+                return false;
+            }
+        }
+
+        void setDefaults(DBRProgressMonitor monitor, String newCatalogName, String newSchemaName) throws DBException {
+            if ((newCatalogName == null && newSchemaName == null) ||
+                (CommonUtils.equalObjects(catalogName, newCatalogName) && CommonUtils.equalObjects(schemaName, newSchemaName)))
+            {
+                return;
+            }
+            DBExecUtils.setExecutionContextDefaults(monitor, context.getDataSource(), context, newCatalogName, catalogName, newSchemaName);
+            catalogName = newCatalogName;
+            schemaName = newSchemaName;
+        }
+
+        void close() {
+            try {
+                context.close();
+            } catch (Throwable e) {
+                log.debug("Error closing shared execution context", e);
+            }
+        }
+    }
+
+    /**
+     * Leased execution context. Must be closed after use to return context to the pool.
+     */
+    public static class ContextLease implements AutoCloseable {
+        private final SharedDataSource dataSource;
+        private final PooledContext pooledContext;
+        private final DBCExecutionContext context;
+        private boolean released;
+        private boolean dirty;
+
+        private ContextLease(SharedDataSource dataSource, PooledContext pooledContext) {
+            this.dataSource = dataSource;
+            this.pooledContext = pooledContext;
+            this.context = pooledContext.context;
+        }
+
+        private ContextLease(DBCExecutionContext context) {
+            this.dataSource = null;
+            this.pooledContext = null;
+            this.context = context;
+        }
+
+        /**
+         * Wraps context which doesn't belong to the pool. Close does nothing.
+         */
+        @NotNull
+        public static ContextLease of(@NotNull DBCExecutionContext context) {
+            return new ContextLease(context);
+        }
+
+        @NotNull
+        public DBCExecutionContext getContext() {
+            return context;
+        }
+
+        public boolean isPooled() {
+            return pooledContext != null;
+        }
+
+        /**
+         * Marks context as possibly changed by executed statements (default catalog or schema switch).
+         * Initial defaults of such context are restored on release.
+         */
+        public void markDirty() {
+            dirty = true;
+        }
+
+        @Override
+        public void close() {
+            if (pooledContext != null && !released) {
+                released = true;
+                dataSource.releaseContext(pooledContext, false, dirty);
+            }
+        }
+    }
+
+    public WebSharedDataSourcePool(int maxContexts, long idleTimeout, long maxWaitTime) {
+        this.maxContexts = Math.max(maxContexts, 1);
+        this.idleTimeout = idleTimeout;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * Returns connected shared data source with the same driver, URL and credentials as the specified container.
+     * Shared data source must be released with {@link #releaseDataSource(SharedDataSource)}.
+     */
+    @NotNull
+    public SharedDataSource acquireDataSource(@NotNull DBRProgressMonitor monitor, @NotNull DBPDataSourceContainer container) throws DBException {
+        String key = makeDataSourceKey(container);
+        SharedDataSource sharedDataSource;
+        synchronized (dataSources) {
+            sharedDataSource = dataSources.get(key);
+            if (sharedDataSource == null) {
+                DataSourceDescriptor dsCopy = new DataSourceDescriptor(
+                    (DataSourceDescriptor) container,
+                    WebServiceUtils.getGlobalDataSourceRegistry(),
+                    false);
+                dsCopy.setTemporary(true);
+                sharedDataSource = new SharedDataSource(key, dsCopy);
+                dataSources.put(key, sharedDataSource);
+            }
+            synchronized (sharedDataSource) {
+                sharedDataSource.refCount++;
+            }
+        }
+        try {
+            synchronized (sharedDataSource.connectLock) {
+                if (!sharedDataSource.container.isConnected()) {
+                    sharedDataSource.container.connect(monitor, true, false);
+                    log.debug("Shared data source '" + container.getName() + "' connected");
+                }
+            }
+        } catch (DBException e) {
+            releaseDataSource(sharedDataSource);
+            throw e;
+        }
+        return sharedDataSource;
+    }
+
+    public void releaseDataSource(@NotNull SharedDataSource sharedDataSource) {
+        synchronized (sharedDataSource) {
+            if (sharedDataSource.refCount > 0) {
+                sharedDataSource.refCount--;
+            }
+            sharedDataSource.lastReleaseTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Closes idle contexts and disconnects data sources which weren't used during idle timeout.
+     */
+    public void evictIdle() {
+        long currentTime = System.currentTimeMillis();
+        List<SharedDataSource> toClose = new ArrayList<>();
+        synchronized (dataSources) {
+            for (Iterator<SharedDataSource> iter = dataSources.values().iterator(); iter.hasNext(); ) {
+                SharedDataSource sharedDataSource = iter.next();
+                sharedDataSource.evictIdleContexts(currentTime);
+                synchronized (sharedDataSource) {
+                    if (sharedDataSource.isUnused() && currentTime - sharedDataSource.lastReleaseTime > idleTimeout) {
+                        iter.remove();
+                        toClose.add(sharedDataSource);
+                    }
+                }
+            }
+        }
+        for (SharedDataSource sharedDataSource : toClose) {
+            log.debug("Close unused shared data source '" + sharedDataSource.container.getName() + "'");
+            sharedDataSource.close();
+        }
+    }
+
+    public void dispose() {
+        List<SharedDataSource> toClose;
+        synchronized (dataSources) {
+            toClose = new ArrayList<>(dataSources.values());
+            dataSources.clear();
+        }
+        for (SharedDataSource sharedDataSource : toClose) {
+            sharedDataSource.close();
+        }
+        log.debug(toString());
+    }
+
+    public int getDataSourceCount() {
+        synchronized (dataSources) {
+            return dataSources.size();
+        }
+    }
+
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    public long getWaitCount() {
+        return waitCount.get();
+    }
+
+    public long getTotalWaitTime() {
+        return totalWaitTime.get();
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTimeObserved.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Shared data source pool: data sources=" + getDataSourceCount() +
+            ", leases=" + getLeaseCount() +
+            ", waits=" + getWaitCount() +
+            ", total wait time=" + getTotalWaitTime() + "ms" +
+            ", max wait time=" + getMaxWaitTime() + "ms" +
+            ", timeouts=" + getTimeoutCount() +
+            ", evictions=" + getEvictionCount();
+    }
+
+    /**
+     * Makes key of effective connection configuration. Connections share data source only if all settings
+     * which affect connection or session state are the same.
+     */
+    @NotNull
+    static String makeDataSourceKey(@NotNull DBPDataSourceContainer container) {
+        DBPConnectionConfiguration cfg = container.getConnectionConfiguration();
+        StringBuilder key = new StringBuilder();
+        key.append(WebServiceUtils.makeDriverFullId(container.getDriver())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getUrl())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getHostName())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getHostPort())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getServerName())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getDatabaseName())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getUserName())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getUserPassword())).append('|')
+            .append(CommonUtils.notEmpty(cfg.getAuthModelId())).append('|')
+            .append(toSortedString(cfg.getAuthProperties())).append('|')
+            .append(toSortedString(cfg.getProperties())).append('|')
+            .append(toSortedString(cfg.getProviderProperties())).append('|')
+            .append(cfg.getConnectionType() == null ? "" : cfg.getConnectionType().getId()).append('|')
+            .append(container.isConnectionReadOnly()).append('|')
+            .append(container.isDefaultAutoCommit()).append('|');
+        DBPConnectionBootstrap bootstrap = cfg.getBootstrap();
+        key.append(bootstrap.getDefaultAutoCommit()).append('|')
+            .append(bootstrap.getDefaultTransactionIsolation()).append('|')
+            .append(CommonUtils.notEmpty(bootstrap.getDefaultCatalogName())).append('|')
+            .append(CommonUtils.notEmpty(bootstrap.getDefaultSchemaName())).append('|')
+            .append(bootstrap.getInitQueries()).append('|')
+            .append(bootstrap.isIgnoreErrors()).append('|');
+        for (DBWHandlerConfiguration handler : cfg.getHandlers()) {
+            if (handler.isEnabled()) {
+                key.append(handler.getId()).append(toSortedString(handler.getProperties()))
+                    .append(CommonUtils.notEmpty(handler.getUserName()))
+                    .append(CommonUtils.notEmpty(handler.getPassword())).append('|');
+            }
+        }
+        try {
+            // Do not keep credentials in keys
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return CommonUtils.toHexString(digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return key.toString();
+        }
+    }
+
+    @NotNull
+    private static String toSortedString(@Nullable Map<String, ?> map) {
+        return CommonUtils.isEmpty(map) ? "{}" : new TreeMap<>(map).toString();
+    }
+
+}
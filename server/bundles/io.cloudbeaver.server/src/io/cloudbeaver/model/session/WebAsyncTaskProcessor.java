@@ -24,6 +24,8 @@ import org.jkiss.dbeaver.model.runtime.DBRRunnableWithResult;
 public abstract class WebAsyncTaskProcessor<TYPE> extends DBRRunnableWithResult<TYPE> {
 
     protected Object extendedResults;
+    // Estimated heap size of extended results, used by task results retention
+    protected long extendedResultsSize;
 
     public Object getExtendedResults() {
         return extendedResults;
@@ -32,4 +34,12 @@ public abstract class WebAsyncTaskProcessor<TYPE> extends DBRRunnableWithResult<
     public void setExtendedResults(Object extendedResults) {
         this.extendedResults = extendedResults;
     }
+
+    public long getExtendedResultsSize() {
+        return extendedResultsSize;
+    }
+
+    public void setExtendedResultsSize(long extendedResultsSize) {
+        this.extendedResultsSize = extendedResultsSize;
+    }
 }
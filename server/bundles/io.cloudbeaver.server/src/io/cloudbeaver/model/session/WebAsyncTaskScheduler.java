@@ -0,0 +1,337 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import io.cloudbeaver.model.WebAsyncTaskInfo;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules async tasks of web sessions.
+ * <p>
+ * Number of running tasks is limited globally, per session and per connection. Tasks over the limits wait
+ * in per-session FIFO queues. Free slots are given to sessions in round-robin order, so a session with many
+ * pending tasks does not delay tasks of other sessions. Task is rejected if its session queue is full.
+ * Jobs are scheduled after scheduler lock is released, so job listeners never run under the lock.
+ */
+public class WebAsyncTaskScheduler {
+
+    private static final Log log = Log.getLog(WebAsyncTaskScheduler.class);
+
+    private static class ScheduledTask {
+        final SessionQueue sessionQueue;
+        final WebAsyncTaskInfo taskInfo;
+        final String connectionId;
+        final long queueTime = System.currentTimeMillis();
+
+        ScheduledTask(SessionQueue sessionQueue, WebAsyncTaskInfo taskInfo, String connectionId) {
+            this.sessionQueue = sessionQueue;
+            this.taskInfo = taskInfo;
+            this.connectionId = connectionId;
+        }
+    }
+
+    private static class SessionQueue {
+        final String sessionId;
+        final Deque<ScheduledTask> pendingTasks = new ArrayDeque<>();
+        final Map<String, Integer> runningByConnection = new HashMap<>();
+        int runningCount;
+
+        SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+    }
+
+    private final int maxRunningTasks;
+    private final int maxSessionRunningTasks;
+    private final int maxConnectionRunningTasks;
+    private final int maxSessionQueuedTasks;
+
+    // Insertion ordered. Session which got a slot is moved to the end.
+    private final LinkedHashMap<String, SessionQueue> sessionQueues = new LinkedHashMap<>();
+    private final Map<WebAsyncTaskInfo, ScheduledTask> runningTasks = new IdentityHashMap<>();
+    private int queuedCount;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    public WebAsyncTaskScheduler(int maxRunningTasks, int maxSessionRunningTasks, int maxConnectionRunningTasks, int maxSessionQueuedTasks) {
+        this.maxRunningTasks = Math.max(1, maxRunningTasks);
+        this.maxSessionRunningTasks = Math.max(1, maxSessionRunningTasks);
+        this.maxConnectionRunningTasks = Math.max(1, maxConnectionRunningTasks);
+        this.maxSessionQueuedTasks = Math.max(0, maxSessionQueuedTasks);
+    }
+
+    /**
+     * Starts task job or puts it in the session queue.
+     * Task job must be set and not scheduled yet.
+     *
+     * @param connectionId connection used by the task or null if task does not use a connection
+     * @return false if task was rejected because session queue is full
+     */
+    public boolean submitTask(@NotNull WebSession session, @Nullable String connectionId, @NotNull WebAsyncTaskInfo taskInfo) {
+        List<AbstractJob> startedJobs;
+        synchronized (this) {
+            submittedCount.incrementAndGet();
+            SessionQueue sessionQueue = sessionQueues.computeIfAbsent(session.getSessionId(), SessionQueue::new);
+            if (sessionQueue.pendingTasks.size() >= maxSessionQueuedTasks && !canStart(sessionQueue, connectionId)) {
+                rejectedCount.incrementAndGet();
+                if (sessionQueue.runningCount == 0 && sessionQueue.pendingTasks.isEmpty()) {
+                    sessionQueues.remove(sessionQueue.sessionId);
+                }
+                return false;
+            }
+            taskInfo.getJob().addJobChangeListener(new JobChangeAdapter() {
+                @Override
+                public void done(IJobChangeEvent event) {
+                    finishTask(taskInfo);
+                }
+            });
+            sessionQueue.pendingTasks.add(new ScheduledTask(sessionQueue, taskInfo, connectionId));
+            queuedCount++;
+            taskInfo.setQueued(true);
+            startedJobs = startTasks();
+            if (taskInfo.isQueued()) {
+                taskInfo.setStatus("Queued");
+            }
+        }
+        scheduleJobs(startedJobs);
+        return true;
+    }
+
+    /**
+     * Removes task from the queue.
+     *
+     * @return true if task was queued and will never run
+     */
+    public synchronized boolean cancelQueuedTask(@NotNull WebSession session, @NotNull WebAsyncTaskInfo taskInfo) {
+        SessionQueue sessionQueue = sessionQueues.get(session.getSessionId());
+        if (sessionQueue == null) {
+            return false;
+        }
+        for (Iterator<ScheduledTask> iter = sessionQueue.pendingTasks.iterator(); iter.hasNext(); ) {
+            if (iter.next().taskInfo == taskInfo) {
+                iter.remove();
+                queuedCount--;
+                taskInfo.setQueued(false);
+                removeIdleQueue(sessionQueue);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops queued tasks of the closed session. Running tasks are not affected.
+     *
+     * @return tasks which were removed from the queue
+     */
+    @NotNull
+    public synchronized List<WebAsyncTaskInfo> removeSession(@NotNull WebSession session) {
+        SessionQueue sessionQueue = sessionQueues.get(session.getSessionId());
+        if (sessionQueue == null) {
+            return Collections.emptyList();
+        }
+        List<WebAsyncTaskInfo> droppedTasks = new ArrayList<>();
+        for (ScheduledTask task : sessionQueue.pendingTasks) {
+            task.taskInfo.setQueued(false);
+            droppedTasks.add(task.taskInfo);
+        }
+        queuedCount -= sessionQueue.pendingTasks.size();
+        sessionQueue.pendingTasks.clear();
+        removeIdleQueue(sessionQueue);
+        return droppedTasks;
+    }
+
+    private void finishTask(@NotNull WebAsyncTaskInfo taskInfo) {
+        List<AbstractJob> startedJobs;
+        synchronized (this) {
+            ScheduledTask task = runningTasks.remove(taskInfo);
+            if (task == null) {
+                return;
+            }
+            SessionQueue sessionQueue = task.sessionQueue;
+            sessionQueue.runningCount--;
+            if (task.connectionId != null) {
+                sessionQueue.runningByConnection.computeIfPresent(task.connectionId, (id, count) -> count <= 1 ? null : count - 1);
+            }
+            removeIdleQueue(sessionQueue);
+            startedJobs = startTasks();
+        }
+        scheduleJobs(startedJobs);
+    }
+
+    private static void scheduleJobs(@NotNull List<AbstractJob> jobs) {
+        for (AbstractJob job : jobs) {
+            job.schedule();
+        }
+    }
+
+    /**
+     * Takes tasks which can be started now. Returned jobs must be scheduled outside of scheduler lock.
+     */
+    @NotNull
+    private List<AbstractJob> startTasks() {
+        List<AbstractJob> startedJobs = new ArrayList<>();
+        while (runningTasks.size() < maxRunningTasks && queuedCount > 0) {
+            ScheduledTask nextTask = null;
+            for (SessionQueue sessionQueue : sessionQueues.values()) {
+                nextTask = pollNextTask(sessionQueue);
+                if (nextTask != null) {
+                    break;
+                }
+            }
+            if (nextTask == null) {
+                // All queued tasks wait for session or connection slots
+                break;
+            }
+            SessionQueue sessionQueue = nextTask.sessionQueue;
+            // Round-robin: next free slot goes to the other sessions first
+            sessionQueues.remove(sessionQueue.sessionId);
+            sessionQueues.put(sessionQueue.sessionId, sessionQueue);
+            startedJobs.add(startTask(nextTask));
+        }
+        return startedJobs;
+    }
+
+    @Nullable
+    private ScheduledTask pollNextTask(@NotNull SessionQueue sessionQueue) {
+        for (Iterator<ScheduledTask> iter = sessionQueue.pendingTasks.iterator(); iter.hasNext(); ) {
+            ScheduledTask task = iter.next();
+            if (canStart(sessionQueue, task.connectionId)) {
+                iter.remove();
+                queuedCount--;
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private boolean canStart(@NotNull SessionQueue sessionQueue, @Nullable String connectionId) {
+        if (runningTasks.size() >= maxRunningTasks || sessionQueue.runningCount >= maxSessionRunningTasks) {
+            return false;
+        }
+        return connectionId == null ||
+            sessionQueue.runningByConnection.getOrDefault(connectionId, 0) < maxConnectionRunningTasks;
+    }
+
+    @NotNull
+    private AbstractJob startTask(@NotNull ScheduledTask task) {
+        SessionQueue sessionQueue = task.sessionQueue;
+        sessionQueue.runningCount++;
+        if (task.connectionId != null) {
+            sessionQueue.runningByConnection.merge(task.connectionId, 1, Integer::sum);
+        }
+        runningTasks.put(task.taskInfo, task);
+
+        long waitTime = System.currentTimeMillis() - task.queueTime;
+        startedCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        maxWaitTime.accumulateAndGet(waitTime, Math::max);
+
+        task.taskInfo.setQueued(false);
+        return task.taskInfo.getJob();
+    }
+
+    private void removeIdleQueue(@NotNull SessionQueue sessionQueue) {
+        if (sessionQueue.runningCount <= 0 && sessionQueue.pendingTasks.isEmpty()) {
+            sessionQueues.remove(sessionQueue.sessionId);
+        }
+    }
+
+    public synchronized void dispose() {
+        log.debug(toString());
+        sessionQueues.clear();
+        runningTasks.clear();
+        queuedCount = 0;
+    }
+
+    ///////////////////////////////////
+    // Statistics
+
+    public synchronized int getRunningCount() {
+        return runningTasks.size();
+    }
+
+    public int getMaxRunningCount() {
+        return maxRunningTasks;
+    }
+
+    public synchronized int getQueuedCount() {
+        return queuedCount;
+    }
+
+    /**
+     * The longest session queue
+     */
+    public synchronized int getMaxSessionQueuedCount() {
+        int maxQueued = 0;
+        for (SessionQueue sessionQueue : sessionQueues.values()) {
+            maxQueued = Math.max(maxQueued, sessionQueue.pendingTasks.size());
+        }
+        return maxQueued;
+    }
+
+    public synchronized int getSessionQueueCount() {
+        return sessionQueues.size();
+    }
+
+    public long getStartedCount() {
+        return startedCount.get();
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Average time tasks spent in the queue before start (ms)
+     */
+    public long getAverageWaitTime() {
+        long started = startedCount.get();
+        return started == 0 ? 0 : totalWaitTime.get() / started;
+    }
+
+    public long getMaxWaitTime() {
+        return maxWaitTime.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Async task scheduler: running=" + getRunningCount() + "/" + maxRunningTasks +
+            ", queued=" + getQueuedCount() +
+            ", submitted=" + getSubmittedCount() +
+            ", rejected=" + getRejectedCount() +
+            ", avgWait=" + getAverageWaitTime() + "ms" +
+            ", maxWait=" + getMaxWaitTime() + "ms";
+    }
+
+}
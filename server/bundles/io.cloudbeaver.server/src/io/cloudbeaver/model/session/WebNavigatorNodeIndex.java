@@ -0,0 +1,134 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.navigator.DBNEvent;
+import org.jkiss.dbeaver.model.navigator.DBNModel;
+import org.jkiss.dbeaver.model.navigator.DBNNode;
+import org.jkiss.dbeaver.model.navigator.INavigatorListener;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of session navigator nodes by node path.
+ * <p>
+ * Resolution of node path in navigator model walks the tree segment by segment.
+ * Index keeps nodes which were already resolved so repeated lookups do not walk the tree.
+ * Removed nodes are dropped from index by navigator model events. Navigator events are delivered
+ * asynchronously, so disposed nodes are also checked on lookup.
+ */
+public class WebNavigatorNodeIndex implements INavigatorListener {
+
+    // Index is cleared when it grows bigger than this
+    private static final int MAX_INDEX_SIZE = 50000;
+
+    private final DBNModel navigatorModel;
+    private final Map<String, DBNNode> nodesByPath = new HashMap<>();
+    private final Map<DBNNode, String> pathsByNode = new IdentityHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    WebNavigatorNodeIndex(@NotNull DBNModel navigatorModel) {
+        this.navigatorModel = navigatorModel;
+        navigatorModel.addListener(this);
+    }
+
+    @Nullable
+    public DBNNode getNodeByPath(@NotNull DBRProgressMonitor monitor, @NotNull String nodePath) throws DBException {
+        synchronized (this) {
+            DBNNode node = nodesByPath.get(nodePath);
+            if (node != null) {
+                if (!node.isDisposed()) {
+                    hitCount.incrementAndGet();
+                    return node;
+                }
+                removeNode(node);
+            }
+        }
+        missCount.incrementAndGet();
+        DBNNode node = navigatorModel.getNodeByPath(monitor, nodePath);
+        if (node != null) {
+            synchronized (this) {
+                if (nodesByPath.size() >= MAX_INDEX_SIZE) {
+                    clear();
+                }
+                DBNNode oldNode = nodesByPath.put(nodePath, node);
+                if (oldNode != null && oldNode != node) {
+                    pathsByNode.remove(oldNode);
+                }
+                pathsByNode.put(node, nodePath);
+            }
+        }
+        return node;
+    }
+
+    @Override
+    public void nodeChanged(DBNEvent event) {
+        if (event.getAction() == DBNEvent.Action.REMOVE) {
+            synchronized (this) {
+                removeNode(event.getNode());
+            }
+        }
+    }
+
+    public synchronized int getSize() {
+        return nodesByPath.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    void dispose() {
+        navigatorModel.removeListener(this);
+        synchronized (this) {
+            clear();
+        }
+    }
+
+    private void removeNode(DBNNode node) {
+        String nodePath = pathsByNode.remove(node);
+        if (nodePath != null) {
+            nodesByPath.remove(nodePath);
+        }
+    }
+
+    private void clear() {
+        nodesByPath.clear();
+        pathsByNode.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "Navigator node index: size=" + getSize() +
+            ", hits=" + getHitCount() +
+            ", misses=" + getMissCount();
+    }
+
+}
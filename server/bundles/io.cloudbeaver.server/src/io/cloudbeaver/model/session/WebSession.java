@@ -19,10 +19,11 @@ package io.cloudbeaver.model.session;
 import io.cloudbeaver.*;
 import io.cloudbeaver.model.WebAsyncTaskInfo;
 import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.WebMetadataCache;
 import io.cloudbeaver.model.WebServerMessage;
+import io.cloudbeaver.model.WebSharedDataSourcePool;
 import io.cloudbeaver.model.user.WebUser;
 import io.cloudbeaver.server.CBApplication;
-import io.cloudbeaver.server.CBConstants;
 import io.cloudbeaver.server.CBPlatform;
 import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IStatus;
@@ -46,6 +47,7 @@ import org.jkiss.dbeaver.model.impl.auth.SessionContextImpl;
 import org.jkiss.dbeaver.model.meta.Association;
 import org.jkiss.dbeaver.model.meta.Property;
 import org.jkiss.dbeaver.model.navigator.DBNModel;
+import org.jkiss.dbeaver.model.navigator.DBNNode;
 import org.jkiss.dbeaver.model.runtime.AbstractJob;
 import org.jkiss.dbeaver.model.runtime.BaseProgressMonitor;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
@@ -61,7 +63,10 @@ import javax.servlet.http.HttpSession;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -79,7 +84,7 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
 
     private final String id;
     private final long createTime;
-    private long lastAccessTime;
+    private volatile long lastAccessTime;
     private String lastRemoteAddr;
     private String lastRemoteUserAgent;
     private boolean persisted;
@@ -92,14 +97,22 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
     private boolean cacheExpired;
 
     private final Map<String, WebConnectionInfo> connections = new HashMap<>();
-    private final List<WebServerMessage> progressMessages = new ArrayList<>();
+    private final WebSessionLogBuffer progressMessages = new WebSessionLogBuffer(CBApplication.getInstance().getSessionLogMaxEntries());
 
     private final Map<String, WebAsyncTaskInfo> asyncTasks = new HashMap<>();
+    // Finished tasks in finish order, guarded by asyncTasks
+    private final Deque<WebAsyncTaskInfo> finishedTasks = new ArrayDeque<>();
+    private long retainedResultsSize;
+    private long evictedResultsCount;
+    private long expiredTasksCount;
+    private final List<Consumer<WebSessionEvent>> eventListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong lastEventId = new AtomicLong();
     private final Map<String, Object> attributes = new HashMap<>();
     private final Map<String, Function<Object,Object>> attributeDisposers = new HashMap<>();
     private WebAuthInfo authInfo;
 
     private DBNModel navigatorModel;
+    private WebNavigatorNodeIndex navigatorNodeIndex;
     private DBRProgressMonitor progressMonitor = new SessionProgressMonitor();
     private ProjectMetadata sessionProject;
     private final SessionContextImpl sessionAuthContext;
@@ -152,15 +165,15 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
 
     @Property
     public String getCreateTime() {
-        return CBConstants.ISO_DATE_FORMAT.format(createTime);
+        return WebServiceUtils.formatISODate(createTime);
     }
 
     @Property
     public synchronized String getLastAccessTime() {
-        return CBConstants.ISO_DATE_FORMAT.format(lastAccessTime);
+        return WebServiceUtils.formatISODate(lastAccessTime);
     }
 
-    synchronized long getLastAccessTimeMillis() {
+    long getLastAccessTimeMillis() {
         return lastAccessTime;
     }
 
@@ -233,6 +246,11 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         }
 
         // Cleanup current data
+        if (this.navigatorNodeIndex != null) {
+            log.debug(this.navigatorNodeIndex.toString());
+            this.navigatorNodeIndex.dispose();
+            this.navigatorNodeIndex = null;
+        }
         if (this.navigatorModel != null) {
             this.navigatorModel.dispose();
             this.navigatorModel = null;
@@ -253,6 +271,7 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         }
         this.navigatorModel = new DBNModel(platform, this.sessionProject);
         this.navigatorModel.initialize();
+        this.navigatorNodeIndex = new WebNavigatorNodeIndex(this.navigatorModel);
 
         DBPDataSourceRegistry dataSourceRegistry = sessionProject.getDataSourceRegistry();
         ((DataSourceRegistry)dataSourceRegistry).setAuthCredentialsProvider(this);
@@ -288,12 +307,57 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         }
 
         // Add all provided datasources to the session
+        List<WebConnectionInfo> oldConnections;
         synchronized (connections) {
+            oldConnections = new ArrayList<>(connections.values());
             connections.clear();
             for (WebConnectionInfo connectionInfo : connList) {
                 connections.put(connectionInfo.getId(), connectionInfo);
             }
         }
+        // Keep shared data sources and metadata cache of the same connections
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        for (WebConnectionInfo oldConnection : oldConnections) {
+            if (oldConnection.getSharedDataSource() == null && oldConnection.getMetadataCacheIdentity() == null) {
+                continue;
+            }
+            WebConnectionInfo newConnection = connList.stream()
+                .filter(c -> c.getDataSourceContainer() == oldConnection.getDataSourceContainer())
+                .findFirst().orElse(null);
+            if (newConnection != null) {
+                newConnection.setSharedDataSource(oldConnection.getSharedDataSource());
+                if (metadataCache != null && oldConnection.getMetadataCacheIdentity() != null) {
+                    metadataCache.attachConnection(newConnection);
+                }
+            } else {
+                releaseSharedDataSource(oldConnection);
+            }
+            detachMetadataCache(oldConnection);
+        }
+    }
+
+    /**
+     * Returns shared data source of the connection back to the pool.
+     */
+    public void releaseSharedDataSource(@NotNull WebConnectionInfo connectionInfo) {
+        WebSharedDataSourcePool.SharedDataSource sharedDataSource = connectionInfo.getSharedDataSource();
+        WebSharedDataSourcePool pool = CBPlatform.getInstance().getSharedDataSourcePool();
+        if (sharedDataSource != null) {
+            connectionInfo.setSharedDataSource(null);
+            if (pool != null) {
+                pool.releaseDataSource(sharedDataSource);
+            }
+        }
+    }
+
+    /**
+     * Detaches connection from the shared metadata cache.
+     */
+    public void detachMetadataCache(@NotNull WebConnectionInfo connectionInfo) {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        if (metadataCache != null) {
+            metadataCache.detachConnection(connectionInfo);
+        }
     }
 
     public void filterAccessibleConnections(List<WebConnectionInfo> connections) {
@@ -343,11 +407,18 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         }
 
         for (WebConnectionInfo connectionInfo : conCopy.values()) {
-            if (connectionInfo.isConnected()) {
+            releaseSharedDataSource(connectionInfo);
+            detachMetadataCache(connectionInfo);
+            if (connectionInfo.getDataSourceContainer().isConnected()) {
                 new DisconnectJob(connectionInfo.getDataSourceContainer()).schedule();
             }
         }
 
+        if (this.navigatorNodeIndex != null) {
+            log.debug(this.navigatorNodeIndex.toString());
+            this.navigatorNodeIndex.dispose();
+            this.navigatorNodeIndex = null;
+        }
         if (this.navigatorModel != null) {
             this.navigatorModel.dispose();
             this.navigatorModel = null;
@@ -389,16 +460,24 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         return navigatorModel;
     }
 
+    public WebNavigatorNodeIndex getNavigatorNodeIndex() {
+        return navigatorNodeIndex;
+    }
+
+    /**
+     * Finds navigator node by path. Nodes which were already resolved are taken from the node index.
+     */
+    @Nullable
+    public DBNNode getNavigatorNode(@NotNull DBRProgressMonitor monitor, @NotNull String nodePath) throws DBException {
+        return navigatorNodeIndex.getNodeByPath(monitor, nodePath);
+    }
+
     /**
      * Returns and clears progress messages
      */
     @Association
     public List<WebServerMessage> getProgressMessages() {
-        synchronized (progressMessages) {
-            List<WebServerMessage> copy = new ArrayList<>(progressMessages);
-            progressMessages.clear();
-            return copy;
-        }
+        return progressMessages.readUnconsumed(progressMessages.getCapacity(), true);
     }
 
     synchronized void updateInfo(HttpServletRequest request) {
@@ -471,6 +550,12 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
     }
 
     void close() {
+        WebAsyncTaskScheduler scheduler = CBPlatform.getInstance().getAsyncTaskScheduler();
+        if (scheduler != null) {
+            for (WebAsyncTaskInfo taskInfo : scheduler.removeSession(this)) {
+                finishQueuedTask(taskInfo, "Cancelled", null);
+            }
+        }
         try {
             resetNavigationModel();
             resetSessionCache();
@@ -487,6 +572,9 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
             this.sessionProject.dispose();
             this.sessionProject = null;
         }
+
+        fireSessionEvent(WebSessionEvent.closeEvent());
+        eventListeners.clear();
     }
 
     public DBRProgressMonitor getProgressMonitor() {
@@ -513,9 +601,13 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
             if (taskInfo == null) {
                 throw new DBWebException("Task '" + taskId + "' not found");
             }
-            taskInfo.setRunning(taskInfo.getJob() != null && !taskInfo.getJob().isFinished());
+            if (taskInfo.isRunning()) {
+                // Queued tasks are running until their job finishes
+                taskInfo.setRunning(taskInfo.getJob() != null && !taskInfo.getJob().isFinished());
+            }
             if (removeOnFinish && !taskInfo.isRunning()) {
                 asyncTasks.remove(taskId);
+                removeFinishedTask(taskInfo);
             }
             return taskInfo;
         }
@@ -529,6 +621,11 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
                 throw new DBWebException("Task '" + taskId + "' not found");
             }
         }
+        WebAsyncTaskScheduler scheduler = CBPlatform.getInstance().getAsyncTaskScheduler();
+        if (scheduler != null && scheduler.cancelQueuedTask(this, taskInfo)) {
+            finishQueuedTask(taskInfo, "Cancelled", null);
+            return true;
+        }
         AbstractJob job = taskInfo.getJob();
         if (job != null) {
             job.cancel();
@@ -537,6 +634,16 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
     }
 
     public WebAsyncTaskInfo createAndRunAsyncTask(String taskName, WebAsyncTaskProcessor runnable) {
+        return createAndRunAsyncTask(taskName, null, runnable);
+    }
+
+    /**
+     * Creates async task and submits it to the async task scheduler.
+     * Task is started when there is a free slot for the session and connection, or rejected if session queue is full.
+     *
+     * @param connectionInfo connection used by the task, tasks of the same connection are limited separately
+     */
+    public WebAsyncTaskInfo createAndRunAsyncTask(String taskName, @Nullable WebConnectionInfo connectionInfo, WebAsyncTaskProcessor runnable) {
         int taskId = TASK_ID.incrementAndGet();
         WebAsyncTaskInfo asyncTask = getAsyncTask(String.valueOf(taskId), taskName, true);
 
@@ -549,38 +656,168 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
                     asyncTask.setResult(runnable.getResult());
                     asyncTask.setExtendedResult(runnable.getExtendedResults());
                     asyncTask.setStatus("Finished");
-                    asyncTask.setRunning(false);
                 } catch (InvocationTargetException e) {
                     asyncTask.setJobError(e.getTargetException());
                 } catch (InterruptedException e) {
                     asyncTask.setJobError(e);
                 }
+                retainTaskResults(asyncTask, asyncTask.getExtendedResult() == null ? 0 : runnable.getExtendedResultsSize());
+                asyncTask.setRunning(false);
+                fireSessionEvent(WebSessionEvent.taskEvent(WebSessionEvent.EventType.TASK_FINISHED, asyncTask));
                 return Status.OK_STATUS;
             }
         };
 
         asyncTask.setJob(job);
         asyncTask.setRunning(true);
-        job.schedule();
+        WebAsyncTaskScheduler scheduler = CBPlatform.getInstance().getAsyncTaskScheduler();
+        if (scheduler == null) {
+            job.schedule();
+        } else if (!scheduler.submitTask(this, connectionInfo == null ? null : connectionInfo.getId(), asyncTask)) {
+            asyncTask.setRejected(true);
+            finishQueuedTask(asyncTask, "Rejected", new DBWebException("Too many async tasks are waiting in the session queue"));
+        }
         return asyncTask;
     }
 
-    public List<WebServerMessage> readLog(Integer maxEntries, Boolean clearLog) {
-        synchronized (progressMessages) {
-            List<WebServerMessage> messages = new ArrayList<>();
-            int entryCount = CommonUtils.toInt(maxEntries);
-            if (entryCount == 0 || entryCount >= progressMessages.size()) {
-                messages.addAll(progressMessages);
-                if (CommonUtils.toBoolean(clearLog)) {
-                    progressMessages.clear();
+    private void finishQueuedTask(@NotNull WebAsyncTaskInfo asyncTask, @NotNull String status, @Nullable Throwable error) {
+        asyncTask.setStatus(status);
+        asyncTask.setJobError(error);
+        retainTaskResults(asyncTask, 0);
+        asyncTask.setRunning(false);
+        fireSessionEvent(WebSessionEvent.taskEvent(WebSessionEvent.EventType.TASK_FINISHED, asyncTask));
+    }
+
+    /**
+     * Registers finished task. If retained results exceed the session budget then results of the oldest
+     * finished tasks are evicted. Results of the just finished task are kept even if they exceed the budget alone.
+     */
+    private void retainTaskResults(@NotNull WebAsyncTaskInfo asyncTask, long resultSize) {
+        long maxResultsSize = CBApplication.getInstance().getAsyncTasksResultsMaxSizePerSession();
+        synchronized (asyncTasks) {
+            asyncTask.setFinishTime(System.currentTimeMillis());
+            if (asyncTasks.get(asyncTask.getId()) != asyncTask) {
+                // Task was removed while it was running
+                asyncTask.setExtendedResult(null);
+                return;
+            }
+            asyncTask.setResultSize(resultSize);
+            retainedResultsSize += resultSize;
+            finishedTasks.add(asyncTask);
+            for (Iterator<WebAsyncTaskInfo> iter = finishedTasks.iterator(); retainedResultsSize > maxResultsSize && iter.hasNext(); ) {
+                WebAsyncTaskInfo taskInfo = iter.next();
+                if (taskInfo != asyncTask && taskInfo.getResultSize() > 0) {
+                    log.debug("Evict results of task '" + taskInfo.getId() + "' (" + taskInfo.getResultSize() + " bytes) in session '" + id + "'");
+                    releaseTaskResults(taskInfo);
+                    taskInfo.setExtendedResult(null);
+                    taskInfo.setResultEvicted(true);
+                    evictedResultsCount++;
                 }
-            } else {
-                messages.addAll(progressMessages.subList(0, maxEntries));
-                if (CommonUtils.toBoolean(clearLog)) {
-                    progressMessages.removeAll(messages);
+            }
+        }
+    }
+
+    private void releaseTaskResults(@NotNull WebAsyncTaskInfo taskInfo) {
+        retainedResultsSize -= taskInfo.getResultSize();
+        taskInfo.setResultSize(0);
+    }
+
+    /**
+     * Drops removed task from finished tasks along with its results, so they are not retained until TTL expiration.
+     */
+    private void removeFinishedTask(@NotNull WebAsyncTaskInfo taskInfo) {
+        finishedTasks.remove(taskInfo);
+        releaseTaskResults(taskInfo);
+        taskInfo.setExtendedResult(null);
+    }
+
+    /**
+     * Removes tasks which finished earlier than async task results TTL ago.
+     */
+    public void expireAsyncTasks() {
+        long resultsTTL = CBApplication.getInstance().getAsyncTasksResultsTTL();
+        if (resultsTTL <= 0) {
+            return;
+        }
+        long expireTime = System.currentTimeMillis() - resultsTTL;
+        synchronized (asyncTasks) {
+            while (!finishedTasks.isEmpty() && finishedTasks.peekFirst().getFinishTime() <= expireTime) {
+                WebAsyncTaskInfo taskInfo = finishedTasks.pollFirst();
+                if (asyncTasks.remove(taskInfo.getId(), taskInfo)) {
+                    expiredTasksCount++;
                 }
+                releaseTaskResults(taskInfo);
+                taskInfo.setExtendedResult(null);
+            }
+        }
+    }
+
+    /**
+     * Estimated size of finished async task results kept in the session
+     */
+    public long getRetainedTaskResultsSize() {
+        synchronized (asyncTasks) {
+            return retainedResultsSize;
+        }
+    }
+
+    public long getEvictedTaskResultsCount() {
+        synchronized (asyncTasks) {
+            return evictedResultsCount;
+        }
+    }
+
+    public long getExpiredTasksCount() {
+        synchronized (asyncTasks) {
+            return expiredTasksCount;
+        }
+    }
+
+    public List<WebServerMessage> readLog(Integer maxEntries, Boolean clearLog) {
+        int entryCount = CommonUtils.toInt(maxEntries);
+        return progressMessages.readUnconsumed(
+            entryCount <= 0 ? progressMessages.getCapacity() : entryCount,
+            CommonUtils.toBoolean(clearLog));
+    }
+
+    /**
+     * Reads session log page. Unlike readLog it does not consume messages, so several readers can page
+     * through the log independently.
+     *
+     * @param cursor next cursor of the previous page or null to read from the oldest message
+     */
+    @NotNull
+    public WebSessionLogPage readLogPage(@Nullable Long cursor, Integer maxEntries) {
+        int entryCount = CommonUtils.toInt(maxEntries);
+        return progressMessages.read(cursor, entryCount <= 0 ? progressMessages.getCapacity() : entryCount);
+    }
+
+    ///////////////////////////////////////////////////////
+    // Events
+
+    /**
+     * Adds session event listener. Listeners are called in the thread which fired the event
+     * (task job, request handler), so they must not block.
+     */
+    public void addEventListener(@NotNull Consumer<WebSessionEvent> listener) {
+        eventListeners.add(listener);
+    }
+
+    public void removeEventListener(@NotNull Consumer<WebSessionEvent> listener) {
+        eventListeners.remove(listener);
+    }
+
+    private void fireSessionEvent(@NotNull WebSessionEvent event) {
+        if (eventListeners.isEmpty()) {
+            return;
+        }
+        event.setEventId(lastEventId.incrementAndGet());
+        for (Consumer<WebSessionEvent> listener : eventListeners) {
+            try {
+                listener.accept(event);
+            } catch (Throwable e) {
+                log.debug("Session event listener failed: " + e.getMessage());
             }
-            return messages;
         }
     }
 
@@ -725,16 +962,18 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
     private class SessionProgressMonitor extends BaseProgressMonitor {
         @Override
         public void beginTask(String name, int totalWork) {
-            synchronized (progressMessages) {
-                progressMessages.add(new WebServerMessage(WebServerMessage.MessageType.INFO, name));
-            }
+            addProgressMessage(name);
         }
 
         @Override
         public void subTask(String name) {
-            synchronized (progressMessages) {
-                progressMessages.add(new WebServerMessage(WebServerMessage.MessageType.INFO, name));
-            }
+            addProgressMessage(name);
+        }
+
+        private void addProgressMessage(String text) {
+            WebServerMessage message = new WebServerMessage(WebServerMessage.MessageType.INFO, text);
+            progressMessages.add(message);
+            fireSessionEvent(WebSessionEvent.logEvent(message));
         }
     }
 
@@ -751,12 +990,14 @@ public class WebSession implements DBASession, DBAAuthCredentialsProvider, IAdap
         public void beginTask(String name, int totalWork) {
             super.beginTask(name, totalWork);
             asyncTask.setStatus(name);
+            fireSessionEvent(WebSessionEvent.taskEvent(WebSessionEvent.EventType.TASK_STATUS, asyncTask));
         }
 
         @Override
         public void subTask(String name) {
             super.subTask(name);
             asyncTask.setStatus(name);
+            fireSessionEvent(WebSessionEvent.taskEvent(WebSessionEvent.EventType.TASK_STATUS, asyncTask));
         }
     }
 }
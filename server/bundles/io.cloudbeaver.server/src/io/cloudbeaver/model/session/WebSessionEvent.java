@@ -0,0 +1,145 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import io.cloudbeaver.model.WebAsyncTaskInfo;
+import io.cloudbeaver.model.WebServerError;
+import io.cloudbeaver.model.WebServerMessage;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.utils.CommonUtils;
+
+/**
+ * Session event pushed to subscribed clients.
+ * <p>
+ * Task events carry a snapshot of the task state, so clients do not need to poll asyncTaskInfo.
+ * Heavy task results (e.g. SQL results) are not included, they are read once after TASK_FINISHED event.
+ */
+public class WebSessionEvent {
+
+    public enum EventType {
+        // Task status or subtask changed
+        TASK_STATUS,
+        // Task finished successfully or with error
+        TASK_FINISHED,
+        // New session log message
+        SESSION_LOG,
+        // Session was closed, no more events will follow
+        SESSION_CLOSED
+    }
+
+    private final EventType type;
+    private long eventId;
+
+    private String taskId;
+    private String taskName;
+    private Boolean running;
+    private Boolean queued;
+    private String status;
+    private Object taskResult;
+    private WebServerError error;
+
+    private WebServerMessage message;
+
+    private WebSessionEvent(@NotNull EventType type) {
+        this.type = type;
+    }
+
+    @NotNull
+    public static WebSessionEvent taskEvent(@NotNull EventType type, @NotNull WebAsyncTaskInfo taskInfo) {
+        WebSessionEvent event = new WebSessionEvent(type);
+        event.taskId = taskInfo.getId();
+        event.taskName = taskInfo.getName();
+        event.running = taskInfo.isRunning();
+        event.queued = taskInfo.isQueued();
+        event.status = taskInfo.getStatus();
+        event.error = taskInfo.getError();
+        Object result = taskInfo.getTaskResult();
+        if (result instanceof String || result instanceof Number || result instanceof Boolean) {
+            event.taskResult = result;
+        } else if (result != null) {
+            event.taskResult = CommonUtils.toString(result);
+        }
+        return event;
+    }
+
+    @NotNull
+    public static WebSessionEvent logEvent(@NotNull WebServerMessage message) {
+        WebSessionEvent event = new WebSessionEvent(EventType.SESSION_LOG);
+        event.message = message;
+        return event;
+    }
+
+    @NotNull
+    public static WebSessionEvent closeEvent() {
+        return new WebSessionEvent(EventType.SESSION_CLOSED);
+    }
+
+    @NotNull
+    public EventType getType() {
+        return type;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    @Nullable
+    public String getTaskId() {
+        return taskId;
+    }
+
+    @Nullable
+    public String getTaskName() {
+        return taskName;
+    }
+
+    @Nullable
+    public Boolean getRunning() {
+        return running;
+    }
+
+    @Nullable
+    public Boolean getQueued() {
+        return queued;
+    }
+
+    @Nullable
+    public String getStatus() {
+        return status;
+    }
+
+    @Nullable
+    public Object getTaskResult() {
+        return taskResult;
+    }
+
+    @Nullable
+    public WebServerError getError() {
+        return error;
+    }
+
+    @Nullable
+    public WebServerMessage getMessage() {
+        return message;
+    }
+
+}
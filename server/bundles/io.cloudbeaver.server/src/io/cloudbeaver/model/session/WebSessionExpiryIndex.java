@@ -0,0 +1,104 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import org.jkiss.code.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Time-ordered index of session expiry deadlines.
+ * <p>
+ * Session touches do not update the index. Deadline of each entry is computed from the last access time
+ * known when the entry was queued, so it is never later than the real deadline. When deadline passes
+ * the session is either expired or re-queued with the deadline computed from its current last access time.
+ * Thus expiry check cost is proportional to the number of sessions whose deadline has passed, not to the total number of sessions.
+ */
+class WebSessionExpiryIndex {
+
+    private static class ExpiryEntry implements Comparable<ExpiryEntry> {
+        final WebSession session;
+        final long deadline;
+
+        ExpiryEntry(WebSession session, long deadline) {
+            this.session = session;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(ExpiryEntry o) {
+            return Long.compare(deadline, o.deadline);
+        }
+    }
+
+    private final PriorityQueue<ExpiryEntry> queue = new PriorityQueue<>();
+    private long maxIdleTime;
+
+    WebSessionExpiryIndex(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    synchronized void addSession(@NotNull WebSession session) {
+        queue.add(new ExpiryEntry(session, session.getLastAccessTimeMillis() + maxIdleTime));
+    }
+
+    /**
+     * Changes max idle time. All deadlines are recomputed.
+     */
+    synchronized void setMaxIdleTime(long maxIdleTime, @NotNull Collection<WebSession> sessions) {
+        if (this.maxIdleTime == maxIdleTime) {
+            return;
+        }
+        this.maxIdleTime = maxIdleTime;
+        queue.clear();
+        for (WebSession session : sessions) {
+            addSession(session);
+        }
+    }
+
+    /**
+     * Removes and returns sessions which were idle longer than max idle time.
+     * Returned sessions still may be already closed, caller must check it.
+     */
+    @NotNull
+    synchronized List<WebSession> pollExpiredSessions(long currentTime) {
+        List<WebSession> expired = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().deadline <= currentTime) {
+            WebSession session = queue.poll().session;
+            long deadline = session.getLastAccessTimeMillis() + maxIdleTime;
+            if (deadline <= currentTime) {
+                expired.add(session);
+            } else {
+                // Session was accessed after it was queued
+                queue.add(new ExpiryEntry(session, deadline));
+            }
+        }
+        return expired;
+    }
+
+    synchronized void removeSession(@NotNull WebSession session) {
+        queue.removeIf(entry -> entry.session == session);
+    }
+
+    synchronized int size() {
+        return queue.size();
+    }
+
+}
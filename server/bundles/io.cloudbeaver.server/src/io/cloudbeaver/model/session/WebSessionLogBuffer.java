@@ -0,0 +1,137 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import io.cloudbeaver.model.WebServerMessage;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed capacity session message log.
+ * <p>
+ * Messages are numbered by a growing sequence and stored in a ring, the oldest message is overwritten
+ * when the ring is full. Writers and readers do not lock. Readers page through the log with a cursor
+ * (sequence of the next message to read). Messages overwritten before they were consumed are counted as dropped.
+ */
+public class WebSessionLogBuffer {
+
+    private static class Entry {
+        final long sequence;
+        final WebServerMessage message;
+
+        Entry(long sequence, WebServerMessage message) {
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong writeSequence = new AtomicLong();
+    // Messages before this sequence were consumed by readLog with clear flag
+    private final AtomicLong readSequence = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param maxEntries min capacity, rounded up to power of two
+     */
+    public WebSessionLogBuffer(int maxEntries) {
+        int size = Integer.highestOneBit(Math.max(2, maxEntries) - 1) << 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    public void add(@NotNull WebServerMessage message) {
+        long sequence = writeSequence.getAndIncrement();
+        if (sequence - readSequence.get() >= capacity) {
+            droppedCount.incrementAndGet();
+        }
+        int index = (int) (sequence & mask);
+        Entry entry = new Entry(sequence, message);
+        for (;;) {
+            Entry oldEntry = entries.get(index);
+            if (oldEntry != null && oldEntry.sequence > sequence) {
+                // Slow writer, newer message is already stored in this slot
+                break;
+            }
+            if (entries.compareAndSet(index, oldEntry, entry)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reads messages starting from cursor.
+     *
+     * @param cursor     sequence of the first message to read or null to read from the oldest retained message
+     * @param maxEntries max number of messages to read
+     */
+    @NotNull
+    public WebSessionLogPage read(@Nullable Long cursor, int maxEntries) {
+        long lastSequence = writeSequence.get();
+        long firstSequence = Math.max(0, lastSequence - capacity);
+        long startSequence = cursor == null ? firstSequence : Math.min(Math.max(cursor, firstSequence), lastSequence);
+        long skippedCount = cursor == null ? 0 : Math.max(0, firstSequence - cursor);
+
+        List<WebServerMessage> messages = new ArrayList<>(Math.min(maxEntries, (int) (lastSequence - startSequence)));
+        long sequence = startSequence;
+        for (; sequence < lastSequence && messages.size() < maxEntries; sequence++) {
+            Entry entry = entries.get((int) (sequence & mask));
+            if (entry == null || entry.sequence < sequence) {
+                // Message sequence is taken but message is not stored yet
+                break;
+            }
+            if (entry.sequence > sequence) {
+                // Overwritten while we were reading
+                skippedCount++;
+                continue;
+            }
+            messages.add(entry.message);
+        }
+        return new WebSessionLogPage(messages, sequence, skippedCount, droppedCount.get());
+    }
+
+    /**
+     * Reads messages which were not consumed yet.
+     *
+     * @param consume marks read messages as consumed, so they are not returned again
+     */
+    @NotNull
+    public List<WebServerMessage> readUnconsumed(int maxEntries, boolean consume) {
+        WebSessionLogPage page = read(readSequence.get(), maxEntries);
+        if (consume) {
+            readSequence.accumulateAndGet(page.getNextSequence(), Math::max);
+        }
+        return page.getEntries();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.session;
+
+import io.cloudbeaver.model.WebServerMessage;
+import org.jkiss.code.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of session log messages
+ */
+public class WebSessionLogPage {
+
+    private final List<WebServerMessage> entries;
+    private final long nextSequence;
+    private final long skippedEntries;
+    private final long droppedEntries;
+
+    WebSessionLogPage(@NotNull List<WebServerMessage> entries, long nextSequence, long skippedEntries, long droppedEntries) {
+        this.entries = entries;
+        this.nextSequence = nextSequence;
+        this.skippedEntries = skippedEntries;
+        this.droppedEntries = droppedEntries;
+    }
+
+    @NotNull
+    public static WebSessionLogPage empty(long cursor) {
+        return new WebSessionLogPage(Collections.emptyList(), cursor, 0, 0);
+    }
+
+    @NotNull
+    public List<WebServerMessage> getEntries() {
+        return entries;
+    }
+
+    long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Opaque cursor for the next read
+     */
+    @NotNull
+    public String getNextCursor() {
+        return String.valueOf(nextSequence);
+    }
+
+    /**
+     * Messages between requested cursor and returned messages which were already overwritten
+     */
+    public long getSkippedEntries() {
+        return skippedEntries;
+    }
+
+    /**
+     * Total number of messages overwritten in the session log before they were consumed
+     */
+    public long getDroppedEntries() {
+        return droppedEntries;
+    }
+
+}
@@ -19,6 +19,7 @@ package io.cloudbeaver.model.session;
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.server.CBPlatform;
+import io.cloudbeaver.service.sql.WebSQLCursorRegistry;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.runtime.DBWorkbench;
@@ -27,6 +28,9 @@ import org.jkiss.utils.CommonUtils;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Various constants
@@ -44,7 +48,15 @@ public class WebSessionManager {
         return instance;
     }
 
-    private final Map<String, WebSession> sessionMap = new HashMap<>();
+    // Lookups are lock-free. Session info is updated outside of the registry locks.
+    private final Map<String, WebSession> sessionMap = new ConcurrentHashMap<>();
+    private final WebSessionExpiryIndex expiryIndex = new WebSessionExpiryIndex(CBApplication.getInstance().getMaxSessionIdleTime());
+    // Expired sessions are closed in background so expiry check never waits for session disposal
+    private final ExecutorService sessionCloseExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Web session closer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public WebSessionManager() {
     }
@@ -52,12 +64,10 @@ public class WebSessionManager {
     public boolean closeSession(@NotNull HttpServletRequest request) {
         HttpSession session = request.getSession();
         if (session != null) {
-            WebSession webSession;
-            synchronized (sessionMap) {
-                webSession = sessionMap.remove(session.getId());
-            }
+            WebSession webSession = sessionMap.remove(session.getId());
             if (webSession != null) {
                 log.debug("> Close session '" + session.getId() + "'");
+                expiryIndex.removeSession(webSession);
                 webSession.close();
                 return true;
             }
@@ -82,13 +92,17 @@ public class WebSessionManager {
     public WebSession getWebSession(HttpServletRequest request, boolean updateInfo, boolean errorOnNoFound) throws DBWebException {
         HttpSession httpSession = request.getSession(true);
         String sessionId = httpSession.getId();
-        WebSession webSession;
-        synchronized (sessionMap) {
-            webSession = sessionMap.get(sessionId);
-            if (webSession == null) {
-                webSession = new WebSession(httpSession);
-                sessionMap.put(sessionId, webSession);
-
+        WebSession webSession = sessionMap.get(sessionId);
+        if (webSession == null) {
+            // Session is created outside of the map lock: constructor reads persistent state and inits navigator model.
+            // If concurrent request registered its session first then ours is disposed.
+            WebSession createdSession = new WebSession(httpSession);
+            webSession = sessionMap.putIfAbsent(sessionId, createdSession);
+            if (webSession != null) {
+                createdSession.close();
+            } else {
+                webSession = createdSession;
+                expiryIndex.addSession(webSession);
                 if (!CBApplication.getInstance().isConfigurationMode()) {
                     if (!httpSession.isNew()) {
                         webSession.setCacheExpired(true);
@@ -99,14 +113,14 @@ public class WebSessionManager {
 
                     log.debug("> New web session '" + webSession.getSessionId() + "'");
                 }
-            } else {
-                if (updateInfo) {
-                    // Update only once per request
-                    if (!CommonUtils.toBoolean(request.getAttribute("sessionUpdated"))) {
-                        webSession.updateInfo(request);
-                        request.setAttribute("sessionUpdated", true);
-                    }
-                }
+                return webSession;
+            }
+        }
+        if (updateInfo) {
+            // Update only once per request
+            if (!CommonUtils.toBoolean(request.getAttribute("sessionUpdated"))) {
+                webSession.updateInfo(request);
+                request.setAttribute("sessionUpdated", true);
             }
         }
         return webSession;
@@ -114,8 +128,21 @@ public class WebSessionManager {
 
     public WebSession findWebSession(HttpServletRequest request) {
         String sessionId = request.getSession().getId();
-        synchronized (sessionMap) {
-            return sessionMap.get(sessionId);
+        return sessionMap.get(sessionId);
+    }
+
+    /**
+     * Drops finished async tasks and results whose retention time is over
+     */
+    public void expireAsyncTasks() {
+        for (WebSession session : sessionMap.values()) {
+            session.expireAsyncTasks();
+        }
+    }
+
+    public void closeIdleCursors() {
+        for (WebSession session : sessionMap.values()) {
+            WebSQLCursorRegistry.closeIdleCursors(session);
         }
     }
 
@@ -125,22 +152,22 @@ public class WebSessionManager {
             // In configuration mode sessions expire after a week
             maxSessionIdleTime = 60 * 60 * 1000 * 24 * 7;
         }
+        expiryIndex.setMaxIdleTime(maxSessionIdleTime, sessionMap.values());
 
-        List<WebSession> expiredList = new ArrayList<>();
-        synchronized (sessionMap) {
-            for (Iterator<WebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
-                WebSession session = iterator.next();
-                long idleMillis = System.currentTimeMillis() - session.getLastAccessTimeMillis();
-                if (idleMillis >= maxSessionIdleTime) {
-                    iterator.remove();
-                    expiredList.add(session);
-                }
-            }
-        }
-
+        List<WebSession> expiredList = expiryIndex.pollExpiredSessions(System.currentTimeMillis());
         for (WebSession session : expiredList) {
+            // Session may be already closed explicitly
+            if (!sessionMap.remove(session.getSessionId(), session)) {
+                continue;
+            }
             log.debug("> Expire session '" + session.getSessionId() + "'");
-            session.close();
+            sessionCloseExecutor.execute(() -> {
+                try {
+                    session.close();
+                } catch (Throwable e) {
+                    log.error("Error closing expired session '" + session.getSessionId() + "'", e);
+                }
+            });
         }
     }
 
@@ -94,8 +94,32 @@ public class CBApplication extends BaseApplicationImpl {
     private DBNBrowseSettings defaultNavigatorSettings = DataSourceNavigatorSettings.PRESET_FULL.getSettings();
 
     private long maxSessionIdleTime = CBConstants.MAX_SESSION_IDLE_TIME;
+    private long sqlCursorIdleTime = CBConstants.MAX_SQL_CURSOR_IDLE_TIME;
+    private int maxSQLCursorsPerSession = CBConstants.MAX_SQL_CURSORS_PER_SESSION;
+    private final Set<String> sqlCursorDrivers = new HashSet<>();
+    private long sessionActivityFlushPeriod = CBConstants.SESSION_ACTIVITY_FLUSH_PERIOD;
+    private boolean sharedConnectionPool = false;
+    private int sharedConnectionPoolMaxContexts = CBConstants.SHARED_CONNECTION_POOL_MAX_CONTEXTS;
+    private long sharedConnectionPoolIdlePeriod = CBConstants.SHARED_CONNECTION_POOL_IDLE_PERIOD;
+    private long sharedConnectionPoolMaxWait = CBConstants.SHARED_CONNECTION_POOL_MAX_WAIT;
+    private boolean metadataCache = false;
+    private long metadataCacheMaxSize = CBConstants.METADATA_CACHE_MAX_SIZE;
+    private long metadataSearchIndexMaxSize = CBConstants.METADATA_SEARCH_INDEX_MAX_SIZE;
+    private boolean sqlCompletionIndex = true;
+    private int sqlStatementCacheSize = CBConstants.SQL_STATEMENT_CACHE_SIZE;
+    private int asyncTasksMaxRunning = CBConstants.ASYNC_TASKS_MAX_RUNNING;
+    private int asyncTasksMaxRunningPerSession = CBConstants.ASYNC_TASKS_MAX_RUNNING_PER_SESSION;
+    private int asyncTasksMaxRunningPerConnection = CBConstants.ASYNC_TASKS_MAX_RUNNING_PER_CONNECTION;
+    private int asyncTasksMaxQueuedPerSession = CBConstants.ASYNC_TASKS_MAX_QUEUED_PER_SESSION;
+    private long asyncTasksResultsTTL = CBConstants.ASYNC_TASKS_RESULTS_TTL;
+    private long asyncTasksResultsMaxSizePerSession = CBConstants.ASYNC_TASKS_RESULTS_MAX_SIZE_PER_SESSION;
+    private int sessionLogMaxEntries = CBConstants.SESSION_LOG_MAX_ENTRIES;
+    private long sqlResultsMaxSize = CBConstants.SQL_RESULTS_MAX_SIZE;
+    private long sqlResultsMaxSizePerSession = CBConstants.SQL_RESULTS_MAX_SIZE_PER_SESSION;
+    private int graphqlBatchMaxThreads = CBConstants.GRAPHQL_BATCH_MAX_THREADS;
 
     private boolean develMode = false;
+    private boolean responseCompression = true;
     private boolean configurationMode = false;
     private String localHostAddress;
     private final List<InetAddress> localInetAddresses = new ArrayList<>();
@@ -135,6 +159,145 @@ public class CBApplication extends BaseApplicationImpl {
         return maxSessionIdleTime;
     }
 
+    public long getSQLCursorIdleTime() {
+        return sqlCursorIdleTime;
+    }
+
+    /**
+     * Max number of open SQL results cursors per session. Zero disables cursors.
+     */
+    public int getMaxSQLCursorsPerSession() {
+        return maxSQLCursorsPerSession;
+    }
+
+    /**
+     * Full IDs (provider:driver) of drivers which read result set rows from server by fetch size.
+     * Results cursors are kept open only for these drivers. Each open cursor uses its own connection.
+     */
+    public Set<String> getSQLCursorDrivers() {
+        return sqlCursorDrivers;
+    }
+
+    /**
+     * Period of session activity flush to database. Zero means that activity is written immediately.
+     */
+    public long getSessionActivityFlushPeriod() {
+        return sessionActivityFlushPeriod;
+    }
+
+    /**
+     * Session copies of global connections with the same driver, URL and credentials share physical connections.
+     */
+    public boolean isSharedConnectionPoolEnabled() {
+        return sharedConnectionPool;
+    }
+
+    public int getSharedConnectionPoolMaxContexts() {
+        return sharedConnectionPoolMaxContexts;
+    }
+
+    public long getSharedConnectionPoolIdlePeriod() {
+        return sharedConnectionPoolIdlePeriod;
+    }
+
+    public long getSharedConnectionPoolMaxWait() {
+        return sharedConnectionPoolMaxWait;
+    }
+
+    /**
+     * Navigator and completion metadata is shared between connections to the same database with the same credentials.
+     */
+    public boolean isMetadataCacheEnabled() {
+        return metadataCache;
+    }
+
+    public long getMetadataCacheMaxSize() {
+        return metadataCacheMaxSize;
+    }
+
+    /**
+     * Search indexes are stored in metadata cache with their own size limit.
+     */
+    public long getMetadataSearchIndexMaxSize() {
+        return metadataSearchIndexMaxSize;
+    }
+
+    /**
+     * SQL completion proposals are looked up in per-connection index of names loaded in background.
+     */
+    public boolean isSQLCompletionIndexEnabled() {
+        return sqlCompletionIndex;
+    }
+
+    /**
+     * Max number of prepared statements of queries with parameters kept open for reuse in each SQL context.
+     * Zero disables statements reuse.
+     */
+    public int getSQLStatementCacheSize() {
+        return sqlStatementCacheSize;
+    }
+
+    /**
+     * Max number of async tasks running at the same time in all sessions. Other tasks wait in session queues.
+     */
+    public int getAsyncTasksMaxRunning() {
+        return asyncTasksMaxRunning;
+    }
+
+    public int getAsyncTasksMaxRunningPerSession() {
+        return asyncTasksMaxRunningPerSession;
+    }
+
+    public int getAsyncTasksMaxRunningPerConnection() {
+        return asyncTasksMaxRunningPerConnection;
+    }
+
+    /**
+     * Max number of async tasks waiting in one session queue. New tasks over this limit are rejected.
+     */
+    public int getAsyncTasksMaxQueuedPerSession() {
+        return asyncTasksMaxQueuedPerSession;
+    }
+
+    /**
+     * Time finished async tasks and their results are kept in session after finish.
+     */
+    public long getAsyncTasksResultsTTL() {
+        return asyncTasksResultsTTL;
+    }
+
+    /**
+     * Max estimated size of finished async task results in one session. Results of the oldest tasks are evicted first.
+     */
+    public long getAsyncTasksResultsMaxSizePerSession() {
+        return asyncTasksResultsMaxSizePerSession;
+    }
+
+    /**
+     * Capacity of session progress log. The oldest messages are overwritten when log is full.
+     */
+    public int getSessionLogMaxEntries() {
+        return sessionLogMaxEntries;
+    }
+
+    /**
+     * Max estimated size of saved SQL results info in all sessions. The least recently used results are closed first.
+     */
+    public long getSQLResultsMaxSize() {
+        return sqlResultsMaxSize;
+    }
+
+    public long getSQLResultsMaxSizePerSession() {
+        return sqlResultsMaxSizePerSession;
+    }
+
+    /**
+     * Max number of threads executing queries of batched GraphQL requests (shared by all sessions)
+     */
+    public int getGraphQLBatchMaxThreads() {
+        return graphqlBatchMaxThreads;
+    }
+
     public CBDatabaseConfig getDatabaseConfiguration() {
         return databaseConfiguration;
     }
@@ -266,6 +429,12 @@ public class CBApplication extends BaseApplicationImpl {
         }
 
         Thread shutdownThread = new Thread(() -> {
+            try {
+                // Flush pending session activity while database is still available
+                securityController.shutdown();
+            } catch (Exception e) {
+                log.error(e);
+            }
             try {
                 database.shutdown();
             } catch (Exception e) {
@@ -343,6 +512,7 @@ public class CBApplication extends BaseApplicationImpl {
         database.initialize();
 
         securityController.initializeMetaInformation();
+        securityController.startSessionActivityWriter(sessionActivityFlushPeriod);
     }
 
     private void loadConfiguration(String configPath) {
@@ -397,8 +567,37 @@ public class CBApplication extends BaseApplicationImpl {
                 JSONUtils.getString(serverConfig, CBConstants.PARAM_WORKSPACE_LOCATION, workspaceLocation), homeFolder);
 
             maxSessionIdleTime = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SESSION_EXPIRE_PERIOD, maxSessionIdleTime);
+            sqlCursorIdleTime = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SQL_CURSOR_EXPIRE_PERIOD, sqlCursorIdleTime);
+            maxSQLCursorsPerSession = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_SQL_MAX_CURSORS_PER_SESSION, maxSQLCursorsPerSession);
+            Object cursorDrivers = serverConfig.get(CBConstants.PARAM_SQL_CURSOR_DRIVERS);
+            if (cursorDrivers instanceof Collection) {
+                for (Object driverId : (Collection<?>) cursorDrivers) {
+                    sqlCursorDrivers.add(CommonUtils.toString(driverId));
+                }
+            }
+            sessionActivityFlushPeriod = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SESSION_ACTIVITY_FLUSH_PERIOD, sessionActivityFlushPeriod);
+            sharedConnectionPool = JSONUtils.getBoolean(serverConfig, CBConstants.PARAM_SHARED_CONNECTION_POOL, sharedConnectionPool);
+            sharedConnectionPoolMaxContexts = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_SHARED_CONNECTION_POOL_MAX_CONTEXTS, sharedConnectionPoolMaxContexts);
+            sharedConnectionPoolIdlePeriod = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SHARED_CONNECTION_POOL_IDLE_PERIOD, sharedConnectionPoolIdlePeriod);
+            sharedConnectionPoolMaxWait = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SHARED_CONNECTION_POOL_MAX_WAIT, sharedConnectionPoolMaxWait);
+            metadataCache = JSONUtils.getBoolean(serverConfig, CBConstants.PARAM_METADATA_CACHE, metadataCache);
+            metadataCacheMaxSize = JSONUtils.getLong(serverConfig, CBConstants.PARAM_METADATA_CACHE_MAX_SIZE, metadataCacheMaxSize);
+            metadataSearchIndexMaxSize = JSONUtils.getLong(serverConfig, CBConstants.PARAM_METADATA_SEARCH_INDEX_MAX_SIZE, metadataSearchIndexMaxSize);
+            sqlCompletionIndex = JSONUtils.getBoolean(serverConfig, CBConstants.PARAM_SQL_COMPLETION_INDEX, sqlCompletionIndex);
+            sqlStatementCacheSize = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_SQL_STATEMENT_CACHE_SIZE, sqlStatementCacheSize);
+            asyncTasksMaxRunning = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_ASYNC_TASKS_MAX_RUNNING, asyncTasksMaxRunning);
+            asyncTasksMaxRunningPerSession = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_ASYNC_TASKS_MAX_RUNNING_PER_SESSION, asyncTasksMaxRunningPerSession);
+            asyncTasksMaxRunningPerConnection = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_ASYNC_TASKS_MAX_RUNNING_PER_CONNECTION, asyncTasksMaxRunningPerConnection);
+            asyncTasksMaxQueuedPerSession = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_ASYNC_TASKS_MAX_QUEUED_PER_SESSION, asyncTasksMaxQueuedPerSession);
+            asyncTasksResultsTTL = JSONUtils.getLong(serverConfig, CBConstants.PARAM_ASYNC_TASKS_RESULTS_TTL, asyncTasksResultsTTL);
+            asyncTasksResultsMaxSizePerSession = JSONUtils.getLong(serverConfig, CBConstants.PARAM_ASYNC_TASKS_RESULTS_MAX_SIZE_PER_SESSION, asyncTasksResultsMaxSizePerSession);
+            sessionLogMaxEntries = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_SESSION_LOG_MAX_ENTRIES, sessionLogMaxEntries);
+            sqlResultsMaxSize = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SQL_RESULTS_MAX_SIZE, sqlResultsMaxSize);
+            sqlResultsMaxSizePerSession = JSONUtils.getLong(serverConfig, CBConstants.PARAM_SQL_RESULTS_MAX_SIZE_PER_SESSION, sqlResultsMaxSizePerSession);
+            graphqlBatchMaxThreads = JSONUtils.getInteger(serverConfig, CBConstants.PARAM_GRAPHQL_BATCH_MAX_THREADS, graphqlBatchMaxThreads);
 
             develMode = JSONUtils.getBoolean(serverConfig, CBConstants.PARAM_DEVEL_MODE, develMode);
+            responseCompression = JSONUtils.getBoolean(serverConfig, CBConstants.PARAM_RESPONSE_COMPRESSION, responseCompression);
 
             gson.fromJson(
                 gson.toJsonTree(JSONUtils.getObject(configProps, "app")), CBAppConfig.class);
@@ -463,6 +662,10 @@ public class CBApplication extends BaseApplicationImpl {
         return "GlobalConfiguration";
     }
 
+    public boolean isResponseCompressionEnabled() {
+        return responseCompression;
+    }
+
     public boolean isDevelMode() {
         return develMode;
     }
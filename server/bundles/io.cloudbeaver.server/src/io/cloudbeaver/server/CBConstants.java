@@ -18,15 +18,16 @@ package io.cloudbeaver.server;
 
 import org.jkiss.dbeaver.model.DBConstants;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 /**
  * Various constants
  */
 public class CBConstants {
 
-    public static final DateFormat ISO_DATE_FORMAT = new SimpleDateFormat(DBConstants.DEFAULT_ISO_TIMESTAMP_FORMAT);
+    // Immutable and thread-safe
+    public static final DateTimeFormatter ISO_DATE_FORMAT = DateTimeFormatter.ofPattern(DBConstants.DEFAULT_ISO_TIMESTAMP_FORMAT).withZone(ZoneId.systemDefault());
 
     public static final String DEFAULT_CONFIG_FILE_PATH = "/etc/cloudbeaver.conf";
     public static final String RUNTIME_DATA_DIR_NAME = ".data";
@@ -44,8 +45,32 @@ public class CBConstants {
     public static final String PARAM_PRODUCT_CONFIGURATION = "productConfiguration";
 
     public static final String PARAM_SESSION_EXPIRE_PERIOD = "expireSessionAfterPeriod";
+    public static final String PARAM_SQL_CURSOR_EXPIRE_PERIOD = "expireSQLCursorAfterPeriod";
+    public static final String PARAM_SQL_MAX_CURSORS_PER_SESSION = "maxSQLCursorsPerSession";
+    public static final String PARAM_SQL_CURSOR_DRIVERS = "sqlCursorDrivers";
+    public static final String PARAM_SESSION_ACTIVITY_FLUSH_PERIOD = "sessionActivityFlushPeriod";
+    public static final String PARAM_SHARED_CONNECTION_POOL = "enableSharedConnectionPool";
+    public static final String PARAM_SHARED_CONNECTION_POOL_MAX_CONTEXTS = "sharedConnectionPoolMaxContexts";
+    public static final String PARAM_SHARED_CONNECTION_POOL_IDLE_PERIOD = "sharedConnectionPoolIdlePeriod";
+    public static final String PARAM_SHARED_CONNECTION_POOL_MAX_WAIT = "sharedConnectionPoolMaxWait";
+    public static final String PARAM_METADATA_CACHE = "enableMetadataCache";
+    public static final String PARAM_METADATA_CACHE_MAX_SIZE = "metadataCacheMaxSize";
+    public static final String PARAM_METADATA_SEARCH_INDEX_MAX_SIZE = "metadataSearchIndexMaxSize";
+    public static final String PARAM_SQL_COMPLETION_INDEX = "enableSQLCompletionIndex";
+    public static final String PARAM_SQL_STATEMENT_CACHE_SIZE = "sqlStatementCacheSize";
+    public static final String PARAM_ASYNC_TASKS_MAX_RUNNING = "asyncTasksMaxRunning";
+    public static final String PARAM_ASYNC_TASKS_MAX_RUNNING_PER_SESSION = "asyncTasksMaxRunningPerSession";
+    public static final String PARAM_ASYNC_TASKS_MAX_RUNNING_PER_CONNECTION = "asyncTasksMaxRunningPerConnection";
+    public static final String PARAM_ASYNC_TASKS_MAX_QUEUED_PER_SESSION = "asyncTasksMaxQueuedPerSession";
+    public static final String PARAM_ASYNC_TASKS_RESULTS_TTL = "asyncTasksResultsTTL";
+    public static final String PARAM_ASYNC_TASKS_RESULTS_MAX_SIZE_PER_SESSION = "asyncTasksResultsMaxSizePerSession";
+    public static final String PARAM_SESSION_LOG_MAX_ENTRIES = "sessionLogMaxEntries";
+    public static final String PARAM_SQL_RESULTS_MAX_SIZE = "sqlResultsMaxSize";
+    public static final String PARAM_SQL_RESULTS_MAX_SIZE_PER_SESSION = "sqlResultsMaxSizePerSession";
+    public static final String PARAM_GRAPHQL_BATCH_MAX_THREADS = "graphqlBatchMaxThreads";
 
     public static final String PARAM_DEVEL_MODE = "develMode";
+    public static final String PARAM_RESPONSE_COMPRESSION = "enableResponseCompression";
 
     public static final int DEFAULT_SERVER_PORT = 8080;
     //public static final String DEFAULT_SERVER_NAME = "CloudBeaver Web Server";
@@ -60,6 +85,39 @@ public class CBConstants {
 
     // Default max idle time (10 minutes)
     public static final long MAX_SESSION_IDLE_TIME = 10 * 60 * 1000;
+    // Default max idle time of open SQL results cursor (5 minutes)
+    public static final long MAX_SQL_CURSOR_IDLE_TIME = 5 * 60 * 1000;
+    public static final int MAX_SQL_CURSORS_PER_SESSION = 5;
+    // Default period of session activity flush to database (5 seconds)
+    public static final long SESSION_ACTIVITY_FLUSH_PERIOD = 5 * 1000;
+    public static final int SHARED_CONNECTION_POOL_MAX_CONTEXTS = 10;
+    // Default idle time of shared connection pool contexts (5 minutes)
+    public static final long SHARED_CONNECTION_POOL_IDLE_PERIOD = 5 * 60 * 1000;
+    // Default max wait time for shared connection (30 seconds)
+    public static final long SHARED_CONNECTION_POOL_MAX_WAIT = 30 * 1000;
+    // Default max estimated size of shared metadata cache (64Mb)
+    public static final long METADATA_CACHE_MAX_SIZE = 64 * 1024 * 1024;
+    // Default max estimated size of shared metadata search indexes (128Mb)
+    public static final long METADATA_SEARCH_INDEX_MAX_SIZE = 128 * 1024 * 1024;
+    // Default max number of prepared statements of queries with parameters kept open per SQL context
+    public static final int SQL_STATEMENT_CACHE_SIZE = 20;
+    // Default limits of concurrently running async tasks (query execution, data export)
+    public static final int ASYNC_TASKS_MAX_RUNNING = 20;
+    public static final int ASYNC_TASKS_MAX_RUNNING_PER_SESSION = 4;
+    public static final int ASYNC_TASKS_MAX_RUNNING_PER_CONNECTION = 2;
+    // Default max number of async tasks waiting for start in one session
+    public static final int ASYNC_TASKS_MAX_QUEUED_PER_SESSION = 50;
+    // Default time finished async tasks are kept in session (10 minutes)
+    public static final long ASYNC_TASKS_RESULTS_TTL = 10 * 60 * 1000;
+    // Default max estimated size of finished async task results kept in one session (64Mb)
+    public static final long ASYNC_TASKS_RESULTS_MAX_SIZE_PER_SESSION = 64 * 1024 * 1024;
+    // Default number of progress messages kept in session log
+    public static final int SESSION_LOG_MAX_ENTRIES = 1024;
+    // Default max estimated size of saved SQL results info in all sessions (256Mb) and in one session (16Mb)
+    public static final long SQL_RESULTS_MAX_SIZE = 256 * 1024 * 1024;
+    public static final long SQL_RESULTS_MAX_SIZE_PER_SESSION = 16 * 1024 * 1024;
+    // Default number of threads executing queries of batched GraphQL requests
+    public static final int GRAPHQL_BATCH_MAX_THREADS = 32;
 
     public static final String ENV_CB_HOME = "CLOUDBEAVER_HOME";
 
@@ -17,8 +17,12 @@
 
 package io.cloudbeaver.server;
 
+import io.cloudbeaver.model.WebMetadataCache;
+import io.cloudbeaver.model.WebSharedDataSourcePool;
+import io.cloudbeaver.model.session.WebAsyncTaskScheduler;
 import io.cloudbeaver.model.session.WebSessionManager;
 import io.cloudbeaver.registry.WebDriverRegistry;
+import io.cloudbeaver.service.sql.WebSQLResultsGovernor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Platform;
 import org.jkiss.code.NotNull;
@@ -79,6 +83,10 @@ public class CBPlatform extends BasePlatformImpl {
     private CBWorkspace workspace;
 
     private WebSessionManager sessionManager;
+    private WebSharedDataSourcePool sharedDataSourcePool;
+    private WebMetadataCache metadataCache;
+    private WebAsyncTaskScheduler asyncTaskScheduler;
+    private WebSQLResultsGovernor sqlResultsGovernor;
     private final List<DBPDriver> applicableDrivers = new ArrayList<>();
 
     public static CBPlatform getInstance() {
@@ -174,6 +182,24 @@ public class CBPlatform extends BasePlatformImpl {
         log.info("Available drivers: " + applicableDrivers.stream().map(DBPDriver::getFullName).collect(Collectors.joining(",")));
 
         sessionManager = WebSessionManager.getInstance();
+        if (application.isSharedConnectionPoolEnabled()) {
+            sharedDataSourcePool = new WebSharedDataSourcePool(
+                application.getSharedConnectionPoolMaxContexts(),
+                application.getSharedConnectionPoolIdlePeriod(),
+                application.getSharedConnectionPoolMaxWait());
+        }
+        if (application.isMetadataCacheEnabled()) {
+            metadataCache = new WebMetadataCache(application.getMetadataCacheMaxSize());
+            metadataCache.setCategoryMaxSize(WebMetadataCache.CATEGORY_SEARCH, application.getMetadataSearchIndexMaxSize());
+        }
+        asyncTaskScheduler = new WebAsyncTaskScheduler(
+            application.getAsyncTasksMaxRunning(),
+            application.getAsyncTasksMaxRunningPerSession(),
+            application.getAsyncTasksMaxRunningPerConnection(),
+            application.getAsyncTasksMaxQueuedPerSession());
+        sqlResultsGovernor = new WebSQLResultsGovernor(
+            application.getSQLResultsMaxSizePerSession(),
+            application.getSQLResultsMaxSize());
 
         new WebSessionMonitorJob(this).scheduleMonitor();
 
@@ -186,6 +212,22 @@ public class CBPlatform extends BasePlatformImpl {
 
         super.dispose();
 
+        if (this.sharedDataSourcePool != null) {
+            this.sharedDataSourcePool.dispose();
+            this.sharedDataSourcePool = null;
+        }
+        if (this.metadataCache != null) {
+            this.metadataCache.dispose();
+            this.metadataCache = null;
+        }
+        if (this.asyncTaskScheduler != null) {
+            this.asyncTaskScheduler.dispose();
+            this.asyncTaskScheduler = null;
+        }
+        if (this.sqlResultsGovernor != null) {
+            this.sqlResultsGovernor.dispose();
+            this.sqlResultsGovernor = null;
+        }
         if (this.qmLogWriter != null) {
             this.queryManager.unregisterMetaListener(qmLogWriter);
             this.qmLogWriter.dispose();
@@ -311,4 +353,32 @@ public class CBPlatform extends BasePlatformImpl {
         return sessionManager;
     }
 
+    /**
+     * Returns pool of data sources shared between sessions or null if shared connection pool is disabled.
+     */
+    @Nullable
+    public WebSharedDataSourcePool getSharedDataSourcePool() {
+        return sharedDataSourcePool;
+    }
+
+    /**
+     * Returns metadata cache shared between sessions or null if metadata cache is disabled.
+     */
+    @Nullable
+    public WebMetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public WebAsyncTaskScheduler getAsyncTaskScheduler() {
+        return asyncTaskScheduler;
+    }
+
+    /**
+     * Returns governor of memory retained by SQL results of all sessions or null if platform is not initialized.
+     */
+    @Nullable
+    public WebSQLResultsGovernor getSQLResultsGovernor() {
+        return sqlResultsGovernor;
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server;
+
+import io.cloudbeaver.DBWConnectionGrant;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cache of security model: subject permissions, user role memberships and subject connection grants.
+ * <p>
+ * Cache is versioned. Reader takes the version before reading from database and puts result in cache only
+ * if no invalidation happened meanwhile, so concurrent modification never leaves stale data in cache.
+ */
+class CBSecurityCache {
+
+    private final Map<String, Set<String>> subjectPermissions = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> userRoles = new ConcurrentHashMap<>();
+    private final Map<String, List<DBWConnectionGrant>> subjectGrants = new ConcurrentHashMap<>();
+    private long version;
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    @Nullable
+    Set<String> getSubjectPermissions(@NotNull String subjectId) {
+        return subjectPermissions.get(subjectId);
+    }
+
+    synchronized void putSubjectPermissions(long readVersion, @NotNull String subjectId, @NotNull Set<String> permissions) {
+        if (readVersion == version) {
+            subjectPermissions.put(subjectId, permissions);
+        }
+    }
+
+    @Nullable
+    List<String> getUserRoles(@NotNull String userId) {
+        return userRoles.get(userId);
+    }
+
+    synchronized void putUserRoles(long readVersion, @NotNull String userId, @NotNull List<String> roleIds) {
+        if (readVersion == version) {
+            userRoles.put(userId, roleIds);
+        }
+    }
+
+    @Nullable
+    List<DBWConnectionGrant> getSubjectGrants(@NotNull String subjectId) {
+        return subjectGrants.get(subjectId);
+    }
+
+    synchronized void putSubjectGrants(long readVersion, @NotNull String subjectId, @NotNull List<DBWConnectionGrant> grants) {
+        if (readVersion == version) {
+            subjectGrants.put(subjectId, grants);
+        }
+    }
+
+    synchronized void invalidateSubjectPermissions(@NotNull String subjectId) {
+        version++;
+        subjectPermissions.remove(subjectId);
+    }
+
+    synchronized void invalidateUserRoles(@NotNull String userId) {
+        version++;
+        userRoles.remove(userId);
+    }
+
+    synchronized void invalidateSubjectGrants(@NotNull String subjectId) {
+        version++;
+        subjectGrants.remove(subjectId);
+    }
+
+    synchronized void invalidateAllGrants() {
+        version++;
+        subjectGrants.clear();
+    }
+
+    synchronized void invalidateAll() {
+        version++;
+        subjectPermissions.clear();
+        userRoles.clear();
+        subjectGrants.clear();
+    }
+
+}
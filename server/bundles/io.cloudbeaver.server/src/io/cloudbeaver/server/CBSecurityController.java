@@ -53,11 +53,34 @@ class CBSecurityController implements DBWSecurityController {
     private static final String SUBJECT_ROLE = "R";
 
     private final CBDatabase database;
+    private final CBSecurityCache cache = new CBSecurityCache();
+    // Null if session activity is written synchronously
+    private CBSessionActivityWriter activityWriter;
 
     CBSecurityController(CBDatabase database) {
         this.database = database;
     }
 
+    /**
+     * Enables write-behind of session activity. Updates are flushed in batch once per flush interval.
+     */
+    void startSessionActivityWriter(long flushInterval) {
+        if (flushInterval > 0 && activityWriter == null) {
+            activityWriter = new CBSessionActivityWriter(database, flushInterval);
+            activityWriter.scheduleFlush();
+        }
+    }
+
+    /**
+     * Flushes pending session activity. Must be called before database shutdown.
+     */
+    void shutdown() {
+        if (activityWriter != null) {
+            activityWriter.shutdown();
+            activityWriter = null;
+        }
+    }
+
     private boolean isSubjectExists(String subjectId) throws DBCException {
         try (Connection dbCon = database.openConnection()) {
             try (PreparedStatement dbStat = dbCon.prepareStatement("SELECT 1 FROM CB_AUTH_SUBJECT WHERE SUBJECT_ID=?")) {
@@ -101,6 +124,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateAll();
         } catch (SQLException e) {
             throw new DBCException("Error saving user in database", e);
         }
@@ -114,6 +138,7 @@ class CBSecurityController implements DBWSecurityController {
                 JDBCUtils.executeStatement(dbCon, "DELETE FROM CB_USER WHERE USER_ID=?", userId);
                 txn.commit();
             }
+            cache.invalidateAll();
         } catch (SQLException e) {
             throw new DBCException("Error deleting user from database", e);
         }
@@ -137,6 +162,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateUserRoles(userId);
         } catch (SQLException e) {
             throw new DBCException("Error saving user roles in database", e);
         }
@@ -435,6 +461,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateAll();
         } catch (SQLException e) {
             throw new DBCException("Error saving role in database", e);
         }
@@ -448,6 +475,7 @@ class CBSecurityController implements DBWSecurityController {
                 JDBCUtils.executeStatement(dbCon, "DELETE FROM CB_ROLE WHERE ROLE_ID=?", roleId);
                 txn.commit();
             }
+            cache.invalidateAll();
         } catch (SQLException e) {
             throw new DBCException("Error deleting role from database", e);
         }
@@ -474,6 +502,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateSubjectPermissions(subjectId);
         } catch (SQLException e) {
             throw new DBCException("Error saving role permissions in database", e);
         }
@@ -482,50 +511,65 @@ class CBSecurityController implements DBWSecurityController {
     @NotNull
     @Override
     public Set<String> getSubjectPermissions(String subjectId) throws DBCException {
-        try (Connection dbCon = database.openConnection()) {
-            Set<String> permissions = new HashSet<>();
-            try (PreparedStatement dbStat = dbCon.prepareStatement("SELECT PERMISSION_ID FROM CB_AUTH_PERMISSIONS WHERE SUBJECT_ID=?")) {
-                dbStat.setString(1, subjectId);
-                try (ResultSet dbResult = dbStat.executeQuery()) {
-                    while (dbResult.next()) {
-                        permissions.add(dbResult.getString(1));
-                    }
-                }
+        Set<String> permissions = cache.getSubjectPermissions(subjectId);
+        if (permissions == null) {
+            long cacheVersion = cache.getVersion();
+            try (Connection dbCon = database.openConnection()) {
+                permissions = readSubjectPermissions(dbCon, subjectId);
+            } catch (SQLException e) {
+                throw new DBCException("Error reading subject permissions", e);
             }
-            return permissions;
-        } catch (SQLException e) {
-            throw new DBCException("Error saving role in database", e);
+            cache.putSubjectPermissions(cacheVersion, subjectId, permissions);
         }
+        return new HashSet<>(permissions);
     }
 
     @NotNull
     @Override
     public Set<String> getUserPermissions(String userId) throws DBCException {
-        try (Connection dbCon = database.openConnection()) {
-            Set<String> permissions = new HashSet<>();
-            try (PreparedStatement dbStat = dbCon.prepareStatement(
-                "SELECT DISTINCT AP.PERMISSION_ID FROM CB_AUTH_PERMISSIONS AP,CB_USER_ROLE UR\n" +
-                    "WHERE UR.ROLE_ID=AP.SUBJECT_ID AND UR.USER_ID=?")) {
-                dbStat.setString(1, userId);
-                try (ResultSet dbResult = dbStat.executeQuery()) {
-                    while (dbResult.next()) {
-                        permissions.add(dbResult.getString(1));
-                    }
+        // Effective permissions are user's own permissions plus permissions of all user roles
+        Set<String> permissions = getSubjectPermissions(userId);
+        for (String roleId : getUserRoleIds(userId)) {
+            permissions.addAll(getSubjectPermissions(roleId));
+        }
+        return permissions;
+    }
+
+    private Set<String> readSubjectPermissions(Connection dbCon, String subjectId) throws SQLException {
+        Set<String> permissions = new HashSet<>();
+        try (PreparedStatement dbStat = dbCon.prepareStatement("SELECT PERMISSION_ID FROM CB_AUTH_PERMISSIONS WHERE SUBJECT_ID=?")) {
+            dbStat.setString(1, subjectId);
+            try (ResultSet dbResult = dbStat.executeQuery()) {
+                while (dbResult.next()) {
+                    permissions.add(dbResult.getString(1));
                 }
             }
-            try (PreparedStatement dbStat = dbCon.prepareStatement("SELECT PERMISSION_ID FROM CB_AUTH_PERMISSIONS WHERE SUBJECT_ID=?")) {
-                dbStat.setString(1, userId);
-                try (ResultSet dbResult = dbStat.executeQuery()) {
-                    while (dbResult.next()) {
-                        permissions.add(dbResult.getString(1));
+        }
+        return permissions;
+    }
+
+    @NotNull
+    private List<String> getUserRoleIds(String userId) throws DBCException {
+        List<String> roleIds = cache.getUserRoles(userId);
+        if (roleIds == null) {
+            long cacheVersion = cache.getVersion();
+            roleIds = new ArrayList<>();
+            try (Connection dbCon = database.openConnection()) {
+                try (PreparedStatement dbStat = dbCon.prepareStatement("SELECT ROLE_ID FROM CB_USER_ROLE WHERE USER_ID=?")) {
+                    dbStat.setString(1, userId);
+                    try (ResultSet dbResult = dbStat.executeQuery()) {
+                        while (dbResult.next()) {
+                            roleIds.add(dbResult.getString(1));
+                        }
                     }
                 }
+            } catch (SQLException e) {
+                throw new DBCException("Error reading user roles", e);
             }
-            permissions.addAll(getSubjectPermissions(userId));
-            return permissions;
-        } catch (SQLException e) {
-            throw new DBCException("Error reading user permissions", e);
+            roleIds = Collections.unmodifiableList(roleIds);
+            cache.putUserRoles(cacheVersion, userId, roleIds);
         }
+        return roleIds;
     }
 
     ///////////////////////////////////////////
@@ -583,6 +627,11 @@ class CBSecurityController implements DBWSecurityController {
 
     @Override
     public void updateSession(WebSession session) throws DBCException {
+        CBSessionActivityWriter writer = activityWriter;
+        if (writer != null) {
+            writer.addSessionActivity(session);
+            return;
+        }
         try (Connection dbCon = database.openConnection()) {
             try (PreparedStatement dbStat = dbCon.prepareStatement(
                 "UPDATE CB_SESSION SET USER_ID=?,LAST_ACCESS_TIME=?,LAST_ACCESS_REMOTE_ADDRESS=?,LAST_ACCESS_USER_AGENT=? WHERE SESSION_ID=?")) {
@@ -623,48 +672,57 @@ class CBSecurityController implements DBWSecurityController {
         if (subjectIds.length == 0) {
             return new DBWConnectionGrant[0];
         }
-        List<String> allSubjects = new ArrayList<>();
-        Collections.addAll(allSubjects, subjectIds);
-
-        try (Connection dbCon = database.openConnection()) {
-            {
-                StringBuilder sql = new StringBuilder("SELECT ROLE_ID FROM CB_USER_ROLE WHERE USER_ID IN (");
-                appendStringParameters(sql, subjectIds);
-                sql.append(")");
-
-                try (Statement dbStat = dbCon.createStatement()) {
-                    try (ResultSet dbResult = dbStat.executeQuery(sql.toString())) {
-                        while (dbResult.next()) {
-                            allSubjects.add(dbResult.getString(1));
-                        }
-                    }
-                }
+        // Subjects themselves plus roles of users
+        Set<String> allSubjects = new LinkedHashSet<>();
+        for (String subjectId : subjectIds) {
+            allSubjects.add(subjectId);
+            allSubjects.addAll(getUserRoleIds(subjectId));
+        }
+
+        List<DBWConnectionGrant> result = new ArrayList<>();
+        List<String> missingSubjects = new ArrayList<>();
+        for (String subjectId : allSubjects) {
+            List<DBWConnectionGrant> grants = cache.getSubjectGrants(subjectId);
+            if (grants == null) {
+                missingSubjects.add(subjectId);
+            } else {
+                result.addAll(grants);
             }
-            {
-                StringBuilder sql = new StringBuilder("SELECT DA.DATASOURCE_ID,DA.SUBJECT_ID,S.SUBJECT_TYPE FROM CB_DATASOURCE_ACCESS DA,\n" +
-                    "CB_AUTH_SUBJECT S\nWHERE S.SUBJECT_ID = DA.SUBJECT_ID AND DA.SUBJECT_ID IN (");
-                appendStringParameters(sql, allSubjects.toArray(new String[0]));
-                sql.append(")");
-
-                if (allSubjects.isEmpty()) {
-                    return new DBWConnectionGrant[0];
-                }
+        }
+        if (!missingSubjects.isEmpty()) {
+            long cacheVersion = cache.getVersion();
+            Map<String, List<DBWConnectionGrant>> loadedGrants = new HashMap<>();
+            for (String subjectId : missingSubjects) {
+                loadedGrants.put(subjectId, new ArrayList<>());
+            }
+            StringBuilder sql = new StringBuilder("SELECT DA.DATASOURCE_ID,DA.SUBJECT_ID,S.SUBJECT_TYPE FROM CB_DATASOURCE_ACCESS DA,\n" +
+                "CB_AUTH_SUBJECT S\nWHERE S.SUBJECT_ID = DA.SUBJECT_ID AND DA.SUBJECT_ID IN (");
+            appendStringParameters(sql, missingSubjects.toArray(new String[0]));
+            sql.append(")");
+            try (Connection dbCon = database.openConnection()) {
                 try (Statement dbStat = dbCon.createStatement()) {
-                    List<DBWConnectionGrant> result = new ArrayList<>();
                     try (ResultSet dbResult = dbStat.executeQuery(sql.toString())) {
                         while (dbResult.next()) {
-                            result.add(new DBWConnectionGrant(
+                            DBWConnectionGrant grant = new DBWConnectionGrant(
                                 dbResult.getString(1),
                                 dbResult.getString(2),
-                                DBWSecuritySubjectType.fromCode(dbResult.getString(3))));
+                                DBWSecuritySubjectType.fromCode(dbResult.getString(3)));
+                            List<DBWConnectionGrant> grants = loadedGrants.get(grant.getSubjectId());
+                            if (grants != null) {
+                                grants.add(grant);
+                            }
                         }
                     }
-                    return result.toArray(new DBWConnectionGrant[0]);
                 }
+            } catch (SQLException e) {
+                throw new DBCException("Error reading datasource access", e);
+            }
+            for (Map.Entry<String, List<DBWConnectionGrant>> entry : loadedGrants.entrySet()) {
+                result.addAll(entry.getValue());
+                cache.putSubjectGrants(cacheVersion, entry.getKey(), Collections.unmodifiableList(entry.getValue()));
             }
-        } catch (SQLException e) {
-            throw new DBCException("Error reading datasource access", e);
         }
+        return result.toArray(new DBWConnectionGrant[0]);
     }
 
     @Override
@@ -687,6 +745,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateSubjectGrants(subjectId);
         } catch (SQLException e) {
             throw new DBCException("Error granting datasource access", e);
         }
@@ -740,6 +799,7 @@ class CBSecurityController implements DBWSecurityController {
                 }
                 txn.commit();
             }
+            cache.invalidateAllGrants();
         } catch (SQLException e) {
             throw new DBCException("Error granting datasource access", e);
         }
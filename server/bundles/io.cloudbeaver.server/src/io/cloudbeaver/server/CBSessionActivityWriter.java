@@ -0,0 +1,164 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server;
+
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.user.WebUser;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.impl.jdbc.exec.JDBCTransaction;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer of web session activity.
+ * Session touches are coalesced in memory (only the last one per session is kept)
+ * and flushed to CB_SESSION in a single JDBC batch periodically and on shutdown.
+ */
+class CBSessionActivityWriter extends AbstractJob {
+
+    private static final Log log = Log.getLog(CBSessionActivityWriter.class);
+
+    private final CBDatabase database;
+    private final long flushInterval;
+    private final Map<String, SessionActivity> pendingActivities = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private volatile boolean stopped;
+
+    private static class SessionActivity {
+        final String sessionId;
+        final String userId;
+        final long accessTime;
+        final String remoteAddr;
+        final String userAgent;
+
+        SessionActivity(WebSession session) {
+            this.sessionId = session.getSessionId();
+            WebUser user = session.getUser();
+            this.userId = user == null ? null : user.getUserId();
+            this.accessTime = System.currentTimeMillis();
+            this.remoteAddr = session.getLastRemoteAddr();
+            this.userAgent = session.getLastRemoteUserAgent();
+        }
+    }
+
+    CBSessionActivityWriter(CBDatabase database, long flushInterval) {
+        super("Web session activity writer");
+        setUser(false);
+        setSystem(true);
+        this.database = database;
+        this.flushInterval = flushInterval;
+    }
+
+    void addSessionActivity(@NotNull WebSession session) {
+        pendingActivities.put(session.getSessionId(), new SessionActivity(session));
+    }
+
+    void scheduleFlush() {
+        if (!stopped) {
+            schedule(flushInterval);
+        }
+    }
+
+    /**
+     * Flushes pending activities and stops periodic flush.
+     */
+    void shutdown() {
+        stopped = true;
+        cancel();
+        try {
+            flush();
+        } catch (DBCException e) {
+            log.error(e);
+        }
+    }
+
+    @Override
+    protected IStatus run(DBRProgressMonitor monitor) {
+        try {
+            flush();
+        } catch (DBCException e) {
+            log.error(e);
+        }
+        scheduleFlush();
+        return Status.OK_STATUS;
+    }
+
+    void flush() throws DBCException {
+        synchronized (flushLock) {
+            if (pendingActivities.isEmpty()) {
+                return;
+            }
+            List<SessionActivity> activities = new ArrayList<>(pendingActivities.size());
+            for (String sessionId : new ArrayList<>(pendingActivities.keySet())) {
+                SessionActivity activity = pendingActivities.remove(sessionId);
+                if (activity != null) {
+                    activities.add(activity);
+                }
+            }
+            if (activities.isEmpty()) {
+                return;
+            }
+            try (Connection dbCon = database.openConnection()) {
+                try (JDBCTransaction txn = new JDBCTransaction(dbCon)) {
+                    try (PreparedStatement dbStat = dbCon.prepareStatement(
+                        "UPDATE CB_SESSION SET USER_ID=?,LAST_ACCESS_TIME=?,LAST_ACCESS_REMOTE_ADDRESS=?,LAST_ACCESS_USER_AGENT=? WHERE SESSION_ID=?")) {
+                        for (SessionActivity activity : activities) {
+                            setStringOrNull(dbStat, 1, activity.userId);
+                            dbStat.setTimestamp(2, new Timestamp(activity.accessTime));
+                            setStringOrNull(dbStat, 3, activity.remoteAddr);
+                            setStringOrNull(dbStat, 4, activity.userAgent);
+                            dbStat.setString(5, activity.sessionId);
+                            dbStat.addBatch();
+                        }
+                        int[] updateCounts = dbStat.executeBatch();
+                        for (int i = 0; i < updateCounts.length && i < activities.size(); i++) {
+                            if (updateCounts[i] == 0) {
+                                log.debug("Session '" + activities.get(i).sessionId + "' not exists in database");
+                            }
+                        }
+                    }
+                    txn.commit();
+                }
+            } catch (SQLException e) {
+                // Return activities back unless they were already replaced by newer ones
+                for (SessionActivity activity : activities) {
+                    pendingActivities.putIfAbsent(activity.sessionId, activity);
+                }
+                throw new DBCException("Error updating sessions in database", e);
+            }
+        }
+    }
+
+    private static void setStringOrNull(PreparedStatement dbStat, int index, String value) throws SQLException {
+        if (value != null) {
+            dbStat.setString(index, value);
+        } else {
+            dbStat.setNull(index, Types.VARCHAR);
+        }
+    }
+
+}
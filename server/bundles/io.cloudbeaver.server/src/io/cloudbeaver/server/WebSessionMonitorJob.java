@@ -43,6 +43,11 @@ class WebSessionMonitorJob extends AbstractJob {
         }
 
         platform.getSessionManager().expireIdleSessions();
+        platform.getSessionManager().expireAsyncTasks();
+        platform.getSessionManager().closeIdleCursors();
+        if (platform.getSharedDataSourcePool() != null) {
+            platform.getSharedDataSourcePool().evictIdle();
+        }
 
         if (!platform.isShuttingDown()) {
             scheduleMonitor();
@@ -0,0 +1,140 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.language.Document;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache of parsed and validated GraphQL documents.
+ * Client sends the same set of operations over and over, so we parse and validate each query text once.
+ * Cache is bounded by number of entries and by total length of cached query texts (least recently used are evicted).
+ */
+public class GraphQLDocumentCache implements PreparsedDocumentProvider {
+
+    private static final int DEFAULT_MAX_ENTRIES = 500;
+    private static final long DEFAULT_MAX_TOTAL_LENGTH = 4 * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxTotalLength;
+    // Access ordered
+    private final Map<String, PreparsedDocumentEntry> documents = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalLength;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public GraphQLDocumentCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TOTAL_LENGTH);
+    }
+
+    public GraphQLDocumentCache(int maxEntries, long maxTotalLength) {
+        this.maxEntries = maxEntries;
+        this.maxTotalLength = maxTotalLength;
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput, Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        String query = executionInput.getQuery();
+        synchronized (documents) {
+            PreparsedDocumentEntry entry = documents.get(query);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                return entry;
+            }
+        }
+        missCount.incrementAndGet();
+        // Parse outside of the lock. Concurrent requests with the same new query may parse it twice, this is harmless.
+        PreparsedDocumentEntry entry = parseAndValidateFunction.apply(executionInput);
+        if (entry.hasErrors() || query.length() > maxTotalLength) {
+            // Do not cache invalid queries
+            return entry;
+        }
+        synchronized (documents) {
+            if (documents.put(query, entry) == null) {
+                totalLength += query.length();
+            }
+            evictOverflow();
+        }
+        return entry;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, PreparsedDocumentEntry>> iterator = documents.entrySet().iterator();
+        while (iterator.hasNext() && (documents.size() > maxEntries || totalLength > maxTotalLength)) {
+            String query = iterator.next().getKey();
+            iterator.remove();
+            totalLength -= query.length();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns already parsed document. Doesn't affect cache statistics.
+     */
+    @Nullable
+    public Document getCachedDocument(@NotNull String query) {
+        synchronized (documents) {
+            PreparsedDocumentEntry entry = documents.get(query);
+            return entry == null ? null : entry.getDocument();
+        }
+    }
+
+    public void clear() {
+        synchronized (documents) {
+            documents.clear();
+            totalLength = 0;
+        }
+    }
+
+    public int getSize() {
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "GraphQL document cache: size=" + getSize() +
+            ", hits=" + getHitCount() +
+            ", misses=" + getMissCount() +
+            ", evictions=" + getEvictionCount();
+    }
+}
@@ -17,6 +17,7 @@
 package io.cloudbeaver.server.graphql;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 import graphql.*;
 import graphql.execution.AsyncExecutionStrategy;
 import graphql.execution.DataFetcherExceptionHandlerResult;
@@ -24,7 +25,13 @@ import graphql.execution.ExecutionPath;
 import graphql.execution.instrumentation.SimpleInstrumentation;
 import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
 import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
 import graphql.language.SourceLocation;
+import graphql.parser.Parser;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLSchema;
@@ -35,6 +42,7 @@ import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.registry.WebServiceRegistry;
 import io.cloudbeaver.server.CBApplication;
+import io.cloudbeaver.server.CBPlatform;
 import io.cloudbeaver.service.DBWServiceBindingGraphQL;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.utils.IOUtils;
@@ -43,17 +51,13 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
 
 public class GraphQLEndpoint extends HttpServlet {
 
@@ -66,10 +70,38 @@ public class GraphQLEndpoint extends HttpServlet {
     private static final String CORE_SCHEMA_FILE_NAME = "schema/schema.graphqls";
 
     private final GraphQL graphQL;
-
+    private final GraphQLDocumentCache documentCache = new GraphQLDocumentCache();
+    // Executes queries of batched requests in parallel. If the queue is full then query is executed in request thread.
+    private final ThreadPoolExecutor batchExecutor;
+    // Root query fields which do not change server or session state and do not use session navigator model
+    // or connection contexts, so they can be executed in parallel with each other.
+    // Many state-changing fields (auth, admin, navigator refresh) are declared as queries, so this is an allow list.
+    private static final Set<String> PARALLEL_READ_ONLY_FIELDS = new HashSet<>(Arrays.asList(
+        "__typename",
+        "__schema",
+        "__type",
+        "serverConfig",
+        "driverList",
+        "authModels",
+        "sessionPermissions",
+        "listPermissions",
+        "dataTransferAvailableStreamProcessors",
+        "memoryUsage",
+        "asyncTaskSchedulerInfo"
+    ));
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_VARY = "Vary";
+    private static final String ENCODING_GZIP = "gzip";
+
+    private static final int RESPONSE_BUFFER_SIZE = 32 * 1024;
+
+    private static final int BATCH_EXECUTOR_QUEUE_SIZE = 100;
+
+    // Responses are written compact (without pretty printing) directly into response stream
     private static Gson gson = new GsonBuilder()
         .serializeNulls()
-        .setPrettyPrinting()
         .create();
     private GraphQLBindingContext bindingContext;
 
@@ -81,7 +113,24 @@ public class GraphQLEndpoint extends HttpServlet {
             .instrumentation(new WebInstrumentation())
             .queryExecutionStrategy(new WebExecutionStrategy())
             .mutationExecutionStrategy(new WebExecutionStrategy())
+            .preparsedDocumentProvider(documentCache)
             .build();
+
+        // Batched queries mostly wait for database, so pool size doesn't depend on CPU count
+        int threadCount = Math.max(1, CBApplication.getInstance().getGraphQLBatchMaxThreads());
+        batchExecutor = WebServiceUtils.createBoundedExecutor("GraphQL batch executor", threadCount, BATCH_EXECUTOR_QUEUE_SIZE);
+    }
+
+    public GraphQLDocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
+    @Override
+    public void destroy() {
+        batchExecutor.shutdownNow();
+        log.debug(documentCache.toString());
+        documentCache.clear();
+        super.destroy();
     }
 
     private GraphQLSchema buildSchema() {
@@ -157,43 +206,142 @@ public class GraphQLEndpoint extends HttpServlet {
         JsonElement json = gson.fromJson(postBody, JsonElement.class);
         if (json instanceof JsonArray) {
             setDevelHeaders(request, response);
-            response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
-            response.getWriter().print("[\n");
-
-            JsonArray array = (JsonArray)json;
-            int reqCount = 0;
-            for (int i = 0; i < array.size(); i++) {
-                if (reqCount > 0) {
-                    response.getWriter().print(",\n");
-                }
-                JsonElement item = array.get(i);
-                if (item instanceof JsonObject) {
-                    executeSingleQuery(request, response, (JsonObject) item);
-                    reqCount++;
+            List<Future<ExecutionResult>> results = executeBatch(request, response, (JsonArray) json);
+            try (JsonWriter jsonWriter = openResponseWriter(request, response)) {
+                jsonWriter.beginArray();
+                for (Future<ExecutionResult> future : results) {
+                    ExecutionResult result;
+                    try {
+                        result = future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Batch execution interrupted", e);
+                    } catch (ExecutionException e) {
+                        log.error("Error executing batched query", e.getCause());
+                        writeError(jsonWriter, String.valueOf(e.getCause().getMessage()));
+                        continue;
+                    }
+                    if (result == null) {
+                        writeError(jsonWriter, "Query not specified");
+                    } else {
+                        writeResult(jsonWriter, result);
+                    }
                 }
+                jsonWriter.endArray();
             }
-
-            response.getWriter().print("\n]");
         } else if (json instanceof JsonObject) {
-            JsonObject reqObject = (JsonObject) json;
-            executeSingleQuery(request, response, reqObject);
+            ExecutionResult result = executeSingleQuery(request, response, (JsonObject) json);
+            if (result == null) {
+                response.sendError(400, "Query not specified");
+            } else {
+                sendResult(request, response, result);
+            }
         } else {
             response.sendError(400, "Bad JSON request");
         }
     }
 
-    private void executeSingleQuery(HttpServletRequest request, HttpServletResponse response, JsonObject reqObject) throws IOException {
+    /**
+     * Executes batched queries. Queries which read only fields from {@link #PARALLEL_READ_ONLY_FIELDS} are executed
+     * in parallel. All other operations (mutations and queries which may change or read session state) are executed
+     * in request thread in their original order: after all preceding queries and before all following queries.
+     * Results are returned in the order of requests.
+     */
+    private List<Future<ExecutionResult>> executeBatch(HttpServletRequest request, HttpServletResponse response, JsonArray array) {
+        List<JsonObject> requests = new ArrayList<>();
+        for (JsonElement item : array) {
+            if (item instanceof JsonObject) {
+                requests.add((JsonObject) item);
+            }
+        }
+        List<Future<ExecutionResult>> results = new ArrayList<>();
+        HttpServletRequest requestSnapshot = null;
+        if (requests.size() > 1) {
+            // Resolve session in request thread. Servlet request may be used only in request thread,
+            // so parallel queries get a copy of its state and no response.
+            try {
+                CBPlatform.getInstance().getSessionManager().getWebSession(request, false);
+            } catch (DBWebException e) {
+                log.debug("Error resolving web session", e);
+            }
+            requestSnapshot = new GraphQLRequestSnapshot(request);
+        }
+        List<Future<ExecutionResult>> pendingQueries = new ArrayList<>();
+        for (JsonObject reqObject : requests) {
+            if (requests.size() == 1 || !isParallelReadOnly(reqObject)) {
+                for (Future<ExecutionResult> query : pendingQueries) {
+                    try {
+                        query.get();
+                    } catch (Exception e) {
+                        // Will be reported in results
+                    }
+                }
+                pendingQueries.clear();
+                CompletableFuture<ExecutionResult> result = new CompletableFuture<>();
+                try {
+                    result.complete(executeSingleQuery(request, response, reqObject));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+                results.add(result);
+            } else {
+                HttpServletRequest queryRequest = requestSnapshot;
+                Future<ExecutionResult> result = batchExecutor.submit(() -> executeSingleQuery(queryRequest, null, reqObject));
+                pendingQueries.add(result);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private boolean isParallelReadOnly(JsonObject reqObject) {
+        JsonElement query = reqObject.get("query");
+        if (query == null) {
+            return false;
+        }
+        String queryText = query.getAsString();
+        Document document = documentCache.getCachedDocument(queryText);
+        if (document == null) {
+            try {
+                document = new Parser().parseDocument(queryText);
+            } catch (Exception e) {
+                // Execute in order, syntax error will be reported by execution
+                return false;
+            }
+        }
+        JsonElement operNameJSON = reqObject.get("operationName");
+        String operationName = operNameJSON == null || operNameJSON instanceof JsonNull ? null : operNameJSON.getAsString();
+        for (Definition definition : document.getDefinitions()) {
+            if (definition instanceof OperationDefinition) {
+                OperationDefinition operation = (OperationDefinition) definition;
+                if (operationName == null || operationName.equals(operation.getName())) {
+                    if (operation.getOperation() != OperationDefinition.Operation.QUERY) {
+                        return false;
+                    }
+                    for (Selection selection : operation.getSelectionSet().getSelections()) {
+                        // Fragments are not resolved here, so they are executed in order
+                        if (!(selection instanceof Field) || !PARALLEL_READ_ONLY_FIELDS.contains(((Field) selection).getName())) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private ExecutionResult executeSingleQuery(HttpServletRequest request, HttpServletResponse response, JsonObject reqObject) {
         JsonElement query = reqObject.get("query");
         if (query == null) {
-            response.sendError(400, "Query not specified");
-            return;
+            return null;
         }
         JsonElement varJSON = reqObject.get("variables");
         Map<String, Object> variables = varJSON == null ? null : gson.fromJson(varJSON, Map.class);
 
         JsonElement operNameJSON = reqObject.get("operationName");
 
-        executeQuery(request, response, query.getAsString(), variables, operNameJSON == null || operNameJSON instanceof JsonNull ? null : operNameJSON.getAsString());
+        return executeQuery(request, response, query.getAsString(), variables, operNameJSON == null || operNameJSON instanceof JsonNull ? null : operNameJSON.getAsString());
     }
 
     @Override
@@ -205,7 +353,7 @@ public class GraphQLEndpoint extends HttpServlet {
         boolean develMode = CBApplication.getInstance().isDevelMode();
 
         if (path.contentEquals("/schema.json") && develMode) {
-            executeQuery(request, response, GraphQLConstants.SCHEMA_READ_QUERY, null, null);
+            sendResult(request, response, executeQuery(request, response, GraphQLConstants.SCHEMA_READ_QUERY, null, null));
         } else if (path.contentEquals("/console") && develMode) {
             try (InputStream consolePageStream = WebServiceUtils.openStaticResource("static/graphiql/index.html")) {
                 IOUtils.copyStream(consolePageStream, response.getOutputStream());
@@ -213,19 +361,22 @@ public class GraphQLEndpoint extends HttpServlet {
         } else {
             String query = request.getParameter("query");
             if (query != null) {
-                executeQuery(request, response, query, null, request.getParameter("operationName"));
+                sendResult(request, response, executeQuery(request, response, query, null, request.getParameter("operationName")));
             } else {
                 response.sendError(400, "Bad GET request");
             }
         }
     }
 
-    private void executeQuery(HttpServletRequest request, HttpServletResponse response, String query, Map<String, Object> variables, String operationName) throws IOException {
-        GraphQLContext context = new GraphQLContext.Builder()
+    private ExecutionResult executeQuery(HttpServletRequest request, HttpServletResponse response, String query, Map<String, Object> variables, String operationName) {
+        GraphQLContext.Builder graphQLContextBuilder = new GraphQLContext.Builder()
             .of("request", request)
-            .of("response", response)
-            .of("bindingContext", bindingContext)
-            .build();
+            .of("bindingContext", bindingContext);
+        if (response != null) {
+            // Queries executed by batch executor have no access to response
+            graphQLContextBuilder.of("response", response);
+        }
+        GraphQLContext context = graphQLContextBuilder.build();
         ExecutionInput.Builder contextBuilder = ExecutionInput.newExecutionInput()
             .context(context)
             .query(query);
@@ -247,13 +398,45 @@ public class GraphQLEndpoint extends HttpServlet {
             }
         }
         ExecutionInput executionInput = contextBuilder.build();
-        ExecutionResult executionResult = graphQL.execute(executionInput);
+        return graphQL.execute(executionInput);
+    }
 
-        Map<String, Object> resJSON = executionResult.toSpecification();
-        String resString = gson.toJson(resJSON);
+    private void sendResult(HttpServletRequest request, HttpServletResponse response, ExecutionResult executionResult) throws IOException {
         setDevelHeaders(request, response);
+        try (JsonWriter jsonWriter = openResponseWriter(request, response)) {
+            writeResult(jsonWriter, executionResult);
+        }
+    }
+
+    /**
+     * Opens JSON writer over response output stream. Response is gzipped if client accepts it.
+     */
+    private JsonWriter openResponseWriter(HttpServletRequest request, HttpServletResponse response) throws IOException {
         response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
-        response.getWriter().print(resString);
+        OutputStream out = response.getOutputStream();
+        if (CBApplication.getInstance().isResponseCompressionEnabled()) {
+            response.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+            String acceptEncoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+            if (acceptEncoding != null && acceptEncoding.contains(ENCODING_GZIP)) {
+                response.setHeader(HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+                out = new GZIPOutputStream(out, RESPONSE_BUFFER_SIZE);
+            }
+        }
+        return gson.newJsonWriter(
+            new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), RESPONSE_BUFFER_SIZE));
+    }
+
+    private static void writeResult(JsonWriter jsonWriter, ExecutionResult executionResult) {
+        Map<String, Object> resJSON = executionResult.toSpecification();
+        gson.toJson(resJSON, resJSON.getClass(), jsonWriter);
+    }
+
+    private static void writeError(JsonWriter jsonWriter, String message) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("errors").beginArray();
+        jsonWriter.beginObject().name("message").value(message).endObject();
+        jsonWriter.endArray();
+        jsonWriter.endObject();
     }
 
     private class WebInstrumentation extends SimpleInstrumentation {
@@ -0,0 +1,135 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server.graphql;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copy of servlet request state used by queries executed outside of request thread.
+ * <p>
+ * Servlet request may be used only in request thread, so session, headers, cookies and attributes
+ * are copied before query is handed off to batch executor. Other request methods are not passed to the live request,
+ * they throw {@link UnsupportedOperationException}.
+ */
+class GraphQLRequestSnapshot extends HttpServletRequestWrapper {
+
+    private final HttpSession httpSession;
+    private final String remoteAddr;
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Cookie[] cookies;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    // Target of all request methods which are not copied
+    private static final HttpServletRequest DETACHED_REQUEST = (HttpServletRequest) Proxy.newProxyInstance(
+        GraphQLRequestSnapshot.class.getClassLoader(),
+        new Class[] { HttpServletRequest.class },
+        (proxy, method, args) -> {
+            throw new UnsupportedOperationException("Request method '" + method.getName() + "' is not available outside of request thread");
+        });
+
+    GraphQLRequestSnapshot(HttpServletRequest request) {
+        super(DETACHED_REQUEST);
+        this.httpSession = request.getSession(true);
+        this.remoteAddr = request.getRemoteAddr();
+        for (Enumeration<String> names = request.getHeaderNames(); names != null && names.hasMoreElements(); ) {
+            String name = names.nextElement();
+            headers.put(name, Collections.list(request.getHeaders(name)));
+        }
+        Cookie[] requestCookies = request.getCookies();
+        this.cookies = requestCookies == null ? null : requestCookies.clone();
+        for (Enumeration<String> names = request.getAttributeNames(); names.hasMoreElements(); ) {
+            String name = names.nextElement();
+            Object value = request.getAttribute(name);
+            if (value != null) {
+                attributes.put(name, value);
+            }
+        }
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return httpSession;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        return httpSession;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return httpSession.getId();
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        return remoteAddr;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return Collections.enumeration(values == null ? Collections.emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        return cookies;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+}
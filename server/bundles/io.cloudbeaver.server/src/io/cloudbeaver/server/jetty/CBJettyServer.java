@@ -49,6 +49,9 @@ public class CBJettyServer {
                 servletContextHandler.addServlet(new ServletHolder("static", new CBStaticServlet()), application.getRootURI());
                 servletContextHandler.addServlet(new ServletHolder("images", new CBImageServlet()), application.getServicesURI() + "images/*");
                 servletContextHandler.addServlet(new ServletHolder("graphql", new GraphQLEndpoint()), application.getServicesURI() + "gql/*");
+                ServletHolder eventsHolder = new ServletHolder("events", new CBSessionEventServlet());
+                eventsHolder.setAsyncSupported(true);
+                servletContextHandler.addServlet(eventsHolder, application.getServicesURI() + "events");
                 servletContextHandler.addEventListener(new CBServerContextListener());
 
                 // Add extensions from services
@@ -0,0 +1,265 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server.jetty;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cloudbeaver.DBWebException;
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.session.WebSessionEvent;
+import io.cloudbeaver.model.session.WebSessionManager;
+import io.cloudbeaver.server.CBPlatform;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.utils.CommonUtils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Pushes session events (async task status, task completion, session log) to the client as Server-Sent Events.
+ * <p>
+ * GET /events[?taskId=ID]: opens event stream of the current web session. If taskId is specified then
+ * only events of this task are sent. Each event is a JSON object with event type, task state or log message.
+ * Stream is closed when the session is closed.
+ * <p>
+ * Requests are handled asynchronously and events are written with non-blocking I/O, so neither open streams
+ * nor slow clients hold server threads. Client which can't keep up with events (too many pending events
+ * or no write progress for a long time) is disconnected and must re-read task state with asyncTaskInfo after reconnect.
+ */
+public class CBSessionEventServlet extends HttpServlet {
+
+    private static final Log log = Log.getLog(CBSessionEventServlet.class);
+
+    private static final Gson gson = new GsonBuilder().create();
+
+    private static final String CONTENT_TYPE_EVENT_STREAM = "text/event-stream";
+    private static final String PARAM_TASK_ID = "taskId";
+
+    // Comment line keeps proxies from closing idle stream and detects disconnected clients
+    private static final long HEARTBEAT_INTERVAL = 20000;
+    // Delay before client reconnects after stream was closed
+    private static final long RECONNECT_DELAY = 3000;
+    // Client which doesn't read written data during this time is disconnected
+    private static final long WRITE_TIMEOUT = 60000;
+    private static final int MAX_PENDING_EVENTS = 1000;
+
+    // Only schedules heartbeats, never writes
+    private static final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Session event heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        WebSessionManager sessionManager = CBPlatform.getInstance().getSessionManager();
+        WebSession webSession = sessionManager.findWebSession(request);
+        if (webSession == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "No active session");
+            return;
+        }
+        try {
+            // Session is touched only when stream is opened, events do not update session info
+            sessionManager.touchSession(request);
+        } catch (DBWebException e) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, e.getMessage());
+            return;
+        }
+        response.setContentType(CONTENT_TYPE_EVENT_STREAM);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Cache-Control", "no-cache");
+        // Disable response buffering in nginx
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        EventSubscription subscription = new EventSubscription(
+            webSession,
+            asyncContext,
+            response.getOutputStream(),
+            request.getParameter(PARAM_TASK_ID));
+        asyncContext.addListener(subscription);
+        subscription.start();
+    }
+
+    private static class EventSubscription implements Consumer<WebSessionEvent>, AsyncListener, WriteListener {
+
+        private final WebSession webSession;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final String taskId;
+
+        private final Queue<String> pendingEvents = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean closeOnDrain;
+        // Time when output stopped accepting data, 0 if output is ready
+        private volatile long writeBlockedSince;
+        // Guarded by this
+        private boolean flushPending;
+        private ScheduledFuture<?> heartbeat;
+
+        EventSubscription(@NotNull WebSession webSession, @NotNull AsyncContext asyncContext, @NotNull ServletOutputStream out, String taskId) {
+            this.webSession = webSession;
+            this.asyncContext = asyncContext;
+            this.out = out;
+            this.taskId = CommonUtils.isEmpty(taskId) ? null : taskId;
+        }
+
+        void start() {
+            // Container calls onWritePossible when output is ready
+            out.setWriteListener(this);
+            webSession.addEventListener(this);
+            enqueue("retry: " + RECONNECT_DELAY + "\n\n");
+            heartbeat = heartbeatExecutor.scheduleWithFixedDelay(
+                this::sendHeartbeat, HEARTBEAT_INTERVAL, HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+            if (closed.get()) {
+                // Closed before heartbeat was scheduled
+                heartbeat.cancel(false);
+            }
+        }
+
+        @Override
+        public void accept(WebSessionEvent event) {
+            if (taskId != null && event.getTaskId() != null && !taskId.equals(event.getTaskId())) {
+                return;
+            }
+            if (event.getType() == WebSessionEvent.EventType.SESSION_CLOSED) {
+                // Stream is closed after the last event is written
+                closeOnDrain = true;
+            }
+            enqueue("id: " + event.getEventId() + "\nevent: " + event.getType().name() + "\ndata: " + gson.toJson(event) + "\n\n");
+        }
+
+        private void sendHeartbeat() {
+            long blockedSince = writeBlockedSince;
+            if (blockedSince != 0 && System.currentTimeMillis() - blockedSince > WRITE_TIMEOUT) {
+                log.debug("Session event stream write timeout, disconnect client");
+                close();
+                return;
+            }
+            enqueue(":\n\n");
+        }
+
+        private void enqueue(String text) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                // Closed in the caller thread, output is not touched
+                log.debug("Session event stream overflow, disconnect client");
+                close();
+                return;
+            }
+            pendingEvents.add(text);
+            writeEvents();
+        }
+
+        @Override
+        public void onWritePossible() {
+            writeEvents();
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            // Client disconnected
+            close();
+        }
+
+        /**
+         * Writes pending events while output accepts data. Never blocks: if output is not ready then
+         * the rest is written by onWritePossible.
+         */
+        private synchronized void writeEvents() {
+            try {
+                while (!closed.get() && out.isReady()) {
+                    writeBlockedSince = 0;
+                    String text = pendingEvents.poll();
+                    if (text != null) {
+                        pendingCount.decrementAndGet();
+                        out.write(text.getBytes(StandardCharsets.UTF_8));
+                        flushPending = true;
+                    } else if (flushPending) {
+                        flushPending = false;
+                        out.flush();
+                    } else {
+                        if (closeOnDrain) {
+                            close();
+                        }
+                        return;
+                    }
+                }
+                if (!closed.get() && writeBlockedSince == 0) {
+                    writeBlockedSince = System.currentTimeMillis();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client disconnected
+                close();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            webSession.removeEventListener(this);
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            pendingEvents.clear();
+            try {
+                asyncContext.complete();
+            } catch (Exception e) {
+                // Already completed
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+}
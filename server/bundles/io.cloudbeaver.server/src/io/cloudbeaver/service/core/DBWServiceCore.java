@@ -21,6 +21,7 @@ import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebAction;
 import io.cloudbeaver.model.*;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.session.WebSessionLogPage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.model.navigator.DBNBrowseSettings;
 
@@ -64,6 +65,9 @@ public interface DBWServiceCore extends DBWService {
     @WebAction
     List<WebServerMessage> readSessionLog(WebSession webSession, Integer maxEntries, Boolean clearEntries) throws DBWebException;
 
+    @WebAction
+    WebSessionLogPage readSessionLogPage(WebSession webSession, String cursor, Integer maxEntries) throws DBWebException;
+
     @WebAction(requirePermissions = {})
     boolean closeSession(HttpServletRequest request) throws DBWebException;
 
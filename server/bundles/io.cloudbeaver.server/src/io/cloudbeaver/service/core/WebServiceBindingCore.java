@@ -23,6 +23,7 @@ import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.model.WebConnectionConfig;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.session.WebSessionLogPage;
 import io.cloudbeaver.model.session.WebSessionManager;
 import io.cloudbeaver.server.CBPlatform;
 import io.cloudbeaver.server.graphql.GraphQLEndpoint;
@@ -66,10 +67,21 @@ public class WebServiceBindingCore extends WebServiceBindingBase<DBWServiceCore>
                     return Collections.emptyList();
                 }
                 return getService(env).readSessionLog(
-                    getWebSession(env),
+                    session,
                     env.getArgument("maxEntries"),
                     env.getArgument("clearEntries"));
             })
+            .dataFetcher("readSessionLogPage", env -> {
+                // Same as readSessionLog: doesn't extend session lifetime
+                WebSession session = findWebSession(env);
+                if (session == null) {
+                    return WebSessionLogPage.empty(0);
+                }
+                return getService(env).readSessionLogPage(
+                    session,
+                    env.getArgument("cursor"),
+                    env.getArgument("maxEntries"));
+            })
         ;
 
         model.getMutationType()
@@ -22,6 +22,7 @@ import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.model.*;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.session.WebSessionLogPage;
 import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.server.CBPlatform;
 import io.cloudbeaver.service.core.DBWServiceCore;
@@ -36,7 +37,6 @@ import org.jkiss.dbeaver.model.data.json.JSONUtils;
 import org.jkiss.dbeaver.model.impl.auth.AuthModelDatabaseNative;
 import org.jkiss.dbeaver.model.navigator.DBNBrowseSettings;
 import org.jkiss.dbeaver.model.navigator.DBNDataSource;
-import org.jkiss.dbeaver.model.navigator.DBNModel;
 import org.jkiss.dbeaver.model.navigator.DBNNode;
 import org.jkiss.dbeaver.registry.DataSourceDescriptor;
 import org.jkiss.dbeaver.registry.DataSourceProviderRegistry;
@@ -140,6 +140,19 @@ public class WebServiceCore implements DBWServiceCore {
         return webSession.readLog(maxEntries, clearEntries);
     }
 
+    @Override
+    public WebSessionLogPage readSessionLogPage(WebSession webSession, String cursor, Integer maxEntries) throws DBWebException {
+        Long sequence = null;
+        if (!CommonUtils.isEmpty(cursor)) {
+            try {
+                sequence = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new DBWebException("Invalid session log cursor '" + cursor + "'");
+            }
+        }
+        return webSession.readLogPage(sequence, maxEntries);
+    }
+
     @Override
     public boolean closeSession(HttpServletRequest request) {
         return CBPlatform.getInstance().getSessionManager().closeSession(request);
@@ -225,12 +238,22 @@ public class WebServiceCore implements DBWServiceCore {
         connectionInfo.setSavedAuthProperties(authProperties);
 
         DBPDataSourceContainer dataSourceContainer = connectionInfo.getDataSourceContainer();
-        if (dataSourceContainer.isConnected()) {
+        if (connectionInfo.isConnected()) {
             throw new DBWebException("Datasource '" + dataSourceContainer.getName() + "' is already connected");
         }
 //
 //        WebServiceUtils.initAuthProperties(dataSourceContainer, authProperties);
 
+        WebSharedDataSourcePool sharedPool = CBPlatform.getInstance().getSharedDataSourcePool();
+        if (sharedPool != null && isSharedConnectionAllowed(dataSourceContainer, authProperties)) {
+            try {
+                connectionInfo.setSharedDataSource(sharedPool.acquireDataSource(webSession.getProgressMonitor(), dataSourceContainer));
+            } catch (DBException e) {
+                throw new DBWebException("Error connecting to database", e);
+            }
+            return connectionInfo;
+        }
+
         boolean oldSavePassword = dataSourceContainer.isSavePassword();
         try {
             dataSourceContainer.connect(webSession.getProgressMonitor(), true, false);
@@ -252,6 +275,19 @@ public class WebServiceCore implements DBWServiceCore {
         return connectionInfo;
     }
 
+    /**
+     * Only copies of global connections with saved credentials may use shared data sources.
+     */
+    private static boolean isSharedConnectionAllowed(@NotNull DBPDataSourceContainer dataSourceContainer, Map<String, Object> authProperties) throws DBWebException {
+        if (!CommonUtils.isEmpty(authProperties)) {
+            return false;
+        }
+        if (!dataSourceContainer.isSavePassword() && !dataSourceContainer.getDriver().isAnonymousAccess()) {
+            return false;
+        }
+        return WebServiceUtils.getGlobalDataSourceRegistry().getDataSource(dataSourceContainer.getId()) != null;
+    }
+
     @Override
     public WebConnectionInfo createConnection(WebSession webSession, WebConnectionConfig connectionConfig) throws DBWebException {
         DBPDataSourceRegistry sessionRegistry = webSession.getSingletonProject().getDataSourceRegistry();
@@ -291,10 +327,9 @@ public class WebServiceCore implements DBWServiceCore {
     @Override
     public WebConnectionInfo copyConnectionFromNode(@NotNull WebSession webSession, @NotNull String nodePath) throws DBWebException {
         try {
-            DBNModel navigatorModel = webSession.getNavigatorModel();
             DBPDataSourceRegistry dataSourceRegistry = webSession.getSingletonProject().getDataSourceRegistry();
 
-            DBNNode srcNode = navigatorModel.getNodeByPath(webSession.getProgressMonitor(), nodePath);
+            DBNNode srcNode = webSession.getNavigatorNode(webSession.getProgressMonitor(), nodePath);
             if (srcNode == null) {
                 throw new DBException("Node '" + nodePath + "' not found");
             }
@@ -367,7 +402,12 @@ public class WebServiceCore implements DBWServiceCore {
 
         boolean disconnected = false;
         DBPDataSourceContainer dataSourceContainer = connectionInfo.getDataSourceContainer();
-        if (connectionInfo.isConnected()) {
+        webSession.detachMetadataCache(connectionInfo);
+        if (connectionInfo.getSharedDataSource() != null) {
+            webSession.releaseSharedDataSource(connectionInfo);
+            disconnected = true;
+        }
+        if (dataSourceContainer.isConnected()) {
             try {
                 dataSourceContainer.disconnect(webSession.getProgressMonitor());
                 disconnected = true;
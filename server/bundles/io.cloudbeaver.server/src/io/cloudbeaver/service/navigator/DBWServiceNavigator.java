@@ -30,7 +30,13 @@ import java.util.List;
 public interface DBWServiceNavigator extends DBWService {
 
     @WebAction
-    List<WebNavigatorNodeInfo> getNavigatorNodeChildren(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders) throws DBWebException;
+    List<WebNavigatorNodeInfo> getNavigatorNodeChildren(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders, String namePrefix) throws DBWebException;
+
+    @WebAction
+    WebNavigatorNodeChildren getNavigatorNodeChildrenPage(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders, String namePrefix) throws DBWebException;
+
+    @WebAction
+    List<WebNavigatorNodeBranch> getNavigatorNodeTree(WebSession session, String parentPath, int depth, Integer limit, List<Integer> levelLimits, Boolean onlyFolders) throws DBWebException;
 
     @WebAction
     WebNavigatorNodeInfo getNavigatorNodeInfo(WebSession session, String nodePath) throws DBWebException;
@@ -40,4 +46,7 @@ public interface DBWServiceNavigator extends DBWService {
 
     @WebAction
     WebStructContainers getStructContainers(WebConnectionInfo connectionInfo, String catalog) throws DBWebException;
+
+    @WebAction
+    WebMetadataSearchResults searchObjects(WebSession session, String query, Boolean fuzzy, List<String> objectTypes, List<String> connectionIds, Integer limit) throws DBWebException;
 }
@@ -16,9 +16,11 @@
  */
 package io.cloudbeaver.service.navigator;
 
+import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.WebPropertyInfo;
 import io.cloudbeaver.model.session.WebSession;
 import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.*;
 import org.jkiss.dbeaver.model.meta.Property;
@@ -39,12 +41,46 @@ public class WebDatabaseObjectInfo {
 
     private static final Log log = Log.getLog(WebDatabaseObjectInfo.class);
 
+    /**
+     * Finds database object in the session data source
+     */
+    @FunctionalInterface
+    public interface ObjectResolver {
+        @Nullable
+        DBSObject resolveObject() throws DBException;
+    }
+
     private final WebSession session;
-    private final DBSObject object;
+    private DBSObject object;
+    // Info shared between sessions. If set then object is resolved on demand
+    private final WebDatabaseObjectSnapshot snapshot;
+    private final ObjectResolver resolver;
 
     public WebDatabaseObjectInfo(WebSession session, DBSObject object) {
         this.session = session;
         this.object = object;
+        this.snapshot = null;
+        this.resolver = null;
+    }
+
+    public WebDatabaseObjectInfo(WebSession session, WebDatabaseObjectSnapshot snapshot, ObjectResolver resolver) {
+        this.session = session;
+        this.snapshot = snapshot;
+        this.resolver = resolver;
+    }
+
+    private DBSObject getObject() throws DBWebException {
+        if (object == null) {
+            try {
+                object = resolver.resolveObject();
+            } catch (DBException e) {
+                throw new DBWebException("Error resolving database object '" + snapshot.getName() + "'", e);
+            }
+            if (object == null) {
+                throw new DBWebException("Database object '" + snapshot.getName() + "' not found");
+            }
+        }
+        return object;
     }
 
     ///////////////////////////////////
@@ -53,27 +89,36 @@ public class WebDatabaseObjectInfo {
 
     @Property
     public String getName() {
+        if (snapshot != null) {
+            return snapshot.getName();
+        }
         return object.getName();
     }
 
     @Property
     public String getDescription() {
+        if (snapshot != null) {
+            return snapshot.getDescription();
+        }
         return object.getDescription();
     }
 
     @Property
     public String getType() {
+        if (snapshot != null) {
+            return snapshot.getType();
+        }
         return object.getClass().getName();
     }
 
     @Property
-    public WebPropertyInfo[] getProperties() {
+    public WebPropertyInfo[] getProperties() throws DBWebException {
         return filterProperties(null);
     }
 
     @Property
-    public WebPropertyInfo[] filterProperties(@Nullable WebPropertyFilter filter) {
-        PropertyCollector propertyCollector = new PropertyCollector(object, true);
+    public WebPropertyInfo[] filterProperties(@Nullable WebPropertyFilter filter) throws DBWebException {
+        PropertyCollector propertyCollector = new PropertyCollector(getObject(), true);
         propertyCollector.setLocale(session.getLocale());
         propertyCollector.collectProperties();
         List<WebPropertyInfo> webProps = new ArrayList<>();
@@ -100,26 +145,41 @@ public class WebDatabaseObjectInfo {
 
     @Property
     public Integer getOrdinalPosition() {
+        if (snapshot != null) {
+            return snapshot.getOrdinalPosition();
+        }
         return object instanceof DBPOrderedObject ? ((DBPOrderedObject) object).getOrdinalPosition() : null;
     }
 
     @Property
     public String getFullyQualifiedName() {
+        if (snapshot != null) {
+            return snapshot.getFullyQualifiedName();
+        }
         return object instanceof DBPQualifiedObject ? ((DBPQualifiedObject) object).getFullyQualifiedName(DBPEvaluationContext.UI) : getName();
     }
 
     @Property
     public String getOverloadedName() {
+        if (snapshot != null) {
+            return snapshot.getOverloadedName();
+        }
         return object instanceof DBPOverloadedObject ? ((DBPOverloadedObject) object).getOverloadedName() : getName();
     }
 
     @Property
     public String getUniqueName() {
+        if (snapshot != null) {
+            return snapshot.getUniqueName();
+        }
         return object instanceof DBPUniqueObject ? ((DBPUniqueObject) object).getUniqueName() : getName();
     }
 
     @Property
     public String getState() {
+        if (snapshot != null) {
+            return snapshot.getState();
+        }
         if (object instanceof DBPStatefulObject) {
             DBSObjectState state = ((DBPStatefulObject) object).getObjectState();
             if (state != null) {
@@ -131,6 +191,9 @@ public class WebDatabaseObjectInfo {
 
     @Property
     public String[] getFeatures() {
+        if (snapshot != null) {
+            return snapshot.getFeatures();
+        }
         List<String> features = new ArrayList<>();
         if (object instanceof DBPScriptObject) features.add("script");
         if (object instanceof DBPScriptObjectExt) features.add("scriptExtended");
@@ -0,0 +1,101 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import io.cloudbeaver.model.WebMetadataCache;
+
+/**
+ * Immutable copy of database object info.
+ * Doesn't reference session or object so it may be shared between sessions.
+ */
+public class WebDatabaseObjectSnapshot {
+
+    private final String name;
+    private final String description;
+    private final String type;
+    private final Integer ordinalPosition;
+    private final String fullyQualifiedName;
+    private final String overloadedName;
+    private final String uniqueName;
+    private final String state;
+    private final String[] features;
+
+    public WebDatabaseObjectSnapshot(WebDatabaseObjectInfo objectInfo) {
+        this.name = objectInfo.getName();
+        this.description = objectInfo.getDescription();
+        this.type = objectInfo.getType();
+        this.ordinalPosition = objectInfo.getOrdinalPosition();
+        this.fullyQualifiedName = objectInfo.getFullyQualifiedName();
+        this.overloadedName = objectInfo.getOverloadedName();
+        this.uniqueName = objectInfo.getUniqueName();
+        this.state = objectInfo.getState();
+        this.features = objectInfo.getFeatures();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getOrdinalPosition() {
+        return ordinalPosition;
+    }
+
+    public String getFullyQualifiedName() {
+        return fullyQualifiedName;
+    }
+
+    public String getOverloadedName() {
+        return overloadedName;
+    }
+
+    public String getUniqueName() {
+        return uniqueName;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String[] getFeatures() {
+        return features.clone();
+    }
+
+    public long getEstimatedSize() {
+        return 56 +
+            WebMetadataCache.estimateSize(name) +
+            WebMetadataCache.estimateSize(description) +
+            WebMetadataCache.estimateSize(type) +
+            WebMetadataCache.estimateSize(fullyQualifiedName) +
+            WebMetadataCache.estimateSize(overloadedName) +
+            WebMetadataCache.estimateSize(uniqueName) +
+            WebMetadataCache.estimateSize(state) +
+            WebMetadataCache.estimateSize(features);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
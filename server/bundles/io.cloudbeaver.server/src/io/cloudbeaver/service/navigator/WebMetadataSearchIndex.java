@@ -0,0 +1,325 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import io.cloudbeaver.model.WebMetadataCache;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.struct.*;
+import org.jkiss.dbeaver.model.struct.rdb.DBSProcedure;
+import org.jkiss.dbeaver.model.struct.rdb.DBSProcedureContainer;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Name index of data source objects: tables, views, columns and procedures.
+ * <p>
+ * Index is split into partitions, one per object container (catalog, schema).
+ * Each partition keeps entries sorted by lower case name for prefix search and
+ * trigram postings for fuzzy search. Index is immutable once built. When navigator node is refreshed
+ * a copy is made with partitions of the refreshed container re-read, other partitions are reused.
+ */
+public class WebMetadataSearchIndex implements WebMetadataCache.CachedValue {
+
+    public static final String TYPE_COLUMN = "column";
+    public static final String TYPE_PROCEDURE = "procedure";
+    public static final String TYPE_TABLE = "table";
+
+    // Objects after this limit are not indexed
+    private static final int MAX_INDEX_OBJECTS = 500000;
+    private static final int MAX_CONTAINER_DEPTH = 3;
+    private static final char PATH_SEPARATOR = '\u0001';
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private static class IndexEntry {
+        final String name;
+        final String lowerName;
+        final String type;
+        final String[] path;
+
+        IndexEntry(String name, String type, String[] path) {
+            this.name = name;
+            this.lowerName = name.toLowerCase(Locale.ENGLISH);
+            this.type = type;
+            this.path = path;
+        }
+    }
+
+    private static class Partition {
+        final IndexEntry[] entries;
+        final Map<String, int[]> trigramPostings;
+        final long estimatedSize;
+
+        Partition(List<IndexEntry> entryList) {
+            entries = entryList.toArray(new IndexEntry[0]);
+            Arrays.sort(entries, Comparator.comparing(e -> e.lowerName));
+
+            Map<String, List<Integer>> postings = new HashMap<>();
+            long size = 64 + entries.length * 8L;
+            for (int i = 0; i < entries.length; i++) {
+                IndexEntry entry = entries[i];
+                size += 40 + WebMetadataCache.estimateSize(entry.name) + WebMetadataCache.estimateSize(entry.lowerName);
+                for (String trigram : getTrigrams(entry.lowerName)) {
+                    postings.computeIfAbsent(trigram, k -> new ArrayList<>()).add(i);
+                }
+            }
+            trigramPostings = new HashMap<>(postings.size());
+            for (Map.Entry<String, List<Integer>> posting : postings.entrySet()) {
+                List<Integer> indexes = posting.getValue();
+                int[] postingArray = new int[indexes.size()];
+                for (int i = 0; i < postingArray.length; i++) {
+                    postingArray[i] = indexes.get(i);
+                }
+                trigramPostings.put(posting.getKey(), postingArray);
+                size += 80 + postingArray.length * 4L;
+            }
+            estimatedSize = size;
+        }
+    }
+
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private final AtomicInteger objectCount = new AtomicInteger();
+    private final boolean showSystemObjects;
+    private boolean truncated;
+
+    private WebMetadataSearchIndex(boolean showSystemObjects) {
+        this.showSystemObjects = showSystemObjects;
+    }
+
+    /**
+     * Reads all objects of the data source and builds index.
+     */
+    @NotNull
+    public static WebMetadataSearchIndex build(@NotNull DBRProgressMonitor monitor, @NotNull DBPDataSource dataSource) throws DBException {
+        WebMetadataSearchIndex index = new WebMetadataSearchIndex(dataSource.getContainer().getNavigatorSettings().isShowSystemObjects());
+        if (dataSource instanceof DBSObjectContainer) {
+            index.indexContainer(monitor, (DBSObjectContainer) dataSource, new String[0]);
+        }
+        return index;
+    }
+
+    /**
+     * Creates copy of index with re-read objects of the container which holds the specified object.
+     * Index itself is not changed, so it may be used by other sessions during update.
+     */
+    @NotNull
+    public WebMetadataSearchIndex updateIndex(@NotNull DBRProgressMonitor monitor, @NotNull DBSObject object) throws DBException {
+        DBSObject container = object;
+        while (container != null && (container instanceof DBSEntity || !(container instanceof DBSObjectContainer))) {
+            container = container.getParentObject();
+        }
+        WebMetadataSearchIndex newIndex = new WebMetadataSearchIndex(showSystemObjects);
+        newIndex.truncated = truncated;
+        if (container == null) {
+            newIndex.partitions.putAll(partitions);
+            newIndex.objectCount.set(objectCount.get());
+            return newIndex;
+        }
+        List<String> pathList = new ArrayList<>();
+        for (DBSObject parent = container; parent != null && !(parent instanceof DBPDataSource); parent = parent.getParentObject()) {
+            pathList.add(0, parent.getName());
+        }
+        String[] path = pathList.toArray(new String[0]);
+        String pathKey = makePathKey(path);
+        for (Map.Entry<String, Partition> partition : partitions.entrySet()) {
+            String partitionKey = partition.getKey();
+            boolean replaced = path.length == 0 || partitionKey.equals(pathKey) || partitionKey.startsWith(pathKey + PATH_SEPARATOR);
+            if (!replaced) {
+                newIndex.partitions.put(partitionKey, partition.getValue());
+                newIndex.objectCount.addAndGet(partition.getValue().entries.length);
+            }
+        }
+        newIndex.indexContainer(monitor, (DBSObjectContainer) container, path);
+        return newIndex;
+    }
+
+    @NotNull
+    public List<WebMetadataSearchItem> search(@NotNull String connectionId, @NotNull String query, boolean fuzzy, @Nullable Collection<String> objectTypes, int maxResults) {
+        String lowerQuery = query.toLowerCase(Locale.ENGLISH);
+        List<WebMetadataSearchItem> result = new ArrayList<>();
+        if (fuzzy && lowerQuery.length() >= TRIGRAM_LENGTH) {
+            Set<String> queryTrigrams = getTrigrams(lowerQuery);
+            for (Partition partition : partitions.values()) {
+                searchFuzzy(connectionId, partition, lowerQuery, queryTrigrams, objectTypes, maxResults, result);
+            }
+        } else {
+            for (Partition partition : partitions.values()) {
+                searchPrefix(connectionId, partition, lowerQuery, objectTypes, maxResults, result);
+            }
+        }
+        result.sort(WebMetadataSearchItem.SCORE_ORDER);
+        return result.size() > maxResults ? new ArrayList<>(result.subList(0, maxResults)) : result;
+    }
+
+    public int getObjectCount() {
+        return objectCount.get();
+    }
+
+    /**
+     * Returns true if data source has more objects than index can hold.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        long size = 64;
+        for (Partition partition : partitions.values()) {
+            size += partition.estimatedSize;
+        }
+        return size;
+    }
+
+    private void indexContainer(DBRProgressMonitor monitor, DBSObjectContainer container, String[] path) throws DBException {
+        List<IndexEntry> entries = new ArrayList<>();
+        Collection<? extends DBSObject> children = container.getChildren(monitor);
+        if (children != null) {
+            for (DBSObject child : children) {
+                if (monitor.isCanceled()) {
+                    break;
+                }
+                if (objectCount.get() + entries.size() >= MAX_INDEX_OBJECTS) {
+                    truncated = true;
+                    break;
+                }
+                if (!showSystemObjects && DBUtils.isSystemObject(child)) {
+                    continue;
+                }
+                if (child instanceof DBSEntity) {
+                    DBSEntity entity = (DBSEntity) child;
+                    DBSEntityType entityType = entity.getEntityType();
+                    entries.add(new IndexEntry(entity.getName(), entityType == null ? TYPE_TABLE : entityType.getId(), path));
+                    Collection<? extends DBSEntityAttribute> attributes = entity.getAttributes(monitor);
+                    if (attributes != null) {
+                        String[] entityPath = appendPath(path, entity.getName());
+                        for (DBSEntityAttribute attribute : attributes) {
+                            entries.add(new IndexEntry(attribute.getName(), TYPE_COLUMN, entityPath));
+                        }
+                    }
+                } else if (child instanceof DBSObjectContainer && path.length < MAX_CONTAINER_DEPTH) {
+                    indexContainer(monitor, (DBSObjectContainer) child, appendPath(path, child.getName()));
+                }
+            }
+        }
+        if (container instanceof DBSProcedureContainer && !monitor.isCanceled()) {
+            Collection<? extends DBSProcedure> procedures = ((DBSProcedureContainer) container).getProcedures(monitor);
+            if (procedures != null) {
+                for (DBSProcedure procedure : procedures) {
+                    entries.add(new IndexEntry(procedure.getName(), TYPE_PROCEDURE, path));
+                }
+            }
+        }
+        if (!entries.isEmpty()) {
+            partitions.put(makePathKey(path), new Partition(entries));
+            objectCount.addAndGet(entries.size());
+        }
+    }
+
+    private static void searchPrefix(String connectionId, Partition partition, String lowerQuery, Collection<String> objectTypes, int maxResults, List<WebMetadataSearchItem> result) {
+        IndexEntry[] entries = partition.entries;
+        // Binary search of the first entry not less than query
+        int low = 0, high = entries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entries[mid].lowerName.compareTo(lowerQuery) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int found = 0;
+        for (int i = low; i < entries.length && found < maxResults && entries[i].lowerName.startsWith(lowerQuery); i++) {
+            IndexEntry entry = entries[i];
+            if (objectTypes == null || objectTypes.contains(entry.type)) {
+                // Shorter names are closer to the query
+                int score = 1000 - Math.min(999, entry.name.length() - lowerQuery.length());
+                result.add(new WebMetadataSearchItem(connectionId, entry.name, entry.type, entry.path, score));
+                found++;
+            }
+        }
+    }
+
+    private static void searchFuzzy(String connectionId, Partition partition, String lowerQuery, Set<String> queryTrigrams, Collection<String> objectTypes, int maxResults, List<WebMetadataSearchItem> result) {
+        int[] matchCounts = null;
+        for (String trigram : queryTrigrams) {
+            int[] postings = partition.trigramPostings.get(trigram);
+            if (postings == null) {
+                continue;
+            }
+            if (matchCounts == null) {
+                matchCounts = new int[partition.entries.length];
+            }
+            for (int entryIndex : postings) {
+                matchCounts[entryIndex]++;
+            }
+        }
+        if (matchCounts == null) {
+            return;
+        }
+        int minMatches = (queryTrigrams.size() + 1) / 2;
+        List<WebMetadataSearchItem> partitionResult = new ArrayList<>();
+        for (int i = 0; i < matchCounts.length; i++) {
+            if (matchCounts[i] < minMatches) {
+                continue;
+            }
+            IndexEntry entry = partition.entries[i];
+            if (objectTypes != null && !objectTypes.contains(entry.type)) {
+                continue;
+            }
+            int nameTrigrams = Math.max(1, entry.lowerName.length() - TRIGRAM_LENGTH + 1);
+            int score = matchCounts[i] * 1000 / Math.max(queryTrigrams.size(), nameTrigrams);
+            if (entry.lowerName.startsWith(lowerQuery)) {
+                score += 1000;
+            }
+            partitionResult.add(new WebMetadataSearchItem(connectionId, entry.name, entry.type, entry.path, score));
+        }
+        partitionResult.sort(WebMetadataSearchItem.SCORE_ORDER);
+        result.addAll(partitionResult.size() > maxResults ? partitionResult.subList(0, maxResults) : partitionResult);
+    }
+
+    private static Set<String> getTrigrams(String str) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= str.length(); i++) {
+            trigrams.add(str.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static String[] appendPath(String[] path, String name) {
+        String[] newPath = Arrays.copyOf(path, path.length + 1);
+        newPath[path.length] = name;
+        return newPath;
+    }
+
+    private static String makePathKey(String[] path) {
+        StringBuilder key = new StringBuilder();
+        for (String name : path) {
+            if (key.length() > 0) {
+                key.append(PATH_SEPARATOR);
+            }
+            key.append(name);
+        }
+        return key.toString();
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import java.util.Comparator;
+
+/**
+ * Database object found by metadata search
+ */
+public class WebMetadataSearchItem {
+
+    public static final Comparator<WebMetadataSearchItem> SCORE_ORDER =
+        Comparator.comparingInt(WebMetadataSearchItem::getScore).reversed().thenComparing(WebMetadataSearchItem::getName);
+
+    private final String connectionId;
+    private final String name;
+    private final String type;
+    private final String[] path;
+    private final int score;
+
+    public WebMetadataSearchItem(String connectionId, String name, String type, String[] path, int score) {
+        this.connectionId = connectionId;
+        this.name = name;
+        this.type = type;
+        this.path = path;
+        this.score = score;
+    }
+
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Names of containers (catalog, schema, table) of the object
+     */
+    public String[] getPath() {
+        return path.clone();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return connectionId + ":" + String.join(".", path) + (path.length == 0 ? "" : ".") + name;
+    }
+}
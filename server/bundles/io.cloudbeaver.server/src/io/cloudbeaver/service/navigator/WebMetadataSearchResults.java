@@ -0,0 +1,44 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import java.util.List;
+
+/**
+ * Metadata search results
+ */
+public class WebMetadataSearchResults {
+
+    private final List<WebMetadataSearchItem> items;
+    private final List<String> pendingConnections;
+
+    public WebMetadataSearchResults(List<WebMetadataSearchItem> items, List<String> pendingConnections) {
+        this.items = items;
+        this.pendingConnections = pendingConnections;
+    }
+
+    public List<WebMetadataSearchItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Connections which are not indexed yet. Search should be repeated later to get their objects.
+     */
+    public List<String> getPendingConnections() {
+        return pendingConnections;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+/**
+ * Children of one node of navigator tree
+ */
+public class WebNavigatorNodeBranch {
+
+    private final String parentPath;
+    private final int level;
+    private final WebNavigatorNodeChildren children;
+
+    public WebNavigatorNodeBranch(String parentPath, int level, WebNavigatorNodeChildren children) {
+        this.parentPath = parentPath;
+        this.level = level;
+        this.children = children;
+    }
+
+    public String getParentPath() {
+        return parentPath;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public WebNavigatorNodeChildren getChildren() {
+        return children;
+    }
+
+}
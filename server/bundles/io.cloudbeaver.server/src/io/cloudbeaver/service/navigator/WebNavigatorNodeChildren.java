@@ -0,0 +1,48 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import java.util.List;
+
+/**
+ * Page of navigator node children
+ */
+public class WebNavigatorNodeChildren {
+
+    private final List<WebNavigatorNodeInfo> nodes;
+    private final int totalCount;
+    private final boolean hasMore;
+
+    public WebNavigatorNodeChildren(List<WebNavigatorNodeInfo> nodes, int totalCount, boolean hasMore) {
+        this.nodes = nodes;
+        this.totalCount = totalCount;
+        this.hasMore = hasMore;
+    }
+
+    public List<WebNavigatorNodeInfo> getNodes() {
+        return nodes;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+}
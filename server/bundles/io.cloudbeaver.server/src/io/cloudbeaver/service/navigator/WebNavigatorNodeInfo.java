@@ -38,14 +38,32 @@ import java.util.List;
  */
 public class WebNavigatorNodeInfo {
     private final WebSession session;
-    private final DBNNode node;
+    private DBNNode node;
+    // Info shared between sessions. If set then node is resolved on demand
+    private final WebNavigatorNodeSnapshot snapshot;
 
     public WebNavigatorNodeInfo(WebSession session, DBNNode node) {
         this.session = session;
         this.node = node;
+        this.snapshot = null;
     }
 
-    public DBNNode getNode() {
+    public WebNavigatorNodeInfo(WebSession session, WebNavigatorNodeSnapshot snapshot) {
+        this.session = session;
+        this.snapshot = snapshot;
+    }
+
+    public DBNNode getNode() throws DBWebException {
+        if (node == null) {
+            try {
+                node = session.getNavigatorNode(session.getProgressMonitor(), snapshot.getId());
+            } catch (DBException e) {
+                throw new DBWebException("Error resolving navigator node '" + snapshot.getId() + "'", e);
+            }
+            if (node == null) {
+                throw new DBWebException("Navigator node '" + snapshot.getId() + "' not found");
+            }
+        }
         return node;
     }
 
@@ -55,41 +73,65 @@ public class WebNavigatorNodeInfo {
 
     @Property
     public String getId() {
+        if (snapshot != null) {
+            return snapshot.getId();
+        }
         return node.getNodeItemPath();
     }
 
     @Property
     public String getName() {
+        if (snapshot != null) {
+            return snapshot.getName();
+        }
         return node.getLocalizedName(session.getLocale());
     }
 
     @Property
     public String getIcon() {
+        if (snapshot != null) {
+            return snapshot.getIcon();
+        }
         return node.getNodeIconDefault().getLocation();
     }
 
     @Property
     public String getDescription() {
+        if (snapshot != null) {
+            return snapshot.getDescription();
+        }
         return node.getNodeDescription();
     }
 
     @Property
     public String getNodeType() {
+        if (snapshot != null) {
+            return snapshot.getNodeType();
+        }
         return node.getNodeType();
     }
 
     @Property
     public boolean isFolder() {
+        if (snapshot != null) {
+            return snapshot.isFolder();
+        }
         return node instanceof DBNContainer && !(node instanceof DBNDataSource);
     }
 
     @Property
     public boolean isInline() {
+        if (snapshot != null) {
+            return snapshot.isInline();
+        }
         return node instanceof DBNDatabaseNode && ((DBNDatabaseNode) node).getMeta().isInline();
     }
 
     @Property
     public boolean isNavigable() {
+        if (snapshot != null) {
+            return snapshot.isNavigable();
+        }
         if (node instanceof DBNDatabaseNode) {
             DBNDatabaseNode databaseNode = (DBNDatabaseNode) this.node;
             if (!databaseNode.getMeta().isNavigable()) {
@@ -101,11 +143,17 @@ public class WebNavigatorNodeInfo {
 
     @Property
     public boolean isHasChildren() {
+        if (snapshot != null) {
+            return snapshot.isHasChildren();
+        }
         return node.hasChildren(true);
     }
 
     @Association
     public String[] getFeatures() {
+        if (snapshot != null) {
+            return snapshot.getFeatures();
+        }
         List<String> features = new ArrayList<>();
         if (node instanceof DBNDatabaseItem) {
             features.add("item");
@@ -127,6 +175,7 @@ public class WebNavigatorNodeInfo {
 
     @Property
     public WebPropertyInfo[] getNodeDetails() throws DBWebException {
+        DBNNode node = getNode();
         if (node instanceof DBPObjectWithDetails) {
             try {
                 DBPObject objectDetails = ((DBPObjectWithDetails) node).getObjectDetails(session.getProgressMonitor(), session.getSessionContext(), node);
@@ -145,7 +194,8 @@ public class WebNavigatorNodeInfo {
     ///////////////////////////////////
 
     @Property
-    public WebDatabaseObjectInfo getObject() {
+    public WebDatabaseObjectInfo getObject() throws DBWebException {
+        DBNNode node = getNode();
         if (node instanceof DBNDatabaseNode) {
             return new WebDatabaseObjectInfo(session, ((DBNDatabaseNode) node).getObject());
         }
@@ -154,6 +204,6 @@ public class WebNavigatorNodeInfo {
 
     @Override
     public String toString() {
-        return node.getNodeItemPath();
+        return getId();
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator;
+
+import io.cloudbeaver.model.WebMetadataCache;
+import org.jkiss.utils.ArrayUtils;
+
+/**
+ * Immutable copy of navigator node info.
+ * Doesn't reference session or node so it may be shared between sessions.
+ */
+public class WebNavigatorNodeSnapshot {
+
+    private final String id;
+    private final String name;
+    private final String icon;
+    private final String description;
+    private final String nodeType;
+    private final boolean folder;
+    private final boolean inline;
+    private final boolean navigable;
+    private final boolean hasChildren;
+    private final String[] features;
+
+    public WebNavigatorNodeSnapshot(WebNavigatorNodeInfo nodeInfo) {
+        this.id = nodeInfo.getId();
+        this.name = nodeInfo.getName();
+        this.icon = nodeInfo.getIcon();
+        this.description = nodeInfo.getDescription();
+        this.nodeType = nodeInfo.getNodeType();
+        this.folder = nodeInfo.isFolder();
+        this.inline = nodeInfo.isInline();
+        this.navigable = nodeInfo.isNavigable();
+        this.hasChildren = nodeInfo.isHasChildren();
+        this.features = nodeInfo.getFeatures();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getIcon() {
+        return icon;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getNodeType() {
+        return nodeType;
+    }
+
+    public boolean isFolder() {
+        return folder;
+    }
+
+    public boolean isInline() {
+        return inline;
+    }
+
+    public boolean isNavigable() {
+        return navigable;
+    }
+
+    public boolean isHasChildren() {
+        return hasChildren;
+    }
+
+    public String[] getFeatures() {
+        return features.clone();
+    }
+
+    public boolean hasFeature(String feature) {
+        return ArrayUtils.contains(features, feature);
+    }
+
+    public long getEstimatedSize() {
+        return 48 +
+            WebMetadataCache.estimateSize(id) +
+            WebMetadataCache.estimateSize(name) +
+            WebMetadataCache.estimateSize(icon) +
+            WebMetadataCache.estimateSize(description) +
+            WebMetadataCache.estimateSize(nodeType) +
+            WebMetadataCache.estimateSize(features);
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
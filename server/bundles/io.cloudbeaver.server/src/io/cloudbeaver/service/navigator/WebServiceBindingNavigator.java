@@ -41,6 +41,21 @@ public class WebServiceBindingNavigator extends WebServiceBindingBase<DBWService
                 env.getArgument("parentPath"),
                 env.getArgument("offset"),
                 env.getArgument("limit"),
+                env.getArgument("onlyFolders"),
+                env.getArgument("namePrefix")))
+            .dataFetcher("navNodeChildrenPage", env -> getService(env).getNavigatorNodeChildrenPage(
+                getWebSession(env),
+                env.getArgument("parentPath"),
+                env.getArgument("offset"),
+                env.getArgument("limit"),
+                env.getArgument("onlyFolders"),
+                env.getArgument("namePrefix")))
+            .dataFetcher("navNodeTree", env -> getService(env).getNavigatorNodeTree(
+                getWebSession(env),
+                env.getArgument("parentPath"),
+                env.getArgument("depth"),
+                env.getArgument("limit"),
+                env.getArgument("levelLimits"),
                 env.getArgument("onlyFolders")))
             .dataFetcher("navNodeInfo", env -> getService(env).getNavigatorNodeInfo(
                 getWebSession(env),
@@ -52,6 +67,14 @@ public class WebServiceBindingNavigator extends WebServiceBindingBase<DBWService
             .dataFetcher("navGetStructContainers", env -> getService(env).getStructContainers(
                 getWebConnection(env),
                 env.getArgument("catalog")
+            ))
+            .dataFetcher("navSearchObjects", env -> getService(env).searchObjects(
+                getWebSession(env),
+                env.getArgument("query"),
+                env.getArgument("fuzzy"),
+                env.getArgument("objectTypes"),
+                env.getArgument("connectionIds"),
+                env.getArgument("limit")
             ));
 
         model.getRuntimeWiring().type(TypeRuntimeWiring.newTypeWiring("DatabaseObjectInfo")
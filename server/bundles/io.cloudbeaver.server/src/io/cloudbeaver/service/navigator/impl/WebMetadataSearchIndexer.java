@@ -0,0 +1,269 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.navigator.impl;
+
+import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.WebMetadataCache;
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBPlatform;
+import io.cloudbeaver.service.navigator.WebMetadataSearchIndex;
+import io.cloudbeaver.service.navigator.WebMetadataSearchItem;
+import io.cloudbeaver.service.navigator.WebMetadataSearchResults;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.struct.DBSObject;
+import org.jkiss.utils.CommonUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds and queries metadata search indexes of session connections.
+ * <p>
+ * Indexes are built in background jobs. Connections which are not indexed yet are reported
+ * as pending in search results. If metadata cache is enabled then index is shared between
+ * sessions through the cache, otherwise it is kept in session attributes.
+ * Updates of one index are applied one by one by a single job, so each update starts from the result of the previous one.
+ */
+class WebMetadataSearchIndexer {
+
+    private static final Log log = Log.getLog(WebMetadataSearchIndexer.class);
+
+    private static final String ATTR_SEARCH_INDEXES = "navigatorSearchIndexes";
+    private static final String SEARCH_INDEX_KEY = "";
+
+    private static final String UPDATE_JOB_SUFFIX = ":update";
+
+    // Index build/update jobs which are scheduled or running
+    private final Set<String> pendingJobs = ConcurrentHashMap.newKeySet();
+    // Refreshed objects waiting for index update, by job key. Guarded by itself
+    private final Map<String, Map<DBSObject, PendingUpdate>> pendingUpdates = new HashMap<>();
+
+    private static class SessionIndex {
+        final WebMetadataSearchIndex index;
+        final String connectTime;
+
+        SessionIndex(WebMetadataSearchIndex index, String connectTime) {
+            this.index = index;
+            this.connectTime = connectTime;
+        }
+    }
+
+    private static class PendingUpdate {
+        final WebSession session;
+        final WebConnectionInfo connectionInfo;
+        final DBSObject object;
+
+        PendingUpdate(WebSession session, WebConnectionInfo connectionInfo, DBSObject object) {
+            this.session = session;
+            this.connectionInfo = connectionInfo;
+            this.object = object;
+        }
+    }
+
+    @NotNull
+    WebMetadataSearchResults search(
+        @NotNull WebSession session,
+        @NotNull String query,
+        boolean fuzzy,
+        @Nullable Collection<String> objectTypes,
+        @Nullable Collection<String> connectionIds,
+        int maxResults)
+    {
+        List<WebMetadataSearchItem> items = new ArrayList<>();
+        List<String> pendingConnections = new ArrayList<>();
+        for (WebConnectionInfo connectionInfo : session.getConnections()) {
+            if (!connectionInfo.isConnected() || (connectionIds != null && !connectionIds.contains(connectionInfo.getId()))) {
+                continue;
+            }
+            WebMetadataSearchIndex index = getIndex(session, connectionInfo);
+            if (index == null) {
+                scheduleBuild(session, connectionInfo);
+                pendingConnections.add(connectionInfo.getId());
+                continue;
+            }
+            items.addAll(index.search(connectionInfo.getId(), query, fuzzy, objectTypes, maxResults));
+        }
+        items.sort(WebMetadataSearchItem.SCORE_ORDER);
+        if (items.size() > maxResults) {
+            items = new ArrayList<>(items.subList(0, maxResults));
+        }
+        return new WebMetadataSearchResults(items, pendingConnections);
+    }
+
+    /**
+     * Re-indexes container of the refreshed object. Does nothing if connection is not indexed yet.
+     */
+    void updateIndex(@NotNull WebSession session, @NotNull WebConnectionInfo connectionInfo, @NotNull DBSObject object) {
+        if (getIndex(session, connectionInfo) == null) {
+            return;
+        }
+        String jobKey = makeJobKey(session, connectionInfo) + UPDATE_JOB_SUFFIX;
+        synchronized (pendingUpdates) {
+            pendingUpdates.computeIfAbsent(jobKey, k -> new LinkedHashMap<>())
+                .put(object, new PendingUpdate(session, connectionInfo, object));
+            if (!pendingJobs.add(jobKey)) {
+                // Running job will pick it up
+                return;
+            }
+        }
+        new IndexJob("Update metadata search index of " + connectionInfo.getName(), jobKey) {
+            private boolean drained;
+
+            @Override
+            void updateIndex(DBRProgressMonitor monitor) throws DBException {
+                for (;;) {
+                    PendingUpdate update;
+                    synchronized (pendingUpdates) {
+                        Map<DBSObject, PendingUpdate> updates = pendingUpdates.get(jobKey);
+                        if (updates == null || updates.isEmpty()) {
+                            pendingUpdates.remove(jobKey);
+                            pendingJobs.remove(jobKey);
+                            drained = true;
+                            return;
+                        }
+                        Iterator<PendingUpdate> iter = updates.values().iterator();
+                        update = iter.next();
+                        iter.remove();
+                    }
+                    applyUpdate(monitor, update);
+                }
+            }
+
+            @Override
+            void finishJob() {
+                if (drained) {
+                    // Job key may be already taken by the next job
+                    return;
+                }
+                synchronized (pendingUpdates) {
+                    // Failed job drops its updates, the next refresh schedules a new one
+                    pendingUpdates.remove(jobKey);
+                    pendingJobs.remove(jobKey);
+                }
+            }
+        }.schedule();
+    }
+
+    /**
+     * Applies update to the current index, so updates made by previous jobs are not lost.
+     */
+    private void applyUpdate(DBRProgressMonitor monitor, PendingUpdate update) throws DBException {
+        WebMetadataSearchIndex index = getIndex(update.session, update.connectionInfo);
+        if (index == null || !update.connectionInfo.isConnected()) {
+            return;
+        }
+        WebMetadataSearchIndex newIndex = index.updateIndex(monitor, update.object);
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        if (metadataCache != null) {
+            metadataCache.putValue(update.connectionInfo, WebMetadataCache.CATEGORY_SEARCH, SEARCH_INDEX_KEY, newIndex);
+        } else {
+            getSessionIndexes(update.session).put(update.connectionInfo.getId(), new SessionIndex(newIndex, update.connectionInfo.getConnectTime()));
+        }
+    }
+
+    @Nullable
+    private WebMetadataSearchIndex getIndex(WebSession session, WebConnectionInfo connectionInfo) {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        if (metadataCache != null) {
+            metadataCache.attachConnection(connectionInfo);
+            return metadataCache.peekValue(connectionInfo, WebMetadataCache.CATEGORY_SEARCH, SEARCH_INDEX_KEY);
+        }
+        SessionIndex sessionIndex = getSessionIndexes(session).get(connectionInfo.getId());
+        // Index of the previous connect is not valid anymore
+        if (sessionIndex == null || !CommonUtils.equalObjects(sessionIndex.connectTime, connectionInfo.getConnectTime())) {
+            return null;
+        }
+        return sessionIndex.index;
+    }
+
+    private void scheduleBuild(WebSession session, WebConnectionInfo connectionInfo) {
+        String jobKey = makeJobKey(session, connectionInfo);
+        if (!pendingJobs.add(jobKey)) {
+            return;
+        }
+        new IndexJob("Build metadata search index of " + connectionInfo.getName(), jobKey) {
+            @Override
+            void updateIndex(DBRProgressMonitor monitor) throws DBException {
+                DBPDataSource dataSource = connectionInfo.getDataSource();
+                if (dataSource == null) {
+                    return;
+                }
+                WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+                if (metadataCache != null) {
+                    metadataCache.getValue(connectionInfo, WebMetadataCache.CATEGORY_SEARCH, SEARCH_INDEX_KEY,
+                        () -> WebMetadataSearchIndex.build(monitor, dataSource));
+                } else {
+                    String connectTime = connectionInfo.getConnectTime();
+                    WebMetadataSearchIndex index = WebMetadataSearchIndex.build(monitor, dataSource);
+                    getSessionIndexes(session).put(connectionInfo.getId(), new SessionIndex(index, connectTime));
+                }
+            }
+        }.schedule();
+    }
+
+    /**
+     * Index built through the metadata cache is shared, so one job per data source identity is enough
+     */
+    private static String makeJobKey(WebSession session, WebConnectionInfo connectionInfo) {
+        String identity = connectionInfo.getMetadataCacheIdentity();
+        return identity != null ? identity : session.getSessionId() + ":" + connectionInfo.getId();
+    }
+
+    private static Map<String, SessionIndex> getSessionIndexes(WebSession session) {
+        return session.getAttribute(ATTR_SEARCH_INDEXES, x -> new ConcurrentHashMap<>(), null);
+    }
+
+    private abstract class IndexJob extends AbstractJob {
+        private final String jobKey;
+
+        IndexJob(String name, String jobKey) {
+            super(name);
+            setUser(false);
+            setSystem(true);
+            this.jobKey = jobKey;
+        }
+
+        abstract void updateIndex(DBRProgressMonitor monitor) throws DBException;
+
+        void finishJob() {
+            pendingJobs.remove(jobKey);
+        }
+
+        @Override
+        protected IStatus run(DBRProgressMonitor monitor) {
+            long startTime = System.currentTimeMillis();
+            try {
+                updateIndex(monitor);
+                log.debug(getName() + " finished in " + (System.currentTimeMillis() - startTime) + "ms");
+            } catch (Throwable e) {
+                log.error(getName() + " failed", e);
+            } finally {
+                finishJob();
+            }
+            return Status.OK_STATUS;
+        }
+    }
+
+}
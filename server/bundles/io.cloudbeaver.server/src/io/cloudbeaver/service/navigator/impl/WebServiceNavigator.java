@@ -19,23 +19,28 @@ package io.cloudbeaver.service.navigator.impl;
 
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.WebMetadataCache;
 import io.cloudbeaver.model.session.WebSession;
-import io.cloudbeaver.service.navigator.DBWServiceNavigator;
-import io.cloudbeaver.service.navigator.WebDatabaseObjectInfo;
-import io.cloudbeaver.service.navigator.WebNavigatorNodeInfo;
-import io.cloudbeaver.service.navigator.WebStructContainers;
+import io.cloudbeaver.server.CBPlatform;
+import io.cloudbeaver.service.navigator.*;
+import io.cloudbeaver.service.sql.WebSQLCompletionIndex;
 import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPDataSourceContainer;
 import org.jkiss.dbeaver.model.DBUtils;
 import org.jkiss.dbeaver.model.exec.DBCExecutionContext;
 import org.jkiss.dbeaver.model.impl.struct.ContextDefaultObjectsReader;
+import org.jkiss.dbeaver.model.navigator.DBNBrowseSettings;
 import org.jkiss.dbeaver.model.navigator.DBNContainer;
+import org.jkiss.dbeaver.model.navigator.DBNDatabaseNode;
 import org.jkiss.dbeaver.model.navigator.DBNModel;
 import org.jkiss.dbeaver.model.navigator.DBNNode;
 import org.jkiss.dbeaver.model.navigator.DBNProject;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.struct.DBSObject;
+import org.jkiss.dbeaver.model.struct.DBSObjectContainer;
 import org.jkiss.dbeaver.model.struct.rdb.DBSCatalog;
 import org.jkiss.utils.ArrayUtils;
 import org.jkiss.utils.CommonUtils;
@@ -44,18 +49,58 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Web service implementation
  */
 public class WebServiceNavigator implements DBWServiceNavigator {
-    private static final List<WebNavigatorNodeInfo> EMPTY_NODE_LIST = Collections.emptyList();
-
     public static final String ROOT_DATABASES = "databases";
+    private static final String DATABASE_NODE_PATH_PREFIX = "database://";
+    private static final String NODE_CACHE_KEY_DIVIDER = "|";
+    private static final String FEATURE_CONTAINER = "container";
     private static final boolean SHOW_EXTRA_NODES = false;
 
+    private static final int MAX_TREE_DEPTH = 5;
+    // Max number of nodes in the whole tree
+    private static final int MAX_TREE_NODES = 10000;
+    private static final int DEFAULT_SEARCH_RESULTS = 100;
+    private static final int MAX_SEARCH_RESULTS = 1000;
+
+    private final WebMetadataSearchIndexer searchIndexer = new WebMetadataSearchIndexer();
+
+    @Override
+    public List<WebNavigatorNodeInfo> getNavigatorNodeChildren(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders, String namePrefix) throws DBWebException {
+        return getNavigatorNodeChildrenPage(session, parentPath, offset, limit, onlyFolders, namePrefix).getNodes();
+    }
+
     @Override
-    public List<WebNavigatorNodeInfo> getNavigatorNodeChildren(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders) throws DBWebException {
+    public WebNavigatorNodeChildren getNavigatorNodeChildrenPage(WebSession session, String parentPath, Integer offset, Integer limit, Boolean onlyFolders, String namePrefix) throws DBWebException {
+        int firstNode = offset == null ? 0 : offset;
+        int maxNodes = limit == null ? Integer.MAX_VALUE : limit;
+        if (firstNode < 0 || maxNodes < 0) {
+            throw new DBWebException("Bad navigator page offset (" + offset + ") or limit (" + limit + ")");
+        }
+        List<WebNavigatorNodeInfo> children = readNavigatorNodeChildren(session, parentPath, CommonUtils.toBoolean(onlyFolders));
+        if (!CommonUtils.isEmpty(namePrefix)) {
+            String lowerPrefix = namePrefix.toLowerCase(Locale.ENGLISH);
+            children.removeIf(node -> {
+                String nodeName = node.getName();
+                return nodeName == null || !nodeName.toLowerCase(Locale.ENGLISH).startsWith(lowerPrefix);
+            });
+        }
+        // Only nodes of the requested page are passed to the client, so node properties are read for them only
+        int totalCount = children.size();
+        int fromIndex = Math.min(firstNode, totalCount);
+        int toIndex = (int) Math.min((long) fromIndex + maxNodes, totalCount);
+        List<WebNavigatorNodeInfo> page = fromIndex == 0 && toIndex == totalCount ?
+            children :
+            new ArrayList<>(children.subList(fromIndex, toIndex));
+        return new WebNavigatorNodeChildren(page, totalCount, toIndex < totalCount);
+    }
+
+    @NotNull
+    private List<WebNavigatorNodeInfo> readNavigatorNodeChildren(WebSession session, String parentPath, boolean onlyFolders) throws DBWebException {
         try {
             DBRProgressMonitor monitor = session.getProgressMonitor();
 
@@ -73,19 +118,30 @@ public class WebServiceNavigator implements DBWServiceNavigator {
                     }
                 }
             } else {
-                DBNNode parentNode = navigatorModel.getNodeByPath(monitor, parentPath);
-                if (parentNode == null) {
-                    throw new DBWebException("Node '" + parentPath + "' not found");
-                }
-                if (!parentNode.hasChildren(true)) {
-                    return EMPTY_NODE_LIST;
+                WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+                WebConnectionInfo connectionInfo = metadataCache == null ? null : findNodeConnection(session, parentPath);
+                if (connectionInfo != null && connectionInfo.isConnected()) {
+                    // Children of the same node are read once for all sessions
+                    metadataCache.attachConnection(connectionInfo);
+                    NodeChildren children = metadataCache.getValue(
+                        connectionInfo,
+                        WebMetadataCache.CATEGORY_NAVIGATOR,
+                        makeNodeCacheKey(session, connectionInfo, parentPath),
+                        () -> readNodeChildren(session, parentPath));
+                    List<WebNavigatorNodeInfo> result = new ArrayList<>(children.nodes.length);
+                    for (WebNavigatorNodeSnapshot node : children.nodes) {
+                        if (!onlyFolders || node.hasFeature(FEATURE_CONTAINER)) {
+                            result.add(new WebNavigatorNodeInfo(session, node));
+                        }
+                    }
+                    return result;
                 }
-                nodeChildren = parentNode.getChildren(monitor);
+                nodeChildren = getNodeChildren(session, parentPath);
             }
+            List<WebNavigatorNodeInfo> result = new ArrayList<>();
             if (nodeChildren == null) {
-                return EMPTY_NODE_LIST;
+                return result;
             }
-            List<WebNavigatorNodeInfo> result = new ArrayList<>();
             if (isRootPath) {
                 // Add navigator extensions
                 for (DBNNode extraNode : navigatorModel.getRoot().getExtraNodes()) {
@@ -94,7 +150,7 @@ public class WebServiceNavigator implements DBWServiceNavigator {
             }
 
             for (DBNNode node : nodeChildren) {
-                if (!CommonUtils.toBoolean(onlyFolders) || node instanceof DBNContainer) {
+                if (!onlyFolders || node instanceof DBNContainer) {
                     result.add(new WebNavigatorNodeInfo(session, node));
                 }
             }
@@ -104,13 +160,140 @@ public class WebServiceNavigator implements DBWServiceNavigator {
         }
     }
 
+    @Override
+    public List<WebNavigatorNodeBranch> getNavigatorNodeTree(WebSession session, String parentPath, int depth, Integer limit, List<Integer> levelLimits, Boolean onlyFolders) throws DBWebException {
+        if (depth < 1 || depth > MAX_TREE_DEPTH) {
+            throw new DBWebException("Bad navigator tree depth (" + depth + "), must be between 1 and " + MAX_TREE_DEPTH);
+        }
+        List<WebNavigatorNodeBranch> result = new ArrayList<>();
+        List<String> levelPaths = Collections.singletonList(parentPath);
+        // Remaining node budget of the whole tree. It limits pages of branches, so the payload is bounded
+        // even if limit is not specified.
+        int remainingNodes = MAX_TREE_NODES;
+        for (int level = 0; level < depth && !levelPaths.isEmpty() && remainingNodes > 0; level++) {
+            Integer levelLimit = levelLimits != null && level < levelLimits.size() ? levelLimits.get(level) : limit;
+            List<WebNavigatorNodeBranch> branches = readNodeBranches(session, levelPaths, level, levelLimit, remainingNodes, onlyFolders);
+            List<String> nextLevelPaths = new ArrayList<>();
+            for (WebNavigatorNodeBranch branch : branches) {
+                result.add(branch);
+                for (WebNavigatorNodeInfo node : branch.getChildren().getNodes()) {
+                    remainingNodes--;
+                    if (node.isHasChildren() && !isDisconnectedDataSourceNode(session, node.getId())) {
+                        nextLevelPaths.add(node.getId());
+                    }
+                }
+            }
+            levelPaths = nextLevelPaths;
+        }
+        return result;
+    }
+
+    /**
+     * Reads children of all nodes of one tree level. Page of each branch is limited by remaining node budget,
+     * branches which don't fit the budget are not read.
+     * Sibling nodes are read sequentially: they share session navigator model and connection metadata
+     * which are not thread safe.
+     */
+    private List<WebNavigatorNodeBranch> readNodeBranches(WebSession session, List<String> parentPaths, int level, Integer limit, int maxNodes, Boolean onlyFolders) throws DBWebException {
+        List<WebNavigatorNodeBranch> branches = new ArrayList<>(parentPaths.size());
+        for (String parentPath : parentPaths) {
+            if (maxNodes <= 0) {
+                break;
+            }
+            WebNavigatorNodeBranch branch = new WebNavigatorNodeBranch(parentPath, level,
+                getNavigatorNodeChildrenPage(session, parentPath, null, limit == null ? maxNodes : Math.min(limit, maxNodes), onlyFolders, null));
+            maxNodes -= branch.getChildren().getNodes().size();
+            branches.add(branch);
+        }
+        return branches;
+    }
+
+    /**
+     * Tree is not expanded into disconnected connections, so reading the tree never opens new connections.
+     */
+    private static boolean isDisconnectedDataSourceNode(WebSession session, String nodePath) {
+        if (!nodePath.startsWith(DATABASE_NODE_PATH_PREFIX) || nodePath.indexOf('/', DATABASE_NODE_PATH_PREFIX.length()) != -1) {
+            return false;
+        }
+        WebConnectionInfo connectionInfo = findNodeConnection(session, nodePath);
+        return connectionInfo != null && !connectionInfo.isConnected();
+    }
+
+    @Nullable
+    private static DBNNode[] getNodeChildren(WebSession session, String parentPath) throws DBException {
+        DBRProgressMonitor monitor = session.getProgressMonitor();
+        DBNNode parentNode = session.getNavigatorNode(monitor, parentPath);
+        if (parentNode == null) {
+            throw new DBWebException("Node '" + parentPath + "' not found");
+        }
+        if (!parentNode.hasChildren(true)) {
+            return null;
+        }
+        return parentNode.getChildren(monitor);
+    }
+
+    @NotNull
+    private static NodeChildren readNodeChildren(WebSession session, String parentPath) throws DBException {
+        DBNNode[] nodeChildren = getNodeChildren(session, parentPath);
+        if (nodeChildren == null) {
+            return new NodeChildren(new WebNavigatorNodeSnapshot[0]);
+        }
+        WebNavigatorNodeSnapshot[] nodes = new WebNavigatorNodeSnapshot[nodeChildren.length];
+        for (int i = 0; i < nodeChildren.length; i++) {
+            nodes[i] = new WebNavigatorNodeSnapshot(new WebNavigatorNodeInfo(session, nodeChildren[i]));
+        }
+        return new NodeChildren(nodes);
+    }
+
+    /**
+     * Finds connection of database node. Returns null for non-database nodes.
+     */
+    @Nullable
+    private static WebConnectionInfo findNodeConnection(WebSession session, String nodePath) {
+        if (!nodePath.startsWith(DATABASE_NODE_PATH_PREFIX)) {
+            return null;
+        }
+        int divPos = nodePath.indexOf('/', DATABASE_NODE_PATH_PREFIX.length());
+        String connectionId = divPos == -1 ?
+            nodePath.substring(DATABASE_NODE_PATH_PREFIX.length()) :
+            nodePath.substring(DATABASE_NODE_PATH_PREFIX.length(), divPos);
+        return session.findWebConnectionInfo(connectionId);
+    }
+
+    /**
+     * Node children depend on session locale and connection navigator settings, so they are part of the key.
+     * Key starts with node path to allow invalidation of all node descendants.
+     */
+    private static String makeNodeCacheKey(WebSession session, WebConnectionInfo connectionInfo, String nodePath) {
+        return nodePath + NODE_CACHE_KEY_DIVIDER + makeSettingsKey(session, connectionInfo);
+    }
+
+    /**
+     * Struct containers are filtered by navigator settings (system objects), so settings are part of the key.
+     * Key starts with catalog name to allow invalidation of catalog containers.
+     */
+    private static String makeStructCacheKey(WebSession session, WebConnectionInfo connectionInfo, String catalogName) {
+        return CommonUtils.notEmpty(catalogName) + NODE_CACHE_KEY_DIVIDER + makeSettingsKey(session, connectionInfo);
+    }
+
+    private static String makeSettingsKey(WebSession session, WebConnectionInfo connectionInfo) {
+        DBNBrowseSettings settings = connectionInfo.getDataSourceContainer().getNavigatorSettings();
+        return session.getLocale() + ":" +
+            (settings.isShowSystemObjects() ? 1 : 0) +
+            (settings.isShowUtilityObjects() ? 1 : 0) +
+            (settings.isShowOnlyEntities() ? 1 : 0) +
+            (settings.isMergeEntities() ? 1 : 0) +
+            (settings.isHideFolders() ? 1 : 0) +
+            (settings.isHideSchemas() ? 1 : 0);
+    }
+
     @Override
     @NotNull
     public WebNavigatorNodeInfo getNavigatorNodeInfo(WebSession session, String nodePath) throws DBWebException {
         try {
             DBRProgressMonitor monitor = session.getProgressMonitor();
 
-            DBNNode node = session.getNavigatorModel().getNodeByPath(monitor, nodePath);
+            DBNNode node = session.getNavigatorNode(monitor, nodePath);
             if (node == null) {
                 throw new DBWebException("Navigator node '"  + nodePath + "' not found");
             }
@@ -125,20 +308,112 @@ public class WebServiceNavigator implements DBWServiceNavigator {
         try {
             DBRProgressMonitor monitor = session.getProgressMonitor();
 
-            DBNNode node = session.getNavigatorModel().getNodeByPath(monitor, nodePath);
+            DBNNode node = session.getNavigatorNode(monitor, nodePath);
             if (node == null) {
                 throw new DBWebException("Navigator node '"  + nodePath + "' not found");
             }
             node.refreshNode(monitor, this);
+            invalidateMetadataCache(session, nodePath, node);
+            if (node instanceof DBNDatabaseNode) {
+                WebConnectionInfo connectionInfo = findNodeConnection(session, nodePath);
+                if (connectionInfo != null) {
+                    searchIndexer.updateIndex(session, connectionInfo, ((DBNDatabaseNode) node).getObject());
+                }
+            }
             return true;
         } catch (DBException e) {
             throw new DBWebException("Error refreshing navigator node '"  + nodePath + "'", e);
         }
     }
 
+    private static void invalidateMetadataCache(WebSession session, String nodePath, DBNNode node) {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        WebConnectionInfo connectionInfo = metadataCache == null ? null : findNodeConnection(session, nodePath);
+        if (connectionInfo == null) {
+            return;
+        }
+        // Node itself and all its descendants
+        metadataCache.invalidate(connectionInfo, WebMetadataCache.CATEGORY_NAVIGATOR, nodePath + NODE_CACHE_KEY_DIVIDER);
+        metadataCache.invalidate(connectionInfo, WebMetadataCache.CATEGORY_NAVIGATOR, nodePath + "/");
+
+        DBSObject object = node instanceof DBNDatabaseNode ? ((DBNDatabaseNode) node).getObject() : null;
+        WebSQLCompletionIndex.invalidateSharedPartitions(connectionInfo, object);
+        // Struct containers are catalogs and schemas. They change only if data source or catalog is refreshed
+        DBSObject owner = object;
+        while (owner != null && !(owner instanceof DBPDataSource) && !(owner instanceof DBPDataSourceContainer) && !(owner instanceof DBSObjectContainer)) {
+            // Folder
+            owner = owner.getParentObject();
+        }
+        if (owner == null || owner instanceof DBPDataSource || owner instanceof DBPDataSourceContainer) {
+            metadataCache.invalidate(connectionInfo, WebMetadataCache.CATEGORY_STRUCT, null);
+        } else if (owner instanceof DBSCatalog) {
+            metadataCache.invalidate(connectionInfo, WebMetadataCache.CATEGORY_STRUCT, owner.getName() + NODE_CACHE_KEY_DIVIDER);
+        }
+    }
+
     @Override
     public WebStructContainers getStructContainers(WebConnectionInfo connection, String catalog) throws DBWebException {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        if (metadataCache == null || !connection.isConnected()) {
+            WebStructContainers structContainers = new WebStructContainers();
+            for (DBSObject object : readStructContainers(connection)) {
+                List<WebDatabaseObjectInfo> objectInfos = object instanceof DBSCatalog ? structContainers.getCatalogList() : structContainers.getSchemaList();
+                objectInfos.add(new WebDatabaseObjectInfo(connection.getSession(), object));
+            }
+            return structContainers;
+        }
+        metadataCache.attachConnection(connection);
+        StructContainers containers;
+        try {
+            containers = metadataCache.getValue(
+                connection,
+                WebMetadataCache.CATEGORY_STRUCT,
+                makeStructCacheKey(connection.getSession(), connection, catalog),
+                () -> new StructContainers(connection.getSession(), readStructContainers(connection)));
+        } catch (DBException e) {
+            throw new DBWebException("Error reading struct containers", e);
+        }
+        WebSession session = connection.getSession();
+        WebStructContainers structContainers = new WebStructContainers();
+        for (WebDatabaseObjectSnapshot catalogInfo : containers.catalogs) {
+            structContainers.getCatalogList().add(new WebDatabaseObjectInfo(session, catalogInfo,
+                () -> findStructContainer(connection, null, catalogInfo.getName())));
+        }
+        for (int i = 0; i < containers.schemas.length; i++) {
+            WebDatabaseObjectSnapshot schemaInfo = containers.schemas[i];
+            String parentName = containers.schemaParents[i];
+            structContainers.getSchemaList().add(new WebDatabaseObjectInfo(session, schemaInfo,
+                () -> findStructContainer(connection, parentName, schemaInfo.getName())));
+        }
+        return structContainers;
+    }
+
+    @Override
+    public WebMetadataSearchResults searchObjects(WebSession session, String query, Boolean fuzzy, List<String> objectTypes, List<String> connectionIds, Integer limit) throws DBWebException {
+        if (CommonUtils.isEmpty(query)) {
+            throw new DBWebException("Empty search query");
+        }
+        int maxResults = limit == null ? DEFAULT_SEARCH_RESULTS : limit;
+        if (maxResults <= 0 || maxResults > MAX_SEARCH_RESULTS) {
+            throw new DBWebException("Bad search results limit (" + limit + "), must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        return searchIndexer.search(session, query, CommonUtils.toBoolean(fuzzy), objectTypes, connectionIds, maxResults);
+    }
+
+    @Nullable
+    private static DBSObject findStructContainer(WebConnectionInfo connection, @Nullable String parentName, String name) throws DBException {
+        DBRProgressMonitor monitor = connection.getSession().getProgressMonitor();
+        DBPDataSource dataSource = connection.getDataSource();
+        DBSObjectContainer container = dataSource instanceof DBSObjectContainer ? (DBSObjectContainer) dataSource : null;
+        if (container != null && parentName != null) {
+            DBSObject parent = container.getChild(monitor, parentName);
+            container = parent instanceof DBSObjectContainer ? (DBSObjectContainer) parent : null;
+        }
+        return container == null ? null : container.getChild(monitor, name);
+    }
 
+    @NotNull
+    private static List<DBSObject> readStructContainers(WebConnectionInfo connection) throws DBWebException {
         DBPDataSource dataSource = connection.getDataSource();
         DBCExecutionContext executionContext = DBUtils.getDefaultContext(connection.getDataSource(), false);
 
@@ -151,17 +426,72 @@ public class WebServiceNavigator implements DBWServiceNavigator {
         } catch (InterruptedException e) {
             // ignore
         }
-        WebStructContainers structContainers = new WebStructContainers();
+        List<DBSObject> objects = new ArrayList<>();
         if (!CommonUtils.isEmpty(reader.getObjectList())) {
             for (DBSObject node : reader.getObjectList()) {
                 if (!dataSource.getContainer().getNavigatorSettings().isShowSystemObjects() && DBUtils.isSystemObject(node)) {
                     continue;
                 }
-                List<WebDatabaseObjectInfo> objectInfos = node instanceof DBSCatalog ? structContainers.getCatalogList() : structContainers.getSchemaList();
-                objectInfos.add(new WebDatabaseObjectInfo(connection.getSession(), node));
+                objects.add(node);
             }
         }
-        return structContainers;
+        return objects;
+    }
+
+    private static class NodeChildren implements WebMetadataCache.CachedValue {
+        private final WebNavigatorNodeSnapshot[] nodes;
+        private final long estimatedSize;
+
+        NodeChildren(WebNavigatorNodeSnapshot[] nodes) {
+            this.nodes = nodes;
+            long size = 16 + nodes.length * 8L;
+            for (WebNavigatorNodeSnapshot node : nodes) {
+                size += node.getEstimatedSize();
+            }
+            this.estimatedSize = size;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
+    }
+
+    private static class StructContainers implements WebMetadataCache.CachedValue {
+        private final WebDatabaseObjectSnapshot[] catalogs;
+        private final WebDatabaseObjectSnapshot[] schemas;
+        // Schema catalog names. Used to find schemas in session data source
+        private final String[] schemaParents;
+        private final long estimatedSize;
+
+        StructContainers(WebSession session, List<DBSObject> objects) {
+            List<WebDatabaseObjectSnapshot> catalogList = new ArrayList<>();
+            List<WebDatabaseObjectSnapshot> schemaList = new ArrayList<>();
+            List<String> schemaParentList = new ArrayList<>();
+            long size = 64;
+            for (DBSObject object : objects) {
+                WebDatabaseObjectSnapshot objectInfo = new WebDatabaseObjectSnapshot(new WebDatabaseObjectInfo(session, object));
+                if (object instanceof DBSCatalog) {
+                    catalogList.add(objectInfo);
+                    size += 8 + objectInfo.getEstimatedSize();
+                } else {
+                    DBSObject parentObject = object.getParentObject();
+                    String parentName = parentObject instanceof DBSCatalog ? parentObject.getName() : null;
+                    schemaList.add(objectInfo);
+                    schemaParentList.add(parentName);
+                    size += 16 + objectInfo.getEstimatedSize() + WebMetadataCache.estimateSize(parentName);
+                }
+            }
+            this.catalogs = catalogList.toArray(new WebDatabaseObjectSnapshot[0]);
+            this.schemas = schemaList.toArray(new WebDatabaseObjectSnapshot[0]);
+            this.schemaParents = schemaParentList.toArray(new String[0]);
+            this.estimatedSize = size;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return estimatedSize;
+        }
     }
 
 }
@@ -50,7 +50,10 @@ public interface DBWServiceSQL extends DBWService {
 
     @WebAction
     @NotNull
-    WebSQLExecuteInfo executeQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBWebException;
+    WebSQLExecuteInfo executeQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable List<Object> parameters, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBWebException;
+
+    @WebAction
+    WebSQLExecuteInfo fetchNextPage(@NotNull WebSQLContextInfo contextInfo, @NotNull String resultsId, @Nullable Integer limit, @Nullable WebDataFormat dataFormat) throws DBWebException;
 
     @WebAction
     Boolean closeResult(@NotNull WebSQLContextInfo sqlContext, @NotNull String resultId) throws DBWebException;
@@ -74,7 +77,7 @@ public interface DBWServiceSQL extends DBWService {
         @Nullable List<WebSQLResultsRow> addedRows, WebDataFormat dataFormat) throws DBWebException;
 
     @WebAction
-    WebAsyncTaskInfo asyncExecuteQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBException;
+    WebAsyncTaskInfo asyncExecuteQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable List<Object> parameters, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBException;
 
     @WebAction
     WebSQLExecuteInfo asyncGetQueryResults(@NotNull WebSession webSession, @NotNull String taskId) throws DBWebException;
@@ -22,5 +22,7 @@ package io.cloudbeaver.service.sql;
 public enum WebDataFormat {
     resultset,
     document,
-    timeseries
+    timeseries,
+    // Binary columnar format. Served only by results servlet
+    columnar
 }
@@ -0,0 +1,73 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.WebServiceUtils;
+import io.cloudbeaver.model.session.WebSession;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDValue;
+import org.jkiss.dbeaver.model.data.DBDValueHandler;
+import org.jkiss.dbeaver.model.exec.DBCException;
+
+import java.util.Date;
+
+/**
+ * Converts cell values of one result set column into web values.
+ * Converter is resolved once per column by the column value type, so the common cases
+ * (numbers, strings, dates) skip the generic value type checks of {@link WebSQLUtils#makeWebCellValue}.
+ */
+@FunctionalInterface
+interface WebSQLCellConverter {
+
+    @Nullable
+    Object convertValue(@Nullable Object cellValue) throws DBCException;
+
+    @NotNull
+    static WebSQLCellConverter[] createConverters(@NotNull WebSession webSession, @NotNull DBDAttributeBinding[] bindings, @Nullable WebDataFormat dataFormat) {
+        WebSQLCellConverter[] converters = new WebSQLCellConverter[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            converters[i] = createConverter(webSession, bindings[i], dataFormat);
+        }
+        return converters;
+    }
+
+    @NotNull
+    static WebSQLCellConverter createConverter(@NotNull WebSession webSession, @NotNull DBDAttributeBinding binding, @Nullable WebDataFormat dataFormat) {
+        WebSQLCellConverter genericConverter = value -> WebSQLUtils.makeWebCellValue(webSession, binding, value, dataFormat);
+
+        DBDValueHandler valueHandler = binding.getValueHandler();
+        Class<?> valueType = valueHandler == null ? null : valueHandler.getValueObjectType(binding);
+        if (valueType == null) {
+            return genericConverter;
+        }
+        if (Date.class.isAssignableFrom(valueType)) {
+            return value -> value instanceof Date ?
+                WebServiceUtils.formatISODate((Date) value) :
+                genericConverter.convertValue(value);
+        }
+        if (Number.class.isAssignableFrom(valueType) || valueType == String.class || valueType == Boolean.class) {
+            // Plain values are passed as is. Fetch errors are still handled by generic converter
+            return value -> value instanceof DBDValue ?
+                genericConverter.convertValue(value) :
+                value;
+        }
+        return genericConverter;
+    }
+
+}
@@ -0,0 +1,305 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.cloudbeaver.model.session.WebSession;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeBindingMeta;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
+import org.jkiss.dbeaver.model.data.DBDValueHandler;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.data.DBDValueError;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.model.struct.DBSEntity;
+import org.jkiss.utils.CommonUtils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Data receiver which collects rows into column vectors and writes them in binary columnar format.
+ * <p>
+ * Format (all numbers are big-endian):
+ * <pre>
+ *   header:  "CBRC" magic, version (byte), flags (byte, 1 = has more data), column count (int), row count (int)
+ *   columns: name (UTF), label (UTF), type name (UTF), data kind (UTF), vector type (byte)
+ *   vectors: for each column null bitmap (ceil(rowCount / 8) bytes, bit set means null) followed by values:
+ *            BOOLEAN - bitmap of values, INT64 - 8 bytes per row, FLOAT64 - 8 bytes per row,
+ *            STRING - (rowCount + 1) int offsets followed by UTF-8 data.
+ *            Null cells have zero/empty values.
+ * </pre>
+ * Vector type of column is resolved by attribute data kind and type. Decimal numbers are written as strings
+ * to keep precision. Complex values are written as JSON strings.
+ * If some value of page doesn't fit numeric or boolean vector (e.g. fetch error) then column of this page
+ * is written as string vector, so values are never lost.
+ */
+class WebSQLColumnarDataReceiver implements DBDDataReceiver {
+
+    private static final Log log = Log.getLog(WebSQLColumnarDataReceiver.class);
+
+    private static final Gson gson = new GsonBuilder().create();
+
+    static final byte[] MAGIC = {'C', 'B', 'R', 'C'};
+    static final byte FORMAT_VERSION = 1;
+    static final byte FLAG_HAS_MORE_DATA = 1;
+
+    static final byte VECTOR_BOOLEAN = 1;
+    static final byte VECTOR_INT64 = 2;
+    static final byte VECTOR_FLOAT64 = 3;
+    static final byte VECTOR_STRING = 4;
+
+    private static final Set<String> INTEGER_TYPE_NAMES = new HashSet<>(Arrays.asList(
+        "TINYINT", "SMALLINT", "MEDIUMINT", "INT", "INTEGER", "BIGINT", "INT2", "INT4", "INT8",
+        "SERIAL", "SMALLSERIAL", "BIGSERIAL"));
+    private static final Set<String> FLOAT_TYPE_NAMES = new HashSet<>(Arrays.asList(
+        "REAL", "FLOAT", "FLOAT4", "FLOAT8", "DOUBLE", "DOUBLE PRECISION", "BINARY_FLOAT", "BINARY_DOUBLE"));
+
+    private final WebSession webSession;
+    private final DBSDataContainer dataContainer;
+    private final long maxRows;
+
+    private DBDAttributeBinding[] bindings;
+    private WebSQLCellConverter[] converters;
+    private List<Object>[] columns;
+    private int rowCount;
+    private boolean hasMoreData;
+
+    /**
+     * @param bindings bound attributes of open cursor or null if attributes must be read from result set metadata
+     */
+    WebSQLColumnarDataReceiver(@NotNull WebSession webSession, @NotNull DBSDataContainer dataContainer, @Nullable DBDAttributeBinding[] bindings, long maxRows) {
+        this.webSession = webSession;
+        this.dataContainer = dataContainer;
+        this.bindings = bindings;
+        this.maxRows = maxRows;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    void setHasMoreData(boolean hasMoreData) {
+        this.hasMoreData = hasMoreData;
+    }
+
+    @Override
+    public void fetchStart(DBCSession session, DBCResultSet dbResult, long offset, long maxRows) throws DBCException {
+        if (bindings == null) {
+            List<DBCAttributeMetaData> attributes = dbResult.getMeta().getAttributes();
+            bindings = new DBDAttributeBindingMeta[attributes.size()];
+            for (int i = 0; i < attributes.size(); i++) {
+                bindings[i] = new DBDAttributeBindingMeta(dataContainer, dbResult.getSession(), attributes.get(i));
+            }
+            DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : null;
+            try {
+                DBExecUtils.bindAttributes(session, entity, dbResult, bindings, Collections.emptyList());
+            } catch (DBException e) {
+                log.error("Error binding attributes", e);
+            }
+        }
+        converters = WebSQLCellConverter.createConverters(webSession, bindings, WebDataFormat.columnar);
+        columns = new List[bindings.length];
+        for (int i = 0; i < bindings.length; i++) {
+            columns[i] = new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
+        if (rowCount >= maxRows) {
+            hasMoreData = true;
+            return;
+        }
+        for (int i = 0; i < bindings.length; i++) {
+            DBDAttributeBinding binding = bindings[i];
+            Object cellValue;
+            try {
+                cellValue = binding.getValueHandler().fetchValueObject(
+                    resultSet.getSession(),
+                    resultSet,
+                    binding.getMetaAttribute(),
+                    i);
+            } catch (Throwable e) {
+                cellValue = new DBDValueError(e);
+            }
+            columns[i].add(converters[i].convertValue(cellValue));
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void fetchEnd(DBCSession session, DBCResultSet resultSet) throws DBCException {
+
+    }
+
+    void writeResults(@NotNull DataOutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(hasMoreData ? FLAG_HAS_MORE_DATA : 0);
+        int columnCount = bindings == null ? 0 : bindings.length;
+        out.writeInt(columnCount);
+        out.writeInt(rowCount);
+        if (columnCount == 0) {
+            out.flush();
+            return;
+        }
+
+        byte[] vectorTypes = new byte[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            DBDAttributeBinding binding = bindings[i];
+            vectorTypes[i] = resolveVectorType(binding, columns[i]);
+            out.writeUTF(binding.getName());
+            out.writeUTF(CommonUtils.notEmpty(binding.getLabel()));
+            out.writeUTF(CommonUtils.notEmpty(binding.getTypeName()));
+            out.writeUTF(binding.getDataKind().name());
+            out.writeByte(vectorTypes[i]);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            writeVector(out, columns[i], vectorTypes[i]);
+        }
+        out.flush();
+    }
+
+    private void writeVector(DataOutputStream out, List<Object> values, byte vectorType) throws IOException {
+        byte[] nullBitmap = new byte[(rowCount + 7) / 8];
+        for (int i = 0; i < rowCount; i++) {
+            if (values.get(i) == null) {
+                nullBitmap[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(nullBitmap);
+
+        switch (vectorType) {
+            case VECTOR_BOOLEAN: {
+                byte[] valueBitmap = new byte[nullBitmap.length];
+                for (int i = 0; i < rowCount; i++) {
+                    if (Boolean.TRUE.equals(values.get(i))) {
+                        valueBitmap[i >> 3] |= 1 << (i & 7);
+                    }
+                }
+                out.write(valueBitmap);
+                break;
+            }
+            case VECTOR_INT64:
+                for (Object value : values) {
+                    out.writeLong(value == null ? 0 : ((Number) value).longValue());
+                }
+                break;
+            case VECTOR_FLOAT64:
+                for (Object value : values) {
+                    out.writeDouble(value == null ? 0 : ((Number) value).doubleValue());
+                }
+                break;
+            default: {
+                byte[][] data = new byte[rowCount][];
+                int offset = 0;
+                out.writeInt(offset);
+                for (int i = 0; i < rowCount; i++) {
+                    Object value = values.get(i);
+                    data[i] = value == null ? new byte[0] : toStringValue(value).getBytes(StandardCharsets.UTF_8);
+                    offset += data[i].length;
+                    out.writeInt(offset);
+                }
+                for (byte[] bytes : data) {
+                    out.write(bytes);
+                }
+                break;
+            }
+        }
+    }
+
+    private static byte resolveVectorType(@NotNull DBDAttributeBinding binding, @NotNull List<Object> values) {
+        byte vectorType = getVectorType(binding);
+        if (vectorType != VECTOR_STRING) {
+            for (Object value : values) {
+                if (value != null && !fitsVector(value, vectorType)) {
+                    return VECTOR_STRING;
+                }
+            }
+        }
+        return vectorType;
+    }
+
+    private static boolean fitsVector(@NotNull Object value, byte vectorType) {
+        switch (vectorType) {
+            case VECTOR_BOOLEAN:
+                return value instanceof Boolean;
+            case VECTOR_INT64:
+                return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+            case VECTOR_FLOAT64:
+                return value instanceof Double || value instanceof Float ||
+                    value instanceof Integer || value instanceof Short || value instanceof Byte;
+            default:
+                return true;
+        }
+    }
+
+    private static byte getVectorType(@NotNull DBDAttributeBinding binding) {
+        switch (binding.getDataKind()) {
+            case BOOLEAN:
+                return VECTOR_BOOLEAN;
+            case NUMERIC:
+                break;
+            default:
+                return VECTOR_STRING;
+        }
+        String typeName = CommonUtils.notEmpty(binding.getTypeName()).toUpperCase(Locale.ENGLISH);
+        if (typeName.contains("UNSIGNED") && typeName.contains("BIGINT")) {
+            // Doesn't fit into signed long
+            return VECTOR_STRING;
+        }
+        DBDValueHandler valueHandler = binding.getValueHandler();
+        Class<?> valueType = valueHandler == null ? null : valueHandler.getValueObjectType(binding);
+        if (valueType == Long.class || valueType == Integer.class || valueType == Short.class || valueType == Byte.class) {
+            return VECTOR_INT64;
+        }
+        if (valueType == Double.class || valueType == Float.class) {
+            return VECTOR_FLOAT64;
+        }
+        if (valueType == null || valueType == Number.class || valueType == Object.class) {
+            // Value type is unknown, resolve by type name
+            if (INTEGER_TYPE_NAMES.contains(typeName)) {
+                return VECTOR_INT64;
+            }
+            if (FLOAT_TYPE_NAMES.contains(typeName)) {
+                return VECTOR_FLOAT64;
+            }
+        }
+        // BigDecimal and BigInteger are strings to keep precision
+        return VECTOR_STRING;
+    }
+
+    private static String toStringValue(Object value) {
+        if (value instanceof Map || value instanceof Collection || value instanceof Object[]) {
+            return gson.toJson(value);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,611 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.WebMetadataCache;
+import io.cloudbeaver.server.CBPlatform;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPImage;
+import org.jkiss.dbeaver.model.DBPKeywordType;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.DBValueFormatting;
+import org.jkiss.dbeaver.model.navigator.DBNDatabaseNode;
+import org.jkiss.dbeaver.model.navigator.DBNEvent;
+import org.jkiss.dbeaver.model.navigator.DBNModel;
+import org.jkiss.dbeaver.model.navigator.INavigatorListener;
+import org.jkiss.dbeaver.model.runtime.AbstractJob;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.sql.SQLDialect;
+import org.jkiss.dbeaver.model.sql.SQLUtils;
+import org.jkiss.dbeaver.model.struct.*;
+import org.jkiss.dbeaver.model.struct.rdb.DBSProcedure;
+import org.jkiss.dbeaver.model.struct.rdb.DBSProcedureContainer;
+import org.jkiss.utils.CommonUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL completion index of connection.
+ * <p>
+ * Keeps dialect keywords, functions and data types along with names of catalogs, schemas,
+ * tables and columns in prefix trees. Names are loaded in background jobs, one partition per
+ * container or table, so proposals are looked up without metadata reads. If shared metadata cache is enabled
+ * then partitions are loaded once for all sessions which use the same data source.
+ * Partitions are dropped when corresponding navigator nodes are refreshed and re-loaded on demand.
+ * If index can't answer (names are not loaded yet or the qualifier is unknown) then
+ * null is returned and caller falls back to the full SQL analyzer.
+ */
+public class WebSQLCompletionIndex implements INavigatorListener {
+
+    private static final Log log = Log.getLog(WebSQLCompletionIndex.class);
+
+    // Objects after this limit are not indexed
+    private static final int MAX_PARTITION_OBJECTS = 100000;
+    private static final char PATH_SEPARATOR = '\u0001';
+
+    private static final int SCORE_COLUMN = 400;
+    private static final int SCORE_OBJECT = 300;
+    private static final int SCORE_FUNCTION = 200;
+    private static final int SCORE_KEYWORD = 100;
+
+    // Keywords after which only table names are proposed
+    private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList("FROM", "JOIN", "UPDATE", "INTO", "TABLE"));
+    private static final Pattern TABLE_REFERENCE_PATTERN = Pattern.compile(
+        "\\b(?:from|join|update|into)\\s+([\\w$.\"`]+)(?:\\s+(?:as\\s+)?([\\w$]+))?",
+        Pattern.CASE_INSENSITIVE);
+
+    private enum EntryKind {
+        KEYWORD(DBPKeywordType.KEYWORD, SCORE_KEYWORD),
+        FUNCTION(DBPKeywordType.FUNCTION, SCORE_FUNCTION),
+        TYPE(DBPKeywordType.TYPE, SCORE_KEYWORD),
+        CONTAINER(DBPKeywordType.OTHER, SCORE_OBJECT),
+        OBJECT(DBPKeywordType.OTHER, SCORE_OBJECT),
+        COLUMN(DBPKeywordType.OTHER, SCORE_COLUMN);
+
+        final DBPKeywordType keywordType;
+        final int score;
+
+        EntryKind(DBPKeywordType keywordType, int score) {
+            this.keywordType = keywordType;
+            this.score = score;
+        }
+    }
+
+    private static class IndexEntry {
+        final String name;
+        final EntryKind kind;
+        final String icon;
+
+        IndexEntry(String name, EntryKind kind, String icon) {
+            this.name = name;
+            this.kind = kind;
+            this.icon = icon;
+        }
+    }
+
+    /**
+     * Partition shared between sessions in metadata cache
+     */
+    private static class SharedPartition implements WebMetadataCache.CachedValue {
+        final WebSQLCompletionTrie<IndexEntry> names;
+
+        SharedPartition(@Nullable WebSQLCompletionTrie<IndexEntry> names) {
+            this.names = names;
+        }
+
+        @Override
+        public long getEstimatedSize() {
+            return names == null ? 16 : names.getEstimatedSize();
+        }
+    }
+
+    private static class ResolvedName {
+        final List<String> path;
+        final EntryKind kind;
+
+        ResolvedName(List<String> path, EntryKind kind) {
+            this.path = path;
+            this.kind = kind;
+        }
+    }
+
+    private final WebSQLProcessor processor;
+    private final DBNModel navigatorModel;
+    private volatile DBPDataSource indexedDataSource;
+    private WebSQLCompletionTrie<IndexEntry> dialectWords;
+    private final Map<String, WebSQLCompletionTrie<IndexEntry>> partitions = new ConcurrentHashMap<>();
+    private final Set<String> pendingLoads = ConcurrentHashMap.newKeySet();
+    // Incremented on invalidation, so partitions loaded before it are not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    WebSQLCompletionIndex(@NotNull WebSQLProcessor processor) {
+        this.processor = processor;
+        this.navigatorModel = processor.getWebSession().getNavigatorModel();
+        if (navigatorModel != null) {
+            navigatorModel.addListener(this);
+        }
+    }
+
+    /**
+     * Returns proposals for the word at position or null if index can't provide them.
+     */
+    @Nullable
+    public WebSQLCompletionProposal[] getProposals(@NotNull WebSQLContextInfo sqlContext, @NotNull String query, int position, int maxResults) {
+        DBPDataSource dataSource = processor.getConnection().getDataSource();
+        if (dataSource == null || position < 0 || position > query.length()) {
+            return null;
+        }
+        WebSQLCompletionTrie<IndexEntry> dialectWords = checkDataSource(dataSource);
+        SQLDialect dialect = SQLUtils.getDialectFromDataSource(dataSource);
+        char structSeparator = dialect.getStructSeparator();
+
+        int wordStart = position;
+        while (wordStart > 0 && isWordPart(query.charAt(wordStart - 1), structSeparator)) {
+            wordStart--;
+        }
+        String word = query.substring(wordStart, position);
+        int prefixStart = wordStart + word.lastIndexOf(structSeparator) + 1;
+        String prefix = DBUtils.getUnQuotedIdentifier(dataSource, query.substring(prefixStart, position));
+        if (!prefix.isEmpty() && (prefix.charAt(0) == '"' || prefix.charAt(0) == '`')) {
+            // Quoted identifier which is not finished yet
+            prefix = prefix.substring(1);
+        }
+        List<String> qualifier = new ArrayList<>();
+        for (String part : CommonUtils.splitString(query.substring(wordStart, prefixStart), structSeparator)) {
+            if (!CommonUtils.isEmpty(part)) {
+                qualifier.add(DBUtils.getUnQuotedIdentifier(dataSource, part));
+            }
+        }
+
+        List<String> defaultPath = new ArrayList<>();
+        if (!CommonUtils.isEmpty(sqlContext.getDefaultCatalog())) {
+            defaultPath.add(sqlContext.getDefaultCatalog());
+        }
+        if (!CommonUtils.isEmpty(sqlContext.getDefaultSchema())) {
+            defaultPath.add(sqlContext.getDefaultSchema());
+        }
+
+        // Each source is collected with its own limit, so names of the first sources don't push out better ranked
+        // names of the others (e.g. columns). Merged entries are ranked and truncated by makeProposals.
+        List<IndexEntry> entries = new ArrayList<>();
+        if (qualifier.isEmpty()) {
+            WebSQLCompletionTrie<IndexEntry> defaultObjects = getPartition(defaultPath);
+            if (defaultObjects == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            defaultObjects.collect(prefix, maxResults, entries);
+            if (!defaultPath.isEmpty()) {
+                WebSQLCompletionTrie<IndexEntry> rootObjects = getPartition(Collections.emptyList());
+                if (rootObjects != null) {
+                    rootObjects.collect(prefix, maxResults, entries);
+                }
+            }
+            if (!isTableReference(query, wordStart)) {
+                // Columns of tables used in the query
+                for (List<String> tableName : findTableReferences(dataSource, structSeparator, query).values()) {
+                    ResolvedName table = resolveName(defaultPath, tableName);
+                    if (table == null || table.kind != EntryKind.OBJECT) {
+                        continue;
+                    }
+                    WebSQLCompletionTrie<IndexEntry> columns = getPartition(table.path);
+                    if (columns == null) {
+                        missCount.incrementAndGet();
+                        return null;
+                    }
+                    columns.collect(prefix, maxResults, entries);
+                }
+                if (!prefix.isEmpty()) {
+                    dialectWords.collect(prefix, maxResults, entries);
+                }
+            }
+        } else {
+            List<String> qualifierName = qualifier;
+            if (qualifier.size() == 1) {
+                // Qualifier may be a table alias
+                List<String> aliasedTable = findTableReferences(dataSource, structSeparator, query).get(qualifier.get(0).toLowerCase(Locale.ENGLISH));
+                if (aliasedTable != null) {
+                    qualifierName = aliasedTable;
+                }
+            }
+            ResolvedName resolved = resolveName(defaultPath, qualifierName);
+            WebSQLCompletionTrie<IndexEntry> children = resolved == null ? null : getPartition(resolved.path);
+            if (children == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            children.collect(prefix, maxResults, entries);
+        }
+        hitCount.incrementAndGet();
+        return makeProposals(dataSource, entries, prefix, prefixStart, position, maxResults);
+    }
+
+    @Override
+    public void nodeChanged(DBNEvent event) {
+        if (!(event.getNode() instanceof DBNDatabaseNode)) {
+            return;
+        }
+        DBSObject object = ((DBNDatabaseNode) event.getNode()).getObject();
+        if (object == null || object.getDataSource() != indexedDataSource) {
+            return;
+        }
+        // Folders are not in the index, their owners are
+        while (object != null && !(object instanceof DBSEntity) && !(object instanceof DBSObjectContainer)) {
+            object = object.getParentObject();
+        }
+        if (object == null) {
+            return;
+        }
+        List<String> path = getObjectPath(object);
+        if (event.getAction() != DBNEvent.Action.UPDATE && !path.isEmpty()) {
+            // Object was added or removed, so its container changed as well
+            invalidate(path.subList(0, path.size() - 1), false);
+        }
+        invalidate(path, true);
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEstimatedSize() {
+        long size = 0;
+        for (WebSQLCompletionTrie<IndexEntry> partition : partitions.values()) {
+            size += partition.getEstimatedSize();
+        }
+        return size;
+    }
+
+    void dispose() {
+        log.debug(toString());
+        if (navigatorModel != null) {
+            navigatorModel.removeListener(this);
+        }
+        generation.incrementAndGet();
+        partitions.clear();
+    }
+
+    private synchronized WebSQLCompletionTrie<IndexEntry> checkDataSource(DBPDataSource dataSource) {
+        if (dataSource != indexedDataSource || dialectWords == null) {
+            // Reconnected or first use
+            generation.incrementAndGet();
+            partitions.clear();
+            indexedDataSource = dataSource;
+            dialectWords = loadDialectWords(dataSource);
+        }
+        return dialectWords;
+    }
+
+    /**
+     * Returns partition or null if it is not loaded yet. In that case partition load is scheduled.
+     */
+    @Nullable
+    private WebSQLCompletionTrie<IndexEntry> getPartition(List<String> path) {
+        String pathKey = makePathKey(path);
+        WebSQLCompletionTrie<IndexEntry> partition = partitions.get(pathKey);
+        if (partition == null && pendingLoads.add(pathKey)) {
+            List<String> loadPath = new ArrayList<>(path);
+            long loadGeneration = generation.get();
+            new AbstractJob("Load SQL completion names") {
+                {
+                    setUser(false);
+                    setSystem(true);
+                }
+
+                @Override
+                protected IStatus run(DBRProgressMonitor monitor) {
+                    try {
+                        WebSQLCompletionTrie<IndexEntry> newPartition = loadSharedPartition(monitor, loadPath, pathKey);
+                        if (newPartition != null && generation.get() == loadGeneration) {
+                            partitions.put(pathKey, newPartition);
+                        }
+                    } catch (Throwable e) {
+                        log.debug("Error loading SQL completion names of '" + String.join(".", loadPath) + "'", e);
+                    } finally {
+                        pendingLoads.remove(pathKey);
+                    }
+                    return Status.OK_STATUS;
+                }
+            }.schedule();
+        }
+        return partition;
+    }
+
+    /**
+     * Resolves qualified name relative to the default container or to its parents.
+     * Returns null if name is unknown or containers are not loaded yet.
+     */
+    @Nullable
+    private ResolvedName resolveName(List<String> defaultPath, List<String> name) {
+        for (int baseLength = defaultPath.size(); baseLength >= 0; baseLength--) {
+            List<String> path = new ArrayList<>(defaultPath.subList(0, baseLength));
+            EntryKind kind = null;
+            for (String namePart : name) {
+                WebSQLCompletionTrie<IndexEntry> partition = kind == EntryKind.OBJECT ? null : getPartition(path);
+                IndexEntry child = null;
+                if (partition != null) {
+                    for (IndexEntry entry : partition.get(namePart)) {
+                        if (entry.kind == EntryKind.CONTAINER || entry.kind == EntryKind.OBJECT) {
+                            child = entry;
+                            break;
+                        }
+                    }
+                }
+                if (child == null) {
+                    kind = null;
+                    break;
+                }
+                path.add(child.name);
+                kind = child.kind;
+            }
+            if (kind != null) {
+                return new ResolvedName(path, kind);
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private WebSQLCompletionTrie<IndexEntry> loadSharedPartition(DBRProgressMonitor monitor, List<String> path, String pathKey) throws DBException {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        WebConnectionInfo connection = processor.getConnection();
+        DBPDataSource dataSource = indexedDataSource;
+        if (metadataCache == null || dataSource == null || !connection.isConnected()) {
+            return loadPartition(monitor, path);
+        }
+        // Partition content depends on system objects visibility
+        boolean showSystemObjects = dataSource.getContainer().getNavigatorSettings().isShowSystemObjects();
+        metadataCache.attachConnection(connection);
+        return metadataCache.getValue(
+            connection,
+            WebMetadataCache.CATEGORY_COMPLETION,
+            pathKey + PATH_SEPARATOR + PATH_SEPARATOR + showSystemObjects,
+            () -> new SharedPartition(loadPartition(monitor, path))).names;
+    }
+
+    @Nullable
+    private WebSQLCompletionTrie<IndexEntry> loadPartition(DBRProgressMonitor monitor, List<String> path) throws DBException {
+        DBPDataSource dataSource = indexedDataSource;
+        if (dataSource == null) {
+            return null;
+        }
+        DBSObject object = DBUtils.getAdapter(DBSObjectContainer.class, dataSource);
+        for (String name : path) {
+            object = object instanceof DBSObjectContainer ? ((DBSObjectContainer) object).getChild(monitor, name) : null;
+        }
+        WebSQLCompletionTrie<IndexEntry> partition = new WebSQLCompletionTrie<>();
+        if (object instanceof DBSEntity) {
+            Collection<? extends DBSEntityAttribute> attributes = ((DBSEntity) object).getAttributes(monitor);
+            if (attributes != null) {
+                for (DBSEntityAttribute attribute : attributes) {
+                    addObject(partition, attribute, EntryKind.COLUMN);
+                }
+            }
+        } else if (object instanceof DBSObjectContainer) {
+            boolean showSystemObjects = dataSource.getContainer().getNavigatorSettings().isShowSystemObjects();
+            Collection<? extends DBSObject> children = ((DBSObjectContainer) object).getChildren(monitor);
+            if (children != null) {
+                for (DBSObject child : children) {
+                    if (partition.getSize() >= MAX_PARTITION_OBJECTS || monitor.isCanceled()) {
+                        break;
+                    }
+                    if (!showSystemObjects && DBUtils.isSystemObject(child)) {
+                        continue;
+                    }
+                    if (child instanceof DBSEntity) {
+                        addObject(partition, child, EntryKind.OBJECT);
+                    } else if (child instanceof DBSObjectContainer) {
+                        addObject(partition, child, EntryKind.CONTAINER);
+                    }
+                }
+            }
+            if (object instanceof DBSProcedureContainer) {
+                Collection<? extends DBSProcedure> procedures = ((DBSProcedureContainer) object).getProcedures(monitor);
+                if (procedures != null) {
+                    for (DBSProcedure procedure : procedures) {
+                        addObject(partition, procedure, EntryKind.FUNCTION);
+                    }
+                }
+            }
+        } else {
+            return null;
+        }
+        return partition;
+    }
+
+    private void invalidate(List<String> path, boolean withChildren) {
+        generation.incrementAndGet();
+        invalidateSharedPartitions(processor.getConnection(), path, withChildren);
+        String pathKey = makePathKey(path);
+        if (path.isEmpty() && withChildren) {
+            partitions.clear();
+            return;
+        }
+        partitions.keySet().removeIf(key ->
+            key.equals(pathKey) || (withChildren && key.startsWith(pathKey + PATH_SEPARATOR)));
+    }
+
+    /**
+     * Drops shared partitions of object and its children, so they are re-loaded by all sessions.
+     *
+     * @param object refreshed object or null for the whole data source
+     */
+    public static void invalidateSharedPartitions(@NotNull WebConnectionInfo connection, @Nullable DBSObject object) {
+        // Folders are not in the index, their owners are
+        while (object != null && !(object instanceof DBPDataSource) && !(object instanceof DBSEntity) && !(object instanceof DBSObjectContainer)) {
+            object = object.getParentObject();
+        }
+        invalidateSharedPartitions(connection, object == null ? Collections.emptyList() : getObjectPath(object), true);
+    }
+
+    private static void invalidateSharedPartitions(@NotNull WebConnectionInfo connection, @NotNull List<String> path, boolean withChildren) {
+        WebMetadataCache metadataCache = CBPlatform.getInstance().getMetadataCache();
+        if (metadataCache == null) {
+            return;
+        }
+        // Shared keys are partition path followed by two separators and settings suffix
+        String pathKey = makePathKey(path);
+        String keyPrefix;
+        if (withChildren) {
+            keyPrefix = path.isEmpty() ? null : pathKey + PATH_SEPARATOR;
+        } else {
+            keyPrefix = pathKey + PATH_SEPARATOR + PATH_SEPARATOR;
+        }
+        metadataCache.invalidate(connection, WebMetadataCache.CATEGORY_COMPLETION, keyPrefix);
+    }
+
+    private static WebSQLCompletionTrie<IndexEntry> loadDialectWords(DBPDataSource dataSource) {
+        SQLDialect dialect = SQLUtils.getDialectFromDataSource(dataSource);
+        WebSQLCompletionTrie<IndexEntry> words = new WebSQLCompletionTrie<>();
+        for (String keyword : dialect.getReservedWords()) {
+            words.add(keyword, new IndexEntry(keyword, EntryKind.KEYWORD, null));
+        }
+        for (String function : dialect.getFunctions(dataSource)) {
+            words.add(function, new IndexEntry(function, EntryKind.FUNCTION, null));
+        }
+        for (String dataType : dialect.getDataTypes(dataSource)) {
+            words.add(dataType, new IndexEntry(dataType, EntryKind.TYPE, null));
+        }
+        return words;
+    }
+
+    private static void addObject(WebSQLCompletionTrie<IndexEntry> partition, DBSObject object, EntryKind kind) {
+        DBPImage image = DBValueFormatting.getObjectImage(object);
+        partition.add(object.getName(), new IndexEntry(object.getName(), kind, image == null ? null : image.getLocation()));
+    }
+
+    private static WebSQLCompletionProposal[] makeProposals(DBPDataSource dataSource, List<IndexEntry> entries, String prefix, int prefixStart, int position, int maxResults) {
+        boolean lowerCase = !prefix.isEmpty() && prefix.equals(prefix.toLowerCase(Locale.ENGLISH));
+        Set<String> names = new HashSet<>();
+        List<WebSQLCompletionProposal> proposals = new ArrayList<>();
+        for (IndexEntry entry : entries) {
+            if (!names.add(entry.kind.keywordType + entry.name)) {
+                continue;
+            }
+            String replacement;
+            if (entry.kind == EntryKind.KEYWORD || entry.kind == EntryKind.TYPE) {
+                replacement = lowerCase ? entry.name.toLowerCase(Locale.ENGLISH) : entry.name;
+            } else {
+                replacement = DBUtils.getQuotedIdentifier(dataSource, entry.name);
+            }
+            proposals.add(new WebSQLCompletionProposal(
+                entry.name,
+                entry.kind.keywordType.name(),
+                replacement,
+                prefixStart,
+                position - prefixStart,
+                entry.kind.score,
+                entry.icon));
+        }
+        proposals.sort(Comparator.comparingInt(WebSQLCompletionProposal::getScore).reversed()
+            .thenComparing(WebSQLCompletionProposal::getDisplayString, String.CASE_INSENSITIVE_ORDER));
+        if (proposals.size() > maxResults) {
+            proposals = proposals.subList(0, maxResults);
+        }
+        return proposals.toArray(new WebSQLCompletionProposal[0]);
+    }
+
+    /**
+     * Finds tables referenced in the query. Result maps lower case alias (or table name) to table name parts.
+     */
+    private static Map<String, List<String>> findTableReferences(DBPDataSource dataSource, char structSeparator, String query) {
+        Map<String, List<String>> tables = new LinkedHashMap<>();
+        Matcher matcher = TABLE_REFERENCE_PATTERN.matcher(query);
+        while (matcher.find()) {
+            List<String> tableName = new ArrayList<>();
+            for (String part : CommonUtils.splitString(matcher.group(1), structSeparator)) {
+                if (!CommonUtils.isEmpty(part)) {
+                    tableName.add(DBUtils.getUnQuotedIdentifier(dataSource, part));
+                }
+            }
+            if (tableName.isEmpty()) {
+                continue;
+            }
+            String alias = matcher.group(2);
+            if (alias == null || TABLE_KEYWORDS.contains(alias.toUpperCase(Locale.ENGLISH)) ||
+                SQLUtils.getDialectFromDataSource(dataSource).getKeywordType(alias) == DBPKeywordType.KEYWORD)
+            {
+                alias = tableName.get(tableName.size() - 1);
+            }
+            tables.put(alias.toLowerCase(Locale.ENGLISH), tableName);
+        }
+        return tables;
+    }
+
+    /**
+     * Checks whether word at position follows FROM, JOIN and other keywords which require table name
+     */
+    private static boolean isTableReference(String query, int wordStart) {
+        int end = wordStart;
+        while (end > 0 && Character.isWhitespace(query.charAt(end - 1))) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && Character.isLetter(query.charAt(start - 1))) {
+            start--;
+        }
+        return start < end && TABLE_KEYWORDS.contains(query.substring(start, end).toUpperCase(Locale.ENGLISH));
+    }
+
+    private static boolean isWordPart(char ch, char structSeparator) {
+        return Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '"' || ch == '`' || ch == structSeparator;
+    }
+
+    private static List<String> getObjectPath(DBSObject object) {
+        List<String> path = new ArrayList<>();
+        for (DBSObject parent = object; parent != null && !(parent instanceof DBPDataSource); parent = parent.getParentObject()) {
+            path.add(0, parent.getName());
+        }
+        return path;
+    }
+
+    private static String makePathKey(List<String> path) {
+        StringBuilder key = new StringBuilder();
+        for (String name : path) {
+            key.append(PATH_SEPARATOR).append(name);
+        }
+        return key.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "SQL completion index of " + processor.getConnection().getName() +
+            ": partitions=" + partitions.size() +
+            ", size=" + getEstimatedSize() +
+            ", hits=" + getHitCount() +
+            ", misses=" + getMissCount();
+    }
+
+}
@@ -27,39 +27,62 @@ public class WebSQLCompletionProposal {
 
     private static final Log log = Log.getLog(WebSQLCompletionProposal.class);
 
-    private SQLCompletionProposalBase proposal;
+    // Proposal values are copied, so proposals can be cached and shared between sessions
+    private final String displayString;
+    private final String type;
+    private final String replacementString;
+    private final int replacementOffset;
+    private final int replacementLength;
+    private final int score;
+    private final String icon;
 
     public WebSQLCompletionProposal(SQLCompletionProposalBase proposal) {
-        this.proposal = proposal;
+        this.displayString = proposal.getDisplayString();
+        this.type = proposal.getProposalType().name();
+        this.replacementString = proposal.getReplacementString();
+        this.replacementOffset = proposal.getReplacementOffset();
+        this.replacementLength = proposal.getReplacementLength();
+        this.score = proposal.getProposalScore();
+        DBPImage image = proposal.getObjectImage();
+        this.icon = image == null ? null : image.getLocation();
+    }
+
+    public WebSQLCompletionProposal(String displayString, String type, String replacementString, int replacementOffset, int replacementLength, int score, String icon) {
+        this.displayString = displayString;
+        this.type = type;
+        this.replacementString = replacementString;
+        this.replacementOffset = replacementOffset;
+        this.replacementLength = replacementLength;
+        this.score = score;
+        this.icon = icon;
     }
 
     public String getDisplayString() {
-        return proposal.getDisplayString();
+        return displayString;
     }
 
     public String getType() {
-        return proposal.getProposalType().name();
+        return type;
     }
 
     public String getReplacementString() {
-        return proposal.getReplacementString();
+        return replacementString;
     }
 
     public int getReplacementOffset() {
-        return proposal.getReplacementOffset();
+        return replacementOffset;
     }
 
     public int getReplacementLength() {
-        return proposal.getReplacementLength();
+        return replacementLength;
     }
 
     public int getScore() {
-        return proposal.getProposalScore();
+        return score;
     }
 
     public String getIcon() {
-        DBPImage image = proposal.getObjectImage();
-        return image == null ? null : image.getLocation();
+        return icon;
     }
 
     public String getNodePath() {
@@ -0,0 +1,143 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import org.jkiss.code.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prefix tree of completion words.
+ * Keys are case insensitive. Values are collected in key order.
+ */
+class WebSQLCompletionTrie<T> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static class Node<T> {
+        char[] keys = NO_KEYS;
+        Object[] children = new Object[0];
+        List<T> values;
+
+        @SuppressWarnings("unchecked")
+        Node<T> getChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : (Node<T>) children[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T> getOrAddChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return (Node<T>) children[index];
+            }
+            // Keep keys sorted, so children are traversed in key order
+            int insertPos = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Object[] newChildren = new Object[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertPos);
+            System.arraycopy(children, 0, newChildren, 0, insertPos);
+            System.arraycopy(keys, insertPos, newKeys, insertPos + 1, keys.length - insertPos);
+            System.arraycopy(children, insertPos, newChildren, insertPos + 1, keys.length - insertPos);
+            Node<T> child = new Node<>();
+            newKeys[insertPos] = key;
+            newChildren[insertPos] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+    private int size;
+    private int nodeCount = 1;
+
+    void add(@NotNull String key, @NotNull T value) {
+        Node<T> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char ch = Character.toLowerCase(key.charAt(i));
+            Node<T> child = node.getChild(ch);
+            if (child == null) {
+                child = node.getOrAddChild(ch);
+                nodeCount++;
+            }
+            node = child;
+        }
+        if (node.values == null) {
+            node.values = new ArrayList<>(1);
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * Returns values of the exact key
+     */
+    @NotNull
+    List<T> get(@NotNull String key) {
+        Node<T> node = findNode(key);
+        return node == null || node.values == null ? new ArrayList<>() : new ArrayList<>(node.values);
+    }
+
+    /**
+     * Collects values which keys start with prefix.
+     * At most maxResults values are added, values already in the result list are not counted.
+     */
+    void collect(@NotNull String prefix, int maxResults, @NotNull List<T> result) {
+        Node<T> node = findNode(prefix);
+        if (node != null) {
+            collectValues(node, result.size() + maxResults, result);
+        }
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    long getEstimatedSize() {
+        return 32 + nodeCount * 48L + size * 8L;
+    }
+
+    private Node<T> findNode(String key) {
+        Node<T> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.getChild(Character.toLowerCase(key.charAt(i)));
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void collectValues(Node<T> node, int maxSize, List<T> result) {
+        if (node.values != null) {
+            for (T value : node.values) {
+                if (result.size() >= maxSize) {
+                    return;
+                }
+                result.add(value);
+            }
+        }
+        for (Object child : node.children) {
+            if (result.size() >= maxSize) {
+                return;
+            }
+            collectValues((Node<T>) child, maxSize, result);
+        }
+    }
+
+}
@@ -18,7 +18,10 @@ package io.cloudbeaver.service.sql;
 
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebAction;
+import io.cloudbeaver.server.CBApplication;
+import io.cloudbeaver.server.CBPlatform;
 import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.DBPDataSource;
@@ -36,8 +39,8 @@ import org.jkiss.dbeaver.model.struct.rdb.DBSSchema;
 import org.jkiss.utils.CommonUtils;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -47,11 +50,20 @@ public class WebSQLContextInfo {
 
     private static final Log log = Log.getLog(WebSQLContextInfo.class);
 
+    private static final int MAX_EVICTED_RESULT_IDS = 100;
+    private static final long CONTEXT_SIZE = 2048;
+    private static final long STATEMENT_SIZE = 1024;
+
     private final WebSQLProcessor processor;
     private final String id;
     private DBSCatalog defaultCatalog;
     private String defaultSchema;
-    private final Map<String, WebSQLResultsInfo> resultInfoMap = new HashMap<>();
+    // Results may be evicted by the results governor in other session threads
+    private final Map<String, WebSQLResultsInfo> resultInfoMap = new ConcurrentHashMap<>();
+    // IDs of results closed by the results governor, the most recent ones only
+    private final Set<String> evictedResultIds = Collections.synchronizedSet(new LinkedHashSet<>());
+    private final Map<String, WebSQLResultsCursor> resultCursors = new HashMap<>();
+    private final WebSQLStatementCache statementCache = new WebSQLStatementCache(CBApplication.getInstance().getSQLStatementCacheSize());
 
     private final AtomicInteger resultId = new AtomicInteger();
 
@@ -60,6 +72,10 @@ public class WebSQLContextInfo {
         this.id = id;
 
         setContextDefaults(catalogName, schemaName);
+        WebSQLResultsGovernor governor = getResultsGovernor();
+        if (governor != null) {
+            governor.registerContext(this);
+        }
     }
 
     private void setContextDefaults(String catalogName, String schemaName) throws DBCException {
@@ -131,6 +147,10 @@ public class WebSQLContextInfo {
     public void setDefaults(String catalogName, String schemaName) throws DBWebException, DBCException {
         String oldCatalogName = defaultCatalog == null ? null : defaultCatalog.getName();
         setContextDefaults(catalogName, schemaName);
+        if (processor.getConnection().getSharedDataSource() != null) {
+            // Shared data source context is used by all sessions. Defaults are set in leased contexts.
+            return;
+        }
         try {
             DBExecUtils.setExecutionContextDefaults(
                 processor.getWebSession().getProgressMonitor(),
@@ -172,6 +192,10 @@ public class WebSQLContextInfo {
         );
         resultInfo.setAttributes(attributes);
         resultInfoMap.put(resultInfo.getId(), resultInfo);
+        WebSQLResultsGovernor governor = getResultsGovernor();
+        if (governor != null) {
+            governor.registerResult(this, resultInfo);
+        }
         return resultInfo;
     }
 
@@ -179,20 +203,119 @@ public class WebSQLContextInfo {
     public WebSQLResultsInfo getResults(@NotNull String resultId) throws DBWebException {
         WebSQLResultsInfo resultsInfo = resultInfoMap.get(resultId);
         if (resultsInfo == null) {
+            if (evictedResultIds.contains(resultId)) {
+                throw new DBWebException("Results '" + resultId + "' were closed to free server memory. Execute query again.");
+            }
             throw new DBWebException("Results '" + resultId + "' not found in context '" + getId() + "'@'" + processor.getConnection().getId() + "'");
         }
+        WebSQLResultsGovernor governor = getResultsGovernor();
+        if (governor != null) {
+            governor.touchResult(this, resultId);
+        }
         return resultsInfo;
     }
 
     public boolean closeResult(@NotNull String resultId) {
+        closeResultsCursor(resultId);
+        WebSQLResultsGovernor governor = getResultsGovernor();
+        if (governor != null) {
+            governor.unregisterResult(this, resultId);
+        }
         return resultInfoMap.remove(resultId) != null;
     }
 
+    void evictResult(@NotNull String resultId) {
+        synchronized (evictedResultIds) {
+            evictedResultIds.add(resultId);
+            if (evictedResultIds.size() > MAX_EVICTED_RESULT_IDS) {
+                Iterator<String> iter = evictedResultIds.iterator();
+                iter.next();
+                iter.remove();
+            }
+        }
+        closeResult(resultId);
+    }
+
+    /**
+     * Estimated heap size of the context and its open statements. Saved results are not included.
+     */
+    public long getEstimatedSize() {
+        return CONTEXT_SIZE + statementCache.getSize() * (long) STATEMENT_SIZE;
+    }
+
+    /**
+     * Prepared statements of this context kept open for reuse
+     */
+    @NotNull
+    public WebSQLStatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    ///////////////////////////////////////////////////////
+    // Results cursors
+
+    @NotNull
+    WebSQLCursorRegistry getCursorRegistry() {
+        return WebSQLCursorRegistry.getInstance(processor.getWebSession());
+    }
+
+    void saveResultsCursor(@NotNull WebSQLResultsCursor cursor) {
+        synchronized (resultCursors) {
+            resultCursors.put(cursor.getResultsInfo().getId(), cursor);
+        }
+        getCursorRegistry().addCursor(cursor);
+    }
+
+    /**
+     * Returns open cursor of results or null if results were read completely or cursor was closed by timeout.
+     */
+    WebSQLResultsCursor getResultsCursor(@NotNull String resultId) {
+        getCursorRegistry().closeIdleCursors();
+        synchronized (resultCursors) {
+            WebSQLResultsCursor cursor = resultCursors.get(resultId);
+            if (cursor != null && cursor.isClosed()) {
+                resultCursors.remove(resultId);
+                return null;
+            }
+            return cursor;
+        }
+    }
+
+    void closeResultsCursor(@NotNull String resultId) {
+        WebSQLResultsCursor cursor;
+        synchronized (resultCursors) {
+            cursor = resultCursors.remove(resultId);
+        }
+        if (cursor != null) {
+            getCursorRegistry().removeCursor(cursor);
+            cursor.close();
+        }
+    }
+
     ///////////////////////////////////////////////////////
     // Async model
 
     void dispose() {
+        List<WebSQLResultsCursor> cursors;
+        synchronized (resultCursors) {
+            cursors = new ArrayList<>(resultCursors.values());
+            resultCursors.clear();
+        }
+        // Closed cursors are purged from session registry later
+        for (WebSQLResultsCursor cursor : cursors) {
+            cursor.close();
+        }
+        statementCache.dispose();
         resultInfoMap.clear();
+        WebSQLResultsGovernor governor = getResultsGovernor();
+        if (governor != null) {
+            governor.unregisterContext(this);
+        }
+    }
+
+    @Nullable
+    private static WebSQLResultsGovernor getResultsGovernor() {
+        return CBPlatform.getInstance().getSQLResultsGovernor();
     }
 
 }
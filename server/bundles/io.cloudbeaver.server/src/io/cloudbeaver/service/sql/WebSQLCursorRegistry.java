@@ -0,0 +1,132 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBApplication;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open results cursors of web session.
+ * Limits number of simultaneously open cursors and closes cursors which were idle for too long.
+ */
+public class WebSQLCursorRegistry {
+
+    private static final Log log = Log.getLog(WebSQLCursorRegistry.class);
+
+    private static final String ATTR_SQL_CURSORS = "sqlCursors";
+
+    private final int maxOpenCursors;
+    private final long idleTimeout;
+    // Ordered by open time
+    private final List<WebSQLResultsCursor> cursors = new ArrayList<>();
+
+    private WebSQLCursorRegistry() {
+        CBApplication application = CBApplication.getInstance();
+        this.maxOpenCursors = application.getMaxSQLCursorsPerSession();
+        this.idleTimeout = application.getSQLCursorIdleTime();
+    }
+
+    @NotNull
+    static WebSQLCursorRegistry getInstance(@NotNull WebSession webSession) {
+        return webSession.getAttribute(ATTR_SQL_CURSORS, r -> new WebSQLCursorRegistry(), WebSQLCursorRegistry::dispose);
+    }
+
+    /**
+     * Closes idle cursors of session. Called periodically by session monitor, so abandoned cursors
+     * release their statements and connections even if results are never read again.
+     */
+    public static void closeIdleCursors(@NotNull WebSession webSession) {
+        WebSQLCursorRegistry registry = webSession.getAttribute(ATTR_SQL_CURSORS);
+        if (registry != null) {
+            registry.closeIdleCursors();
+        }
+    }
+
+    boolean isEnabled() {
+        return maxOpenCursors > 0;
+    }
+
+    void addCursor(@NotNull WebSQLResultsCursor cursor) {
+        List<WebSQLResultsCursor> toClose = new ArrayList<>();
+        synchronized (cursors) {
+            cursors.removeIf(WebSQLResultsCursor::isClosed);
+            cursors.add(cursor);
+            while (cursors.size() > maxOpenCursors) {
+                // Close the least recently used cursor
+                WebSQLResultsCursor lruCursor = cursors.get(0);
+                for (WebSQLResultsCursor c : cursors) {
+                    if (c.getLastAccessTime() < lruCursor.getLastAccessTime()) {
+                        lruCursor = c;
+                    }
+                }
+                cursors.remove(lruCursor);
+                toClose.add(lruCursor);
+            }
+        }
+        for (WebSQLResultsCursor c : toClose) {
+            log.debug("Too many open cursors. Close cursor of results '" + c.getResultsInfo().getId() + "'");
+            c.close();
+        }
+    }
+
+    void removeCursor(@NotNull WebSQLResultsCursor cursor) {
+        synchronized (cursors) {
+            cursors.remove(cursor);
+        }
+    }
+
+    /**
+     * Closes cursors which weren't accessed during idle timeout.
+     */
+    void closeIdleCursors() {
+        long currentTime = System.currentTimeMillis();
+        List<WebSQLResultsCursor> toClose = new ArrayList<>();
+        synchronized (cursors) {
+            if (cursors.isEmpty()) {
+                return;
+            }
+            for (WebSQLResultsCursor cursor : cursors) {
+                if (cursor.isClosed() || currentTime - cursor.getLastAccessTime() > idleTimeout) {
+                    toClose.add(cursor);
+                }
+            }
+            cursors.removeAll(toClose);
+        }
+        for (WebSQLResultsCursor cursor : toClose) {
+            log.debug("Close idle cursor of results '" + cursor.getResultsInfo().getId() + "'");
+            cursor.close();
+        }
+    }
+
+    private WebSQLCursorRegistry dispose() {
+        List<WebSQLResultsCursor> toClose;
+        synchronized (cursors) {
+            toClose = new ArrayList<>(cursors);
+            cursors.clear();
+        }
+        for (WebSQLResultsCursor cursor : toClose) {
+            cursor.close();
+        }
+        return this;
+    }
+
+}
@@ -56,4 +56,18 @@ public class WebSQLExecuteInfo {
     public void setResults(WebSQLQueryResults[] results) {
         this.results = results;
     }
+
+    /**
+     * Estimated heap size of fetched rows
+     */
+    public long getEstimatedSize() {
+        long size = 64;
+        if (results != null) {
+            for (WebSQLQueryResults queryResults : results) {
+                WebSQLQueryResultSet resultSet = queryResults.getResultSet();
+                size += 32 + (resultSet == null ? 0 : resultSet.getEstimatedSize());
+            }
+        }
+        return size;
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.model.session.WebSession;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
+import org.jkiss.dbeaver.model.exec.DBCAttributeMetaData;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.exec.DBCResultSet;
+import org.jkiss.dbeaver.model.exec.DBCSession;
+import org.jkiss.dbeaver.model.struct.DBSEntityAttribute;
+
+import java.util.List;
+
+/**
+ * Reads auto-generated keys of one inserted row into the row returned to the client.
+ * Key columns are matched to row attributes by name. If driver returns one unnamed key column
+ * (e.g. GENERATED_KEY) then it is assigned to the only auto-generated attribute.
+ */
+class WebSQLGeneratedKeysReceiver implements DBDDataReceiver {
+    private static final Log log = Log.getLog(WebSQLGeneratedKeysReceiver.class);
+
+    private final WebSession webSession;
+    private final DBDAttributeBinding[] allAttributes;
+    private final Object[] row;
+    private final WebDataFormat dataFormat;
+    private DBDAttributeBinding[] keyAttributes;
+    private boolean rowRead;
+
+    WebSQLGeneratedKeysReceiver(WebSession webSession, DBDAttributeBinding[] allAttributes, Object[] row, WebDataFormat dataFormat) {
+        this.webSession = webSession;
+        this.allAttributes = allAttributes;
+        this.row = row;
+        this.dataFormat = dataFormat;
+    }
+
+    /**
+     * Returns true if entity has auto-generated attributes which values are not specified in insert
+     */
+    static boolean hasGeneratedAttributes(DBDAttributeBinding[] allAttributes, DBDAttributeBinding[] insertAttributes) {
+        for (DBDAttributeBinding attribute : allAttributes) {
+            DBSEntityAttribute entityAttribute = attribute.getEntityAttribute();
+            if (entityAttribute != null && entityAttribute.isAutoGenerated() && !isInserted(attribute, insertAttributes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void fetchStart(DBCSession session, DBCResultSet resultSet, long offset, long maxRows) throws DBCException {
+        List<DBCAttributeMetaData> keyColumns = resultSet.getMeta().getAttributes();
+        keyAttributes = new DBDAttributeBinding[keyColumns.size()];
+        for (int i = 0; i < keyColumns.size(); i++) {
+            keyAttributes[i] = findAttribute(keyColumns.get(i).getName());
+        }
+        if (keyAttributes.length == 1 && keyAttributes[0] == null) {
+            keyAttributes[0] = findGeneratedAttribute();
+        }
+    }
+
+    @Override
+    public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
+        if (rowRead) {
+            // One row was inserted
+            return;
+        }
+        rowRead = true;
+        for (int i = 0; i < keyAttributes.length; i++) {
+            DBDAttributeBinding attribute = keyAttributes[i];
+            if (attribute == null) {
+                continue;
+            }
+            try {
+                Object keyValue = attribute.getValueHandler().getValueFromObject(
+                    session, attribute, resultSet.getAttributeValue(i), false, false);
+                row[attribute.getOrdinalPosition()] = WebSQLUtils.makeWebCellValue(webSession, attribute, keyValue, dataFormat);
+            } catch (Exception e) {
+                log.warn("Error reading generated key '" + attribute.getName() + "'", e);
+            }
+        }
+    }
+
+    @Override
+    public void fetchEnd(DBCSession session, DBCResultSet resultSet) throws DBCException {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private DBDAttributeBinding findAttribute(String name) {
+        for (DBDAttributeBinding attribute : allAttributes) {
+            if (attribute.getName().equalsIgnoreCase(name)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    private DBDAttributeBinding findGeneratedAttribute() {
+        DBDAttributeBinding result = null;
+        for (DBDAttributeBinding attribute : allAttributes) {
+            DBSEntityAttribute entityAttribute = attribute.getEntityAttribute();
+            if (entityAttribute != null && entityAttribute.isAutoGenerated()) {
+                if (result != null) {
+                    // Ambiguous
+                    return null;
+                }
+                result = attribute;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isInserted(DBDAttributeBinding attribute, DBDAttributeBinding[] insertAttributes) {
+        for (DBDAttributeBinding insertAttribute : insertAttributes) {
+            if (insertAttribute == attribute) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.model.user.WebUser;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+/**
+ * Memory retained by SQL contexts and results of a session or of a session connection.
+ */
+public class WebSQLMemoryHolder {
+
+    private final WebSession session;
+    private final String connectionId;
+    private int contextCount;
+    private int resultCount;
+    private long resultsSize;
+    private long contextsSize;
+
+    WebSQLMemoryHolder(@NotNull WebSession session, @Nullable String connectionId) {
+        this.session = session;
+        this.connectionId = connectionId;
+    }
+
+    @NotNull
+    public String getSessionId() {
+        return session.getSessionId();
+    }
+
+    @Nullable
+    public String getUserId() {
+        WebUser user = session.getUser();
+        return user == null ? null : user.getUserId();
+    }
+
+    /**
+     * Connection ID or null for session totals
+     */
+    @Nullable
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    public int getContextCount() {
+        return contextCount;
+    }
+
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * Estimated size of retained results info (attribute bindings, query texts)
+     */
+    public long getResultsSize() {
+        return resultsSize;
+    }
+
+    /**
+     * Estimated size of SQL contexts and their open statements
+     */
+    public long getContextsSize() {
+        return contextsSize;
+    }
+
+    /**
+     * Estimated size of finished async task results. Counted for session totals only.
+     */
+    public long getTaskResultsSize() {
+        return connectionId == null ? session.getRetainedTaskResultsSize() : 0;
+    }
+
+    public long getTotalSize() {
+        return resultsSize + contextsSize + getTaskResultsSize();
+    }
+
+    void addContext(long size) {
+        contextCount++;
+        contextsSize += size;
+    }
+
+    void addResult(long size) {
+        resultCount++;
+        resultsSize += size;
+    }
+
+}
@@ -16,18 +16,24 @@
  */
 package io.cloudbeaver.service.sql;
 
+import com.google.gson.stream.JsonWriter;
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.WebAction;
+import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.WebSharedDataSourcePool;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBApplication;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.DBPDataSourceContainer;
 import org.jkiss.dbeaver.model.DBUtils;
 import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
 import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
 import org.jkiss.dbeaver.model.data.DBDDocument;
 import org.jkiss.dbeaver.model.data.DBDRowIdentifier;
 import org.jkiss.dbeaver.model.exec.*;
@@ -40,7 +46,11 @@ import org.jkiss.dbeaver.model.sql.SQLSyntaxManager;
 import org.jkiss.dbeaver.model.struct.*;
 import org.jkiss.utils.CommonUtils;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,6 +62,10 @@ public class WebSQLProcessor {
     private static final Log log = Log.getLog(WebSQLProcessor.class);
 
     private static final int MAX_RESULTS_COUNT = 100;
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String STREAM_STATUS_OK = "ok";
+    private static final String STREAM_STATUS_ERROR = "error";
 
     private final WebSession webSession;
     private final WebConnectionInfo connection;
@@ -59,6 +73,7 @@ public class WebSQLProcessor {
     private final Map<String, WebSQLContextInfo> contexts = new LinkedHashMap<>();
 
     private AtomicInteger contextId = new AtomicInteger();
+    private WebSQLCompletionIndex completionIndex;
 
     WebSQLProcessor(@NotNull  WebSession webSession, @NotNull WebConnectionInfo connection) {
         this.webSession = webSession;
@@ -73,6 +88,12 @@ public class WebSQLProcessor {
             contexts.forEach((s, context) -> context.dispose());
             contexts.clear();
         }
+        synchronized (this) {
+            if (completionIndex != null) {
+                completionIndex.dispose();
+                completionIndex = null;
+            }
+        }
     }
 
     public WebConnectionInfo getConnection() {
@@ -83,6 +104,14 @@ public class WebSQLProcessor {
         return webSession;
     }
 
+    @NotNull
+    public synchronized WebSQLCompletionIndex getCompletionIndex() {
+        if (completionIndex == null) {
+            completionIndex = new WebSQLCompletionIndex(this);
+        }
+        return completionIndex;
+    }
+
     SQLSyntaxManager getSyntaxManager() {
         return syntaxManager;
     }
@@ -95,6 +124,28 @@ public class WebSQLProcessor {
         return DBUtils.getDefaultContext(dataContainer, false);
     }
 
+    /**
+     * Opens execution context for data container. If connection uses shared data source then
+     * isolated context is leased from the shared pool. Lease must be closed after use.
+     */
+    @NotNull
+    private WebSharedDataSourcePool.ContextLease openExecutionContext(
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull DBSDataContainer dataContainer) throws DBCException
+    {
+        WebSharedDataSourcePool.SharedDataSource sharedDataSource = connection.getSharedDataSource();
+        if (sharedDataSource != null && dataContainer.getDataSource() == sharedDataSource.getDataSource()) {
+            WebSharedDataSourcePool.ContextLease contextLease = sharedDataSource.leaseContext(monitor, contextInfo.getDefaultCatalog(), contextInfo.getDefaultSchema());
+            if (dataContainer instanceof WebSQLQueryDataContainer) {
+                // Arbitrary SQL may switch default catalog or schema, they are restored when context is released
+                contextLease.markDirty();
+            }
+            return contextLease;
+        }
+        return WebSharedDataSourcePool.ContextLease.of(getExecutionContext(dataContainer));
+    }
+
     @NotNull
     public WebSQLContextInfo createContext(String defaultCatalog, String defaultSchema) throws DBCException {
         String contextId = String.valueOf(this.contextId.incrementAndGet());
@@ -131,6 +182,7 @@ public class WebSQLProcessor {
         @NotNull DBRProgressMonitor monitor,
         @NotNull WebSQLContextInfo contextInfo,
         @NotNull String sql,
+        @Nullable List<Object> parameters,
         @Nullable WebSQLDataFilter filter,
         @Nullable WebDataFormat dataFormat) throws DBWebException {
         if (filter == null) {
@@ -142,43 +194,87 @@ public class WebSQLProcessor {
 
         DBSDataContainer dataContainer = new WebSQLQueryDataContainer(connection.getDataSource(), sql);
 
-        DBCExecutionContext context = getExecutionContext(dataContainer);
+        try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataContainer)) {
+            DBCExecutionContext context = contextLease.getContext();
 
-        {
-            DBDDataFilter dataFilter = filter.makeDataFilter();
-            if (dataFilter.hasFilters()) {
+            DBDDataFilter filterModel = filter.makeDataFilter();
+            if (filterModel.hasFilters()) {
                 sql = context.getDataSource().getSQLDialect().addFiltersToQuery(
                     monitor,
                     context.getDataSource(),
                     sql,
-                    dataFilter);
+                    filterModel);
             }
-        }
-
-        final WebSQLDataFilter dataFilter = filter;
-        final String sqlQueryText = sql;
-        SQLQuery sqlQuery = new SQLQuery(context.getDataSource(), sqlQueryText);
 
-        try {
+            final WebSQLDataFilter dataFilter = filter;
+            final String sqlQueryText = sql;
+            SQLQuery sqlQuery = new SQLQuery(context.getDataSource(), sqlQueryText);
+
+            // Keep cursor open if there are more rows than fit in the first page.
+            // Leased shared contexts are returned to the pool right after execution, so they can't keep cursors.
+            // Cursor keeps its connection busy, so query is executed in own isolated context.
+            final boolean useCursor = !contextLease.isPooled() && contextInfo.getCursorRegistry().isEnabled() &&
+                sqlQuery.isPlainSelect() && isCursorSupported(context);
+            final long offset = dataFilter.getOffset();
+            final long maxRows = useCursor ? 0 : dataFilter.getLimit();
+            final boolean hasParameters = !CommonUtils.isEmpty(parameters);
+            // Only queries with parameters are prepared. Plain text may contain '?' or ':name' which are not parameters
+            // (e.g. PostgreSQL jsonb operators), so it is executed as script.
+            // Statements are reused in own contexts only. Leased shared contexts are used by other sessions.
+            final WebSQLStatementCache statementCache = contextInfo.getStatementCache();
+            final boolean reuseStatement = hasParameters && !useCursor && !contextLease.isPooled() && statementCache.getMaxSize() > 0;
+            final DBCStatementType statementType = hasParameters ? DBCStatementType.QUERY : DBCStatementType.SCRIPT;
             DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
-                try (DBCSession session = context.openSession(monitor, DBCExecutionPurpose.USER, "Execute SQL")) {
+                DBCExecutionContext queryContext;
+                try {
+                    queryContext = useCursor ? openCursorContext(monitor, contextInfo, context) : context;
+                } catch (DBException e) {
+                    throw new InvocationTargetException(e);
+                }
+                DBCSession session = queryContext.openSession(monitor, DBCExecutionPurpose.USER, "Execute SQL");
+                DBCStatement dbStat = null;
+                boolean cursorOpened = false;
+                boolean executed = false;
+                try {
                     AbstractExecutionSource source = new AbstractExecutionSource(
                         dataContainer,
                         session.getExecutionContext(),
                         WebSQLProcessor.this,
                         sqlQuery);
-                    try (DBCStatement dbStat = DBUtils.makeStatement(
+                    WebSQLStatementCache.StatementFactory statementFactory = () -> DBUtils.makeStatement(
                         source,
                         session,
-                        DBCStatementType.SCRIPT,
+                        statementType,
                         sqlQuery,
-                        dataFilter.getOffset(),
-                        dataFilter.getLimit()))
-                    {
-                        boolean hasResultSet = dbStat.executeStatement();
-                        fillQueryResults(contextInfo, dataContainer, dbStat, hasResultSet, executeInfo, dataFilter, dataFormat);
-                    } catch (DBException e) {
-                        throw new InvocationTargetException(e);
+                        offset,
+                        maxRows);
+                    if (reuseStatement) {
+                        dbStat = statementCache.openStatement(
+                            session,
+                            statementType + "|" + offset + "|" + maxRows + "|" + sqlQueryText,
+                            statementFactory);
+                    } else {
+                        dbStat = statementFactory.createStatement();
+                    }
+                    if (useCursor) {
+                        dbStat.setResultsFetchSize(dataFilter.getLimit());
+                    }
+                    bindQueryParameters(dbStat, parameters);
+                    boolean hasResultSet = dbStat.executeStatement();
+                    cursorOpened = fillQueryResults(contextInfo, dataContainer, session, dbStat, hasResultSet, executeInfo, dataFilter, dataFormat, useCursor);
+                    executed = true;
+                } catch (DBException e) {
+                    throw new InvocationTargetException(e);
+                } finally {
+                    if (!cursorOpened) {
+                        if (dbStat != null) {
+                            // Closes statement unless it is cached
+                            statementCache.releaseStatement(dbStat, executed);
+                        }
+                        session.close();
+                        if (queryContext != context) {
+                            queryContext.close();
+                        }
                     }
                 }
             });
@@ -195,6 +291,51 @@ public class WebSQLProcessor {
         return executeInfo;
     }
 
+    /**
+     * Checks that results cursors are enabled for the connection driver in server configuration
+     * and that session context has no open transaction (cursor context wouldn't see its changes).
+     */
+    private static boolean isCursorSupported(@NotNull DBCExecutionContext context) {
+        DBPDataSourceContainer container = context.getDataSource().getContainer();
+        if (!CBApplication.getInstance().getSQLCursorDrivers().contains(WebServiceUtils.makeDriverFullId(container.getDriver()))) {
+            return false;
+        }
+        DBCTransactionManager txnManager = DBUtils.getTransactionManager(context);
+        try {
+            return txnManager == null || txnManager.isAutoCommit();
+        } catch (DBCException e) {
+            log.debug("Error reading auto-commit mode", e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens isolated context for query which keeps results cursor. Context is owned by the cursor.
+     * It works in manual commit mode because some drivers read rows by fetch size only in transaction.
+     */
+    @NotNull
+    private static DBCExecutionContext openCursorContext(
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull DBCExecutionContext context) throws DBException
+    {
+        DBCExecutionContext cursorContext = context.getOwnerInstance().openIsolatedContext(monitor, "SQL results cursor", context);
+        try {
+            if (contextInfo.getDefaultCatalog() != null || contextInfo.getDefaultSchema() != null) {
+                DBExecUtils.setExecutionContextDefaults(
+                    monitor, cursorContext.getDataSource(), cursorContext, contextInfo.getDefaultCatalog(), null, contextInfo.getDefaultSchema());
+            }
+            DBCTransactionManager txnManager = DBUtils.getTransactionManager(cursorContext);
+            if (txnManager != null && txnManager.isAutoCommit()) {
+                txnManager.setAutoCommit(monitor, false);
+            }
+        } catch (DBException e) {
+            cursorContext.close();
+            throw e;
+        }
+        return cursorContext;
+    }
+
     @NotNull
     public WebSQLExecuteInfo readDataFromContainer(
         @NotNull WebSQLContextInfo contextInfo,
@@ -205,33 +346,145 @@ public class WebSQLProcessor {
 
         WebSQLExecuteInfo executeInfo = new WebSQLExecuteInfo();
 
-        DBCExecutionContext executionContext = getExecutionContext(dataContainer);
         DBDDataFilter dataFilter = filter.makeDataFilter();
-        DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
-            try (DBCSession session = executionContext.openSession(monitor, DBCExecutionPurpose.USER, "Read data from container")) {
-                try (WebSQLQueryDataReceiver dataReceiver = new WebSQLQueryDataReceiver(contextInfo, dataContainer, dataFormat)) {
-                    DBCStatistics statistics = dataContainer.readData(
-                        new WebExecutionSource(dataContainer, executionContext, this),
+        try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataContainer)) {
+            DBCExecutionContext executionContext = contextLease.getContext();
+            DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
+                try (DBCSession session = executionContext.openSession(monitor, DBCExecutionPurpose.USER, "Read data from container")) {
+                    try (WebSQLQueryDataReceiver dataReceiver = new WebSQLQueryDataReceiver(contextInfo, dataContainer, dataFormat)) {
+                        DBCStatistics statistics = dataContainer.readData(
+                            new WebExecutionSource(dataContainer, executionContext, this),
+                            session,
+                            dataReceiver,
+                            dataFilter,
+                            filter.getOffset(),
+                            filter.getLimit(),
+                            DBSDataContainer.FLAG_NONE,
+                            filter.getLimit());
+                        executeInfo.setDuration(statistics.getTotalTime());
+
+                        WebSQLQueryResults results = new WebSQLQueryResults(webSession, dataFormat);
+                        results.setResultSet(dataReceiver.getResultSet());
+                        executeInfo.setResults(new WebSQLQueryResults[]{results});
+
+                        executeInfo.setStatusMessage(dataReceiver.getResultSet().getRows().length + " row(s) fetched");
+                    } catch (DBException e) {
+                        throw new InvocationTargetException(e);
+                    }
+                }
+            });
+        }
+        return executeInfo;
+    }
+
+    /**
+     * Reads data from container and writes it directly in JSON stream.
+     * Rows are not retained in memory, so this method may be used for large result sets.
+     * Response object ends with status field. If reading fails after rows were written then
+     * status is "error" and errorMessage is set, so client can detect incomplete data.
+     */
+    public void readDataStream(
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull DBSDataContainer dataContainer,
+        @NotNull WebSQLDataFilter filter,
+        @Nullable WebDataFormat dataFormat,
+        @NotNull JsonWriter json) throws DBException {
+
+        DBDDataFilter dataFilter = filter.makeDataFilter();
+        int fetchSize = Math.min(filter.getLimit(), STREAM_FETCH_SIZE);
+        // Do not use recover here: partially written response can't be replayed
+        try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataContainer);
+             DBCSession session = contextLease.getContext().openSession(monitor, DBCExecutionPurpose.USER, "Stream data from container")) {
+            try (WebSQLQueryDataStreamReceiver dataReceiver = new WebSQLQueryDataStreamReceiver(contextInfo, dataContainer, dataFormat, json)) {
+                json.beginObject();
+                DBCStatistics statistics;
+                try {
+                    statistics = dataContainer.readData(
+                        new WebExecutionSource(dataContainer, contextLease.getContext(), this),
                         session,
                         dataReceiver,
                         dataFilter,
                         filter.getOffset(),
                         filter.getLimit(),
                         DBSDataContainer.FLAG_NONE,
-                        filter.getLimit());
-                    executeInfo.setDuration(statistics.getTotalTime());
+                        fetchSize);
+                } catch (Throwable e) {
+                    // Response may be already committed, so terminate it with error status
+                    writeStreamError(json, dataReceiver, e);
+                    throw e;
+                }
+                json.name("status").value(STREAM_STATUS_OK);
+                json.name("updateRowCount").value(statistics.getRowsUpdated());
+                json.name("duration").value(statistics.getTotalTime());
+                json.name("statusMessage").value(dataReceiver.isStarted() ? dataReceiver.getRowCount() + " row(s) fetched" : "No Data");
+                json.endObject();
+                json.flush();
+            } catch (IOException e) {
+                throw new DBCException("Error writing data stream", e);
+            }
+        }
+    }
 
-                    WebSQLQueryResults results = new WebSQLQueryResults(webSession, dataFormat);
-                    results.setResultSet(dataReceiver.getResultSet());
-                    executeInfo.setResults(new WebSQLQueryResults[]{results});
+    private static void writeStreamError(@NotNull JsonWriter json, @NotNull WebSQLQueryDataStreamReceiver dataReceiver, @NotNull Throwable error) {
+        try {
+            dataReceiver.closeOpenElements();
+            json.name("status").value(STREAM_STATUS_ERROR);
+            json.name("rowCount").value(dataReceiver.getRowCount());
+            json.name("errorMessage").value(CommonUtils.notEmpty(error.getMessage()));
+            json.endObject();
+            json.flush();
+        } catch (Throwable e) {
+            // Client has gone or stream is broken
+            log.debug("Error writing data stream error status", e);
+        }
+    }
 
-                    executeInfo.setStatusMessage(dataReceiver.getResultSet().getRows().length + " row(s) fetched");
-                } catch (DBException e) {
-                    throw new InvocationTargetException(e);
-                }
+    /**
+     * Writes page of saved results in binary columnar format.
+     * If results have open cursor and continueCursor is set then next page is read from cursor,
+     * otherwise data is re-read from results data container using filter offset and limit.
+     */
+    public void readColumnarData(
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull String resultsId,
+        @NotNull WebSQLDataFilter filter,
+        boolean continueCursor,
+        @NotNull DataOutputStream out) throws DBException, IOException
+    {
+        WebSQLResultsInfo resultsInfo = contextInfo.getResults(resultsId);
+        DBSDataContainer dataContainer = resultsInfo.getDataContainer();
+        WebSQLResultsCursor cursor = continueCursor ? contextInfo.getResultsCursor(resultsId) : null;
+
+        WebSQLColumnarDataReceiver dataReceiver;
+        if (cursor != null) {
+            dataReceiver = new WebSQLColumnarDataReceiver(webSession, dataContainer, cursor.getMetaBindings(), filter.getLimit());
+            dataReceiver.setHasMoreData(cursor.fetchNextRows(filter.getLimit(), dataReceiver));
+        } else {
+            dataReceiver = new WebSQLColumnarDataReceiver(webSession, dataContainer, null, filter.getLimit());
+            DBDDataFilter dataFilter = filter.makeDataFilter();
+            try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataContainer)) {
+                DBCExecutionContext executionContext = contextLease.getContext();
+                DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
+                    try (DBCSession session = executionContext.openSession(monitor, DBCExecutionPurpose.USER, "Read columnar data")) {
+                        // Read one extra row to detect that there is more data
+                        dataContainer.readData(
+                            new WebExecutionSource(dataContainer, executionContext, this),
+                            session,
+                            dataReceiver,
+                            dataFilter,
+                            filter.getOffset(),
+                            filter.getLimit() + 1,
+                            DBSDataContainer.FLAG_NONE,
+                            filter.getLimit() + 1);
+                    } catch (DBException e) {
+                        throw new InvocationTargetException(e);
+                    }
+                });
             }
-        });
-        return executeInfo;
+        }
+        dataReceiver.writeResults(out);
     }
 
     @WebAction
@@ -255,8 +508,8 @@ public class WebSQLProcessor {
 
         try {
             DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
-                try {
-                    DBCExecutionContext executionContext = getExecutionContext(dataManipulator);
+                try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataManipulator)) {
+                    DBCExecutionContext executionContext = contextLease.getContext();
                     try (DBCSession session = executionContext.openSession(monitor, DBCExecutionPurpose.USER, "Update data in container")) {
                         WebExecutionSource executionSource = new WebExecutionSource(dataManipulator, executionContext, this);
 
@@ -335,89 +588,50 @@ public class WebSQLProcessor {
 
         try {
             DBExecUtils.tryExecuteRecover(monitor, connection.getDataSource(), param -> {
-                try {
-                    DBCExecutionContext executionContext = getExecutionContext(dataManipulator);
+                try (WebSharedDataSourcePool.ContextLease contextLease = openExecutionContext(monitor, contextInfo, dataManipulator)) {
+                    DBCExecutionContext executionContext = contextLease.getContext();
                     try (DBCSession session = executionContext.openSession(monitor, DBCExecutionPurpose.USER, "Update rows in container")) {
                         WebExecutionSource executionSource = new WebExecutionSource(dataManipulator, executionContext, this);
-
-                        DBDAttributeBinding[] allAttributes = resultsInfo.getAttributes();
                         DBDAttributeBinding[] keyAttributes = rowIdentifier.getAttributes().toArray(new DBDAttributeBinding[0]);
 
-                        if (!CommonUtils.isEmpty(updatedRows)) {
-                            WebSQLQueryResultSet updatedResultSet = new WebSQLQueryResultSet();
-                            updatedResultSet.setResultsInfo(resultsInfo);
-                            updatedResultSet.setColumns(resultsInfo.getAttributes());
-                            long totalUpdateCount = 0;
-
-                            List <Object[]> resultRows = new ArrayList<>();
-
-                            for (WebSQLResultsRow row : updatedRows) {
-                                Map<String, Object> updateValues = row.getUpdateValues();
-                                if (CommonUtils.isEmpty(row.getData()) || CommonUtils.isEmpty(updateValues)) {
-                                    continue;
-                                }
-                                DBDAttributeBinding[] updateAttributes = new DBDAttributeBinding[updateValues.size()];
-                                // Final row is what we return back
-                                Object[] finalRow = row.getData().toArray();
-
-                                int index = 0;
-                                for (String indexStr : updateValues.keySet()) {
-                                    int attrIndex = CommonUtils.toInt(indexStr, -1);
-                                    updateAttributes[index++] = allAttributes[attrIndex];
-                                }
-
-                                Object[] rowValues = new Object[updateAttributes.length + keyAttributes.length];
-                                for (int i = 0; i < updateAttributes.length; i++) {
-                                    DBDAttributeBinding updateAttribute = updateAttributes[i];
-                                    Object cellRawValue = updateValues.get(String.valueOf(updateAttribute.getOrdinalPosition()));
-                                    Object realCellValue = updateAttribute.getValueHandler().getValueFromObject(session, updateAttribute, cellRawValue, false, true);
-                                    rowValues[i] = realCellValue;
-                                    finalRow[updateAttribute.getOrdinalPosition()] = WebSQLUtils.makeWebCellValue(webSession, null, realCellValue, dataFormat);
-                                }
-                                for (int i = 0; i < keyAttributes.length; i++) {
-                                    DBDAttributeBinding keyAttribute = keyAttributes[i];
-                                    if (keyAttributes.length == 1 && keyAttribute.getDataKind() == DBPDataKind.DOCUMENT && dataContainer instanceof DBSDocumentLocator) {
-                                        // Document reference
-                                        Map<String, Object> keyMap = new LinkedHashMap<>();
-                                        DBDAttributeBinding[] attributes = resultsInfo.getAttributes();
-                                        for (int j = 0; j < attributes.length; j++) {
-                                            DBDAttributeBinding attr = attributes[j];
-                                            keyMap.put(attr.getName(), row.getData().get(j));
-                                        }
-                                        DBDDocument document = ((DBSDocumentLocator) dataContainer).findDocument(session.getProgressMonitor(), keyMap);
-                                        if (document == null) {
-                                            throw new DBCException("Error finding document by key " + keyMap);
-                                        }
-                                        rowValues[updateAttributes.length + i] = document;
-                                    } else {
-                                        Object cellValueRaw = finalRow[keyAttribute.getOrdinalPosition()];
-                                        rowValues[updateAttributes.length + i] = keyAttribute.getValueHandler().getValueFromObject(session, keyAttribute, cellValueRaw, false, true);
-                                    }
+                        // All changes are applied in one transaction. In manual commit mode changes are left in the current transaction.
+                        DBCTransactionManager txnManager = DBUtils.getTransactionManager(executionContext);
+                        boolean restoreAutoCommit = txnManager != null && txnManager.isAutoCommit();
+                        if (restoreAutoCommit) {
+                            txnManager.setAutoCommit(monitor, false);
+                        }
+                        try {
+                            // Deletes go first (like in result set persister), so updated and added rows may reuse
+                            // unique keys of deleted rows
+                            if (!CommonUtils.isEmpty(deletedRows)) {
+                                queryResults.add(
+                                    deleteRows(session, executionSource, resultsInfo, dataManipulator, keyAttributes, deletedRows, result, dataFormat));
+                            }
+                            if (!CommonUtils.isEmpty(updatedRows)) {
+                                queryResults.add(
+                                    updateRows(session, executionSource, resultsInfo, dataManipulator, keyAttributes, updatedRows, result, dataFormat));
+                            }
+                            if (!CommonUtils.isEmpty(addedRows)) {
+                                queryResults.add(
+                                    insertRows(session, executionSource, resultsInfo, dataManipulator, addedRows, result, dataFormat));
+                            }
+                            if (restoreAutoCommit) {
+                                txnManager.commit(session);
+                            }
+                        } catch (Exception e) {
+                            queryResults.clear();
+                            if (restoreAutoCommit) {
+                                try {
+                                    txnManager.rollback(session, null);
+                                } catch (DBCException e1) {
+                                    log.error("Error rolling back data changes", e1);
                                 }
-
-                                DBSDataManipulator.ExecuteBatch updateBatch = dataManipulator.updateData(session, updateAttributes, keyAttributes, null, executionSource);
-                                updateBatch.add(rowValues);
-                                DBCStatistics statistics = updateBatch.execute(session, Collections.emptyMap());
-
-                                totalUpdateCount += statistics.getRowsUpdated();
-                                result.setDuration(result.getDuration() + statistics.getExecuteTime());
-                                resultRows.add(finalRow);
                             }
-
-                            WebSQLQueryResults updateResults = new WebSQLQueryResults(webSession, dataFormat);
-                            updateResults.setUpdateRowCount(totalUpdateCount);
-                            updateResults.setResultSet(updatedResultSet);
-                            updatedResultSet.setRows(resultRows.toArray(new Object[0][]));
-
-                            queryResults.add(updateResults);
-                        }
-
-                        if (!CommonUtils.isEmpty(addedRows)) {
-                            throw new DBCException("New row add is not supported");
-                        }
-
-                        if (!CommonUtils.isEmpty(deletedRows)) {
-                            throw new DBCException("Row delete is not supported");
+                            throw e;
+                        } finally {
+                            if (restoreAutoCommit) {
+                                txnManager.setAutoCommit(monitor, true);
+                            }
                         }
                     }
                 } catch (Exception e) {
@@ -431,6 +645,268 @@ public class WebSQLProcessor {
         return result;
     }
 
+    /**
+     * Updates rows. Rows with the same set of changed attributes are updated in one statement batch.
+     */
+    private WebSQLQueryResults updateRows(
+        @NotNull DBCSession session,
+        @NotNull WebExecutionSource executionSource,
+        @NotNull WebSQLResultsInfo resultsInfo,
+        @NotNull DBSDataManipulator dataManipulator,
+        @NotNull DBDAttributeBinding[] keyAttributes,
+        @NotNull List<WebSQLResultsRow> rows,
+        @NotNull WebSQLExecuteInfo result,
+        @Nullable WebDataFormat dataFormat) throws DBException
+    {
+        DBDAttributeBinding[] allAttributes = resultsInfo.getAttributes();
+        // Final rows are what we return back
+        List<Object[]> resultRows = new ArrayList<>();
+        Map<String, List<Object[]>> batchRows = new LinkedHashMap<>();
+        Map<String, DBDAttributeBinding[]> batchAttributes = new HashMap<>();
+
+        for (WebSQLResultsRow row : rows) {
+            Map<String, Object> updateValues = row.getUpdateValues();
+            if (CommonUtils.isEmpty(row.getData()) || CommonUtils.isEmpty(updateValues)) {
+                continue;
+            }
+            // Attributes are sorted, so the same set of changed attributes gives the same batch key
+            DBDAttributeBinding[] updateAttributes = getRowAttributes(allAttributes, updateValues.keySet());
+            String batchKey = makeAttributesKey(updateAttributes);
+            batchAttributes.putIfAbsent(batchKey, updateAttributes);
+
+            Object[] finalRow = row.getData().toArray();
+            Object[] rowValues = new Object[updateAttributes.length + keyAttributes.length];
+            for (int i = 0; i < updateAttributes.length; i++) {
+                DBDAttributeBinding updateAttribute = updateAttributes[i];
+                Object cellRawValue = updateValues.get(String.valueOf(updateAttribute.getOrdinalPosition()));
+                Object realCellValue = updateAttribute.getValueHandler().getValueFromObject(session, updateAttribute, cellRawValue, false, true);
+                rowValues[i] = realCellValue;
+                finalRow[updateAttribute.getOrdinalPosition()] = WebSQLUtils.makeWebCellValue(webSession, null, realCellValue, dataFormat);
+            }
+            Object[] keyValues = getRowKeyValues(session, resultsInfo, (DBSEntity) dataManipulator, keyAttributes, row.getData());
+            System.arraycopy(keyValues, 0, rowValues, updateAttributes.length, keyValues.length);
+
+            batchRows.computeIfAbsent(batchKey, k -> new ArrayList<>()).add(rowValues);
+            resultRows.add(finalRow);
+        }
+
+        long totalUpdateCount = 0;
+        for (Map.Entry<String, List<Object[]>> batch : batchRows.entrySet()) {
+            DBSDataManipulator.ExecuteBatch updateBatch = dataManipulator.updateData(
+                session, batchAttributes.get(batch.getKey()), keyAttributes, null, executionSource);
+            totalUpdateCount += executeBatch(session, updateBatch, batch.getValue(), result);
+        }
+        return makeBatchResults(resultsInfo, resultRows, totalUpdateCount, dataFormat);
+    }
+
+    /**
+     * Inserts new rows. Rows with the same set of specified attributes are inserted in one statement batch.
+     * If table has auto-generated keys then rows are inserted one by one and generated keys are returned in result rows.
+     */
+    private WebSQLQueryResults insertRows(
+        @NotNull DBCSession session,
+        @NotNull WebExecutionSource executionSource,
+        @NotNull WebSQLResultsInfo resultsInfo,
+        @NotNull DBSDataManipulator dataManipulator,
+        @NotNull List<WebSQLResultsRow> rows,
+        @NotNull WebSQLExecuteInfo result,
+        @Nullable WebDataFormat dataFormat) throws DBException
+    {
+        DBDAttributeBinding[] allAttributes = resultsInfo.getAttributes();
+        List<Object[]> resultRows = new ArrayList<>();
+        Map<String, List<Object[]>> batchRows = new LinkedHashMap<>();
+        Map<String, List<Object[]>> batchResultRows = new HashMap<>();
+        Map<String, DBDAttributeBinding[]> batchAttributes = new HashMap<>();
+
+        for (WebSQLResultsRow row : rows) {
+            // New row values are either in update values or in row data
+            Map<String, Object> insertValues = new LinkedHashMap<>();
+            if (!CommonUtils.isEmpty(row.getUpdateValues())) {
+                insertValues.putAll(row.getUpdateValues());
+            } else if (!CommonUtils.isEmpty(row.getData())) {
+                for (int i = 0; i < row.getData().size() && i < allAttributes.length; i++) {
+                    if (row.getData().get(i) != null) {
+                        insertValues.put(String.valueOf(i), row.getData().get(i));
+                    }
+                }
+            }
+            DBDAttributeBinding[] insertAttributes = getRowAttributes(allAttributes, insertValues.keySet());
+            insertAttributes = Arrays.stream(insertAttributes)
+                .filter(attr -> !attr.isPseudoAttribute())
+                .toArray(DBDAttributeBinding[]::new);
+            if (insertAttributes.length == 0) {
+                continue;
+            }
+            String batchKey = makeAttributesKey(insertAttributes);
+            batchAttributes.putIfAbsent(batchKey, insertAttributes);
+
+            Object[] finalRow = new Object[allAttributes.length];
+            Object[] rowValues = new Object[insertAttributes.length];
+            for (int i = 0; i < insertAttributes.length; i++) {
+                DBDAttributeBinding insertAttribute = insertAttributes[i];
+                Object cellRawValue = insertValues.get(String.valueOf(insertAttribute.getOrdinalPosition()));
+                Object realCellValue = insertAttribute.getValueHandler().getValueFromObject(session, insertAttribute, cellRawValue, false, true);
+                rowValues[i] = realCellValue;
+                finalRow[insertAttribute.getOrdinalPosition()] = WebSQLUtils.makeWebCellValue(webSession, null, realCellValue, dataFormat);
+            }
+            batchRows.computeIfAbsent(batchKey, k -> new ArrayList<>()).add(rowValues);
+            batchResultRows.computeIfAbsent(batchKey, k -> new ArrayList<>()).add(finalRow);
+            resultRows.add(finalRow);
+        }
+
+        long totalInsertCount = 0;
+        for (Map.Entry<String, List<Object[]>> batch : batchRows.entrySet()) {
+            DBDAttributeBinding[] insertAttributes = batchAttributes.get(batch.getKey());
+            if (!WebSQLGeneratedKeysReceiver.hasGeneratedAttributes(allAttributes, insertAttributes)) {
+                DBSDataManipulator.ExecuteBatch insertBatch = dataManipulator.insertData(
+                    session, insertAttributes, null, executionSource);
+                totalInsertCount += executeBatch(session, insertBatch, batch.getValue(), result);
+                continue;
+            }
+            // Generated keys can be matched to rows only if each row is inserted separately
+            List<Object[]> rowValues = batch.getValue();
+            List<Object[]> finalRows = batchResultRows.get(batch.getKey());
+            for (int i = 0; i < rowValues.size(); i++) {
+                WebSQLGeneratedKeysReceiver keysReceiver = new WebSQLGeneratedKeysReceiver(webSession, allAttributes, finalRows.get(i), dataFormat);
+                DBSDataManipulator.ExecuteBatch insertBatch = dataManipulator.insertData(
+                    session, insertAttributes, keysReceiver, executionSource);
+                totalInsertCount += executeBatch(session, insertBatch, Collections.singletonList(rowValues.get(i)), result);
+            }
+        }
+        return makeBatchResults(resultsInfo, resultRows, totalInsertCount, dataFormat);
+    }
+
+    /**
+     * Deletes rows by row identifier in one statement batch.
+     */
+    private WebSQLQueryResults deleteRows(
+        @NotNull DBCSession session,
+        @NotNull WebExecutionSource executionSource,
+        @NotNull WebSQLResultsInfo resultsInfo,
+        @NotNull DBSDataManipulator dataManipulator,
+        @NotNull DBDAttributeBinding[] keyAttributes,
+        @NotNull List<WebSQLResultsRow> rows,
+        @NotNull WebSQLExecuteInfo result,
+        @Nullable WebDataFormat dataFormat) throws DBException
+    {
+        List<Object[]> resultRows = new ArrayList<>();
+        List<Object[]> keyRows = new ArrayList<>();
+        for (WebSQLResultsRow row : rows) {
+            if (CommonUtils.isEmpty(row.getData())) {
+                continue;
+            }
+            keyRows.add(getRowKeyValues(session, resultsInfo, (DBSEntity) dataManipulator, keyAttributes, row.getData()));
+            resultRows.add(row.getData().toArray());
+        }
+        long totalDeleteCount = 0;
+        if (!keyRows.isEmpty()) {
+            DBSDataManipulator.ExecuteBatch deleteBatch = dataManipulator.deleteData(session, keyAttributes, executionSource);
+            totalDeleteCount = executeBatch(session, deleteBatch, keyRows, result);
+        }
+        return makeBatchResults(resultsInfo, resultRows, totalDeleteCount, dataFormat);
+    }
+
+    private static long executeBatch(DBCSession session, DBSDataManipulator.ExecuteBatch batch, List<Object[]> rows, WebSQLExecuteInfo result) throws DBCException {
+        try {
+            for (Object[] rowValues : rows) {
+                batch.add(rowValues);
+            }
+            DBCStatistics statistics = batch.execute(session, Collections.emptyMap());
+            result.setDuration(result.getDuration() + statistics.getExecuteTime());
+            return statistics.getRowsUpdated();
+        } finally {
+            batch.close();
+        }
+    }
+
+    private WebSQLQueryResults makeBatchResults(WebSQLResultsInfo resultsInfo, List<Object[]> resultRows, long updateCount, WebDataFormat dataFormat) {
+        WebSQLQueryResultSet resultSet = new WebSQLQueryResultSet();
+        resultSet.setResultsInfo(resultsInfo);
+        resultSet.setColumns(resultsInfo.getAttributes());
+        resultSet.setRows(resultRows.toArray(new Object[0][]));
+
+        WebSQLQueryResults queryResults = new WebSQLQueryResults(webSession, dataFormat);
+        queryResults.setUpdateRowCount(updateCount);
+        queryResults.setResultSet(resultSet);
+        return queryResults;
+    }
+
+    @NotNull
+    private static DBDAttributeBinding[] getRowAttributes(DBDAttributeBinding[] allAttributes, Collection<String> attributeIndexes) throws DBCException {
+        int[] indexes = new int[attributeIndexes.size()];
+        int index = 0;
+        for (String indexStr : attributeIndexes) {
+            int attrIndex = CommonUtils.toInt(indexStr, -1);
+            if (attrIndex < 0 || attrIndex >= allAttributes.length) {
+                throw new DBCException("Bad attribute index " + indexStr);
+            }
+            indexes[index++] = attrIndex;
+        }
+        Arrays.sort(indexes);
+        DBDAttributeBinding[] attributes = new DBDAttributeBinding[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            attributes[i] = allAttributes[indexes[i]];
+        }
+        return attributes;
+    }
+
+    private static String makeAttributesKey(DBDAttributeBinding[] attributes) {
+        StringBuilder key = new StringBuilder();
+        for (DBDAttributeBinding attribute : attributes) {
+            key.append(attribute.getOrdinalPosition()).append(',');
+        }
+        return key.toString();
+    }
+
+    @NotNull
+    private static Object[] getRowKeyValues(
+        @NotNull DBCSession session,
+        @NotNull WebSQLResultsInfo resultsInfo,
+        @NotNull DBSEntity dataContainer,
+        @NotNull DBDAttributeBinding[] keyAttributes,
+        @NotNull List<?> rowData) throws DBException
+    {
+        Object[] keyValues = new Object[keyAttributes.length];
+        for (int i = 0; i < keyAttributes.length; i++) {
+            DBDAttributeBinding keyAttribute = keyAttributes[i];
+            if (keyAttributes.length == 1 && keyAttribute.getDataKind() == DBPDataKind.DOCUMENT && dataContainer instanceof DBSDocumentLocator) {
+                // Document reference
+                Map<String, Object> keyMap = new LinkedHashMap<>();
+                DBDAttributeBinding[] attributes = resultsInfo.getAttributes();
+                for (int j = 0; j < attributes.length; j++) {
+                    DBDAttributeBinding attr = attributes[j];
+                    keyMap.put(attr.getName(), rowData.get(j));
+                }
+                DBDDocument document = ((DBSDocumentLocator) dataContainer).findDocument(session.getProgressMonitor(), keyMap);
+                if (document == null) {
+                    throw new DBCException("Error finding document by key " + keyMap);
+                }
+                keyValues[i] = document;
+            } else {
+                Object cellValueRaw = rowData.get(keyAttribute.getOrdinalPosition());
+                keyValues[i] = keyAttribute.getValueHandler().getValueFromObject(session, keyAttribute, cellValueRaw, false, true);
+            }
+        }
+        return keyValues;
+    }
+
+    private static void bindQueryParameters(@NotNull DBCStatement dbStat, @Nullable List<Object> parameters) throws DBCException {
+        if (CommonUtils.isEmpty(parameters)) {
+            return;
+        }
+        if (!(dbStat instanceof PreparedStatement)) {
+            throw new DBCException("Query parameters are not supported by " + dbStat.getSession().getDataSource().getName());
+        }
+        try {
+            PreparedStatement preparedStatement = (PreparedStatement) dbStat;
+            for (int i = 0; i < parameters.size(); i++) {
+                preparedStatement.setObject(i + 1, parameters.get(i));
+            }
+        } catch (SQLException e) {
+            throw new DBCException("Error binding query parameters", e);
+        }
+    }
+
     private void checkRowIdentifier(WebSQLResultsInfo resultsInfo, DBDRowIdentifier rowIdentifier) throws DBWebException {
         if (rowIdentifier == null || !rowIdentifier.isValidIdentifier()) {
             throw new DBWebException("Can't detect row identifier for data container '" + resultsInfo.getDataContainer().getName() + "'. It must have at least one unique key.");
@@ -445,7 +921,7 @@ public class WebSQLProcessor {
 
     @NotNull
     public <T> T getDataContainerByNodePath(DBRProgressMonitor monitor, @NotNull String containerPath, Class<T> type) throws DBException {
-        DBNNode node = webSession.getNavigatorModel().getNodeByPath(monitor, containerPath);
+        DBNNode node = webSession.getNavigatorNode(monitor, containerPath);
         if (node == null) {
             throw new DBWebException("Container node '" + containerPath + "' not found");
         }
@@ -460,14 +936,53 @@ public class WebSQLProcessor {
     }
 
 
-    private void fillQueryResults(
+    @NotNull
+    public WebSQLExecuteInfo fetchNextPage(
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull String resultsId,
+        @Nullable Integer limit,
+        @Nullable WebDataFormat dataFormat) throws DBWebException
+    {
+        WebSQLResultsInfo resultsInfo = contextInfo.getResults(resultsId);
+        WebSQLResultsCursor cursor = contextInfo.getResultsCursor(resultsId);
+        if (cursor == null) {
+            throw new DBWebException("Results '" + resultsId + "' have no open cursor. Query must be re-executed.");
+        }
+        WebSQLDataFilter filter = limit == null ?
+            new WebSQLDataFilter() :
+            new WebSQLDataFilter(Collections.singletonMap("limit", limit));
+
+        long startTime = System.currentTimeMillis();
+        WebSQLExecuteInfo executeInfo = new WebSQLExecuteInfo();
+        WebSQLQueryResults results = new WebSQLQueryResults(webSession, dataFormat);
+        try {
+            WebSQLQueryResultSet resultSet = cursor.fetchNextPage(filter.getLimit(), dataFormat);
+            results.setResultSet(resultSet);
+            executeInfo.setStatusMessage(resultSet.getRows().length + " row(s) fetched");
+        } catch (DBException e) {
+            throw new DBWebException("Error reading next page of results '" + resultsInfo.getId() + "'", e);
+        }
+        executeInfo.setResults(new WebSQLQueryResults[]{results});
+        executeInfo.setDuration(System.currentTimeMillis() - startTime);
+        return executeInfo;
+    }
+
+    /**
+     * Reads query results. If cursor is requested and first result set has more rows than limit
+     * then cursor is saved in context and remaining results are not read.
+     * @return true if statement was kept open by results cursor
+     */
+    private boolean fillQueryResults(
         @NotNull WebSQLContextInfo contextInfo, @NotNull DBSDataContainer dataContainer,
+        @NotNull DBCSession session,
         @NotNull DBCStatement dbStat,
         boolean hasResultSet,
         @NotNull WebSQLExecuteInfo executeInfo,
         @NotNull WebSQLDataFilter filter,
-        @Nullable WebDataFormat dataFormat) throws DBException {
+        @Nullable WebDataFormat dataFormat,
+        boolean useCursor) throws DBException {
 
+        boolean cursorOpened = false;
         List<WebSQLQueryResults> resultList = new ArrayList<>();
         for (int i = 0; i < MAX_RESULTS_COUNT; i++) {
             WebSQLQueryResults results = new WebSQLQueryResults(webSession, dataFormat);
@@ -477,8 +992,25 @@ public class WebSQLProcessor {
                     break;
                 }
                 try (WebSQLQueryDataReceiver dataReceiver = new WebSQLQueryDataReceiver(contextInfo, dataContainer, dataFormat)) {
-                    readResultSet(dbStat.getSession(), resultSet, filter, dataReceiver);
-                    results.setResultSet(dataReceiver.getResultSet());
+                    boolean hasMoreData = readResultSet(session, resultSet, filter.getLimit(), dataReceiver, false);
+                    WebSQLQueryResultSet webResultSet = dataReceiver.getResultSet();
+                    webResultSet.setHasMoreData(hasMoreData);
+                    results.setResultSet(webResultSet);
+                    if (hasMoreData && useCursor) {
+                        contextInfo.saveResultsCursor(new WebSQLResultsCursor(
+                            contextInfo,
+                            webResultSet.getResultsInfo(),
+                            dataReceiver.getMetaBindings(),
+                            session,
+                            dbStat,
+                            resultSet));
+                        cursorOpened = true;
+                    }
+                } finally {
+                    if (!cursorOpened) {
+                        // Statement may be reused, so its results are closed right away
+                        resultSet.close();
+                    }
                 }
             } else {
                 int updateRowCount = dbStat.getUpdateRowCount();
@@ -489,17 +1021,30 @@ public class WebSQLProcessor {
                 }
             }
             resultList.add(results);
+            if (cursorOpened) {
+                // Further results would close the open result set
+                break;
+            }
             hasResultSet = dbStat.nextResults();
         }
 
         executeInfo.setResults(resultList.toArray(new WebSQLQueryResults[0]));
+        return cursorOpened;
     }
 
-    private void readResultSet(@NotNull DBCSession session, @NotNull DBCResultSet dbResult, @NotNull WebSQLDataFilter filter, @NotNull WebSQLQueryDataReceiver dataReceiver) throws DBCException {
-        dataReceiver.fetchStart(session, dbResult, filter.getOffset(), filter.getLimit());
-        int rowCount = 0;
-        while (dbResult.nextRow()) {
-            if (rowCount > filter.getLimit()) {
+    /**
+     * Reads up to limit rows from result set.
+     * @param rowPending result set is already positioned on the row which wasn't read yet
+     * @return true if result set has more rows. In this case result set is positioned on the first unread row.
+     */
+    static boolean readResultSet(@NotNull DBCSession session, @NotNull DBCResultSet dbResult, long limit, @NotNull DBDDataReceiver dataReceiver, boolean rowPending) throws DBCException {
+        dataReceiver.fetchStart(session, dbResult, 0, limit);
+        long rowCount = 0;
+        boolean hasMoreData = false;
+        while (rowPending || dbResult.nextRow()) {
+            rowPending = false;
+            if (rowCount >= limit) {
+                hasMoreData = true;
                 break;
             }
 
@@ -507,6 +1052,7 @@ public class WebSQLProcessor {
             rowCount++;
         }
         dataReceiver.fetchEnd(session, dbResult);
+        return hasMoreData;
     }
 
     ///////////////////////////////////////////////////////
@@ -41,6 +41,9 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
     private WebDataFormat dataFormat;
     private WebSQLQueryResultSet webResultSet = new WebSQLQueryResultSet();
 
+    // Existing results. Set when we read next page of results from open cursor
+    private WebSQLResultsInfo resultsInfo;
+    private DBDAttributeBinding[] metaBindings;
     private DBDAttributeBinding[] bindings;
     private List<Object[]> rows = new ArrayList<>();
 
@@ -50,12 +53,30 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         this.dataFormat = dataFormat;
     }
 
+    WebSQLQueryDataReceiver(WebSQLContextInfo contextInfo, WebSQLResultsInfo resultsInfo, DBDAttributeBinding[] metaBindings, WebDataFormat dataFormat) {
+        this(contextInfo, resultsInfo.getDataContainer(), dataFormat);
+        this.resultsInfo = resultsInfo;
+        this.metaBindings = metaBindings;
+    }
+
     public WebSQLQueryResultSet getResultSet() {
         return webResultSet;
     }
 
+    /**
+     * Bound result set attributes (before complex values conversion)
+     */
+    DBDAttributeBinding[] getMetaBindings() {
+        return metaBindings;
+    }
+
     @Override
     public void fetchStart(DBCSession session, DBCResultSet dbResult, long offset, long maxRows) throws DBCException {
+        if (metaBindings != null) {
+            // Attributes are already bound
+            bindings = metaBindings;
+            return;
+        }
         DBCResultSetMetaData meta = dbResult.getMeta();
         List<DBCAttributeMetaData> attributes = meta.getAttributes();
         bindings = new DBDAttributeBindingMeta[attributes.size()];
@@ -92,10 +113,13 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         WebSession webSession = contextInfo.getProcessor().getWebSession();
         DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : null;
 
-        try {
-            DBExecUtils.bindAttributes(session, entity, resultSet, bindings, rows);
-        } catch (DBException e) {
-            log.error("Error binding attributes", e);
+        if (resultsInfo == null) {
+            try {
+                DBExecUtils.bindAttributes(session, entity, resultSet, bindings, rows);
+            } catch (DBException e) {
+                log.error("Error binding attributes", e);
+            }
+            metaBindings = bindings;
         }
 
         if (dataFormat != WebDataFormat.document) {
@@ -114,17 +138,19 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         }
 
         // Convert row values
+        WebSQLCellConverter[] converters = WebSQLCellConverter.createConverters(webSession, bindings, dataFormat);
         for (Object[] row : rows) {
-            for (int i = 0; i < bindings.length; i++) {
-                DBDAttributeBinding binding = bindings[i];
-                row[i] = WebSQLUtils.makeWebCellValue(webSession, binding, row[i], dataFormat);
+            for (int i = 0; i < converters.length; i++) {
+                row[i] = converters[i].convertValue(row[i]);
             }
         }
 
         webResultSet.setColumns(bindings);
         webResultSet.setRows(rows.toArray(new Object[0][]));
 
-        WebSQLResultsInfo resultsInfo = contextInfo.saveResult(dataContainer, bindings);
+        if (resultsInfo == null) {
+            resultsInfo = contextInfo.saveResult(dataContainer, bindings);
+        }
         webResultSet.setResultsInfo(resultsInfo);
     }
 
@@ -0,0 +1,209 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDAttributeBindingMeta;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.data.DBDValueError;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.model.struct.DBSEntity;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data receiver which writes rows directly into JSON stream.
+ * Rows are converted and serialized as soon as they are fetched so memory consumption doesn't depend on rows count.
+ * Complex values are serialized as nested objects (they are not flattened into leaf columns).
+ */
+class WebSQLQueryDataStreamReceiver implements DBDDataReceiver {
+    private static final Log log = Log.getLog(WebSQLQueryDataStreamReceiver.class);
+
+    private static final Gson gson = new GsonBuilder()
+        .serializeNulls()
+        .create();
+
+    private final WebSQLContextInfo contextInfo;
+    private final DBSDataContainer dataContainer;
+    private final WebDataFormat dataFormat;
+    private final JsonWriter json;
+
+    private DBDAttributeBinding[] bindings;
+    private WebSQLCellConverter[] converters;
+    private long rowCount;
+    private boolean started;
+    private boolean finished;
+    private boolean rowOpen;
+
+    WebSQLQueryDataStreamReceiver(WebSQLContextInfo contextInfo, DBSDataContainer dataContainer, WebDataFormat dataFormat, JsonWriter json) {
+        this.contextInfo = contextInfo;
+        this.dataContainer = dataContainer;
+        this.dataFormat = dataFormat;
+        this.json = json;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void fetchStart(DBCSession session, DBCResultSet dbResult, long offset, long maxRows) throws DBCException {
+        DBCResultSetMetaData meta = dbResult.getMeta();
+        List<DBCAttributeMetaData> attributes = meta.getAttributes();
+        bindings = new DBDAttributeBindingMeta[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            DBCAttributeMetaData attrMeta = attributes.get(i);
+            bindings[i] = new DBDAttributeBindingMeta(dataContainer, dbResult.getSession(), attrMeta);
+        }
+
+        DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : null;
+        try {
+            // We do not have rows yet so dynamic bindings are resolved by metadata only
+            DBExecUtils.bindAttributes(session, entity, dbResult, bindings, Collections.emptyList());
+        } catch (DBException e) {
+            log.error("Error binding attributes", e);
+        }
+
+        WebSQLResultsInfo resultsInfo = contextInfo.saveResult(dataContainer, bindings);
+        converters = WebSQLCellConverter.createConverters(contextInfo.getProcessor().getWebSession(), bindings, dataFormat);
+
+        try {
+            json.name("resultSet");
+            json.beginObject();
+            json.name("id").value(resultsInfo.getId());
+            json.name("columns");
+            json.beginArray();
+            for (DBDAttributeBinding binding : bindings) {
+                writeColumn(new WebSQLQueryResultColumn(binding));
+            }
+            json.endArray();
+            json.name("rows");
+            json.beginArray();
+        } catch (IOException e) {
+            throw new DBCException("Error writing results header", e);
+        }
+        started = true;
+    }
+
+    @Override
+    public void fetchRow(DBCSession session, DBCResultSet resultSet) throws DBCException {
+        try {
+            json.beginArray();
+            rowOpen = true;
+            for (int i = 0; i < bindings.length; i++) {
+                DBDAttributeBinding binding = bindings[i];
+                Object cellValue;
+                try {
+                    cellValue = binding.getValueHandler().fetchValueObject(
+                        resultSet.getSession(),
+                        resultSet,
+                        binding.getMetaAttribute(),
+                        i);
+                } catch (Throwable e) {
+                    cellValue = new DBDValueError(e);
+                }
+                writeValue(converters[i].convertValue(cellValue));
+            }
+            json.endArray();
+            rowOpen = false;
+        } catch (IOException e) {
+            throw new DBCException("Error writing row", e);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void fetchEnd(DBCSession session, DBCResultSet resultSet) throws DBCException {
+        try {
+            json.endArray();
+            json.name("rowCount").value(rowCount);
+            json.endObject();
+            json.flush();
+            finished = true;
+        } catch (IOException e) {
+            throw new DBCException("Error writing results footer", e);
+        }
+    }
+
+    /**
+     * Closes elements left open by interrupted fetch, so error status can be appended to the response object.
+     */
+    void closeOpenElements() throws IOException {
+        if (rowOpen) {
+            json.endArray();
+            rowOpen = false;
+        }
+        if (started && !finished) {
+            json.endArray();
+            json.name("rowCount").value(rowCount);
+            json.endObject();
+            finished = true;
+        }
+    }
+
+    private void writeColumn(WebSQLQueryResultColumn column) throws IOException {
+        json.beginObject();
+        json.name("position").value(column.getPosition());
+        json.name("name").value(column.getName());
+        json.name("label").value(column.getLabel());
+        json.name("icon").value(column.getIcon());
+        json.name("entityName").value(column.getEntityName());
+        json.name("dataKind").value(column.getDataKind());
+        json.name("typeName").value(column.getTypeName());
+        json.name("fullTypeName").value(column.getFullTypeName());
+        json.name("maxLength").value(column.getMaxLength());
+        json.name("scale").value(column.getScale());
+        json.name("precision").value(column.getPrecision());
+        json.name("readOnly").value(column.isReadOnly());
+        json.name("readOnlyStatus").value(column.getReadOnlyStatus());
+        json.endObject();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof String) {
+            json.value((String) value);
+        } else if (value instanceof Number) {
+            json.value((Number) value);
+        } else if (value instanceof Boolean) {
+            json.value((Boolean) value);
+        } else if (value instanceof Map || value instanceof Collection || value instanceof Object[]) {
+            gson.toJson(value, value.getClass(), json);
+        } else {
+            json.value(value.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -79,4 +79,42 @@ public class WebSQLQueryResultSet {
     public WebSQLResultsInfo getResultsInfo() {
         return resultsInfo;
     }
+
+    /**
+     * Estimated heap size of rows. Values of unknown types are counted as small objects.
+     */
+    public long getEstimatedSize() {
+        long size = 64 + (columns == null ? 0 : columns.length * 128L);
+        if (rows != null) {
+            size += 16 + rows.length * 8L;
+            for (Object[] row : rows) {
+                if (row == null) {
+                    continue;
+                }
+                size += 16 + row.length * 8L;
+                for (Object value : row) {
+                    size += estimateValueSize(value);
+                }
+            }
+        }
+        return size;
+    }
+
+    private static long estimateValueSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 40 + ((String) value).length() * 2L;
+        } else if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        } else if (value instanceof Object[]) {
+            long size = 16 + ((Object[]) value).length * 8L;
+            for (Object item : (Object[]) value) {
+                size += estimateValueSize(item);
+            }
+            return size;
+        } else {
+            return 32;
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDDataReceiver;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.exec.DBCResultSet;
+import org.jkiss.dbeaver.model.exec.DBCSession;
+import org.jkiss.dbeaver.model.exec.DBCStatement;
+
+/**
+ * Open server-side cursor of SQL results.
+ * Keeps statement and result set opened so next pages are read from the same cursor instead of query re-execution.
+ * Cursor owns isolated execution context of its session, the context is closed with the cursor.
+ */
+class WebSQLResultsCursor {
+
+    private static final Log log = Log.getLog(WebSQLResultsCursor.class);
+
+    private final WebSQLContextInfo contextInfo;
+    private final WebSQLResultsInfo resultsInfo;
+    private final DBDAttributeBinding[] metaBindings;
+    private final DBCSession session;
+    private final DBCStatement statement;
+    private final DBCResultSet resultSet;
+    // Result set is positioned on the row which wasn't read yet
+    private boolean rowPending = true;
+    private volatile long lastAccessTime;
+    private volatile boolean closed;
+
+    WebSQLResultsCursor(
+        @NotNull WebSQLContextInfo contextInfo,
+        @NotNull WebSQLResultsInfo resultsInfo,
+        @NotNull DBDAttributeBinding[] metaBindings,
+        @NotNull DBCSession session,
+        @NotNull DBCStatement statement,
+        @NotNull DBCResultSet resultSet)
+    {
+        this.contextInfo = contextInfo;
+        this.resultsInfo = resultsInfo;
+        this.metaBindings = metaBindings;
+        this.session = session;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.lastAccessTime = System.currentTimeMillis();
+    }
+
+    @NotNull
+    WebSQLResultsInfo getResultsInfo() {
+        return resultsInfo;
+    }
+
+    @NotNull
+    DBDAttributeBinding[] getMetaBindings() {
+        return metaBindings;
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Reads next page of rows. Closes cursor if there are no more rows.
+     */
+    @NotNull
+    WebSQLQueryResultSet fetchNextPage(long limit, @Nullable WebDataFormat dataFormat) throws DBCException {
+        try (WebSQLQueryDataReceiver dataReceiver = new WebSQLQueryDataReceiver(contextInfo, resultsInfo, metaBindings, dataFormat)) {
+            boolean hasMoreData = fetchNextRows(limit, dataReceiver);
+            WebSQLQueryResultSet webResultSet = dataReceiver.getResultSet();
+            webResultSet.setHasMoreData(hasMoreData);
+            return webResultSet;
+        }
+    }
+
+    /**
+     * Reads next rows into specified receiver. Closes cursor if there are no more rows.
+     * @return true if cursor has more rows
+     */
+    synchronized boolean fetchNextRows(long limit, @NotNull DBDDataReceiver dataReceiver) throws DBCException {
+        if (closed) {
+            throw new DBCException("Cursor of results '" + resultsInfo.getId() + "' is closed");
+        }
+        lastAccessTime = System.currentTimeMillis();
+        try {
+            boolean hasMoreData = WebSQLProcessor.readResultSet(session, resultSet, limit, dataReceiver, rowPending);
+            rowPending = hasMoreData;
+            if (!hasMoreData) {
+                contextInfo.closeResultsCursor(resultsInfo.getId());
+            }
+            return hasMoreData;
+        } catch (DBCException e) {
+            contextInfo.closeResultsCursor(resultsInfo.getId());
+            throw e;
+        }
+    }
+
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            resultSet.close();
+            // Closes statement unless it is cached
+            contextInfo.getStatementCache().releaseStatement(statement, true);
+        } catch (Throwable e) {
+            log.debug("Error closing results cursor", e);
+        } finally {
+            session.close();
+            session.getExecutionContext().close();
+        }
+    }
+
+}
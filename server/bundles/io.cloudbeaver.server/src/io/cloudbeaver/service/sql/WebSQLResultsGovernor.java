@@ -0,0 +1,277 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import io.cloudbeaver.model.session.WebSession;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts memory retained by SQL contexts and saved results of all sessions.
+ * <p>
+ * Saved results (attribute bindings and data containers kept until closeResult) are limited per session and
+ * server-wide. When a limit is exceeded, the least recently used results are closed. Server-wide eviction takes
+ * the least recently used results among all sessions. Contexts are accounted but never evicted.
+ */
+public class WebSQLResultsGovernor {
+
+    private static final Log log = Log.getLog(WebSQLResultsGovernor.class);
+
+    private static class RetainedResult {
+        final String key;
+        final WebSQLContextInfo context;
+        final String resultId;
+        final long size;
+        long lastAccessTime = System.currentTimeMillis();
+
+        RetainedResult(String key, WebSQLContextInfo context, String resultId, long size) {
+            this.key = key;
+            this.context = context;
+            this.resultId = resultId;
+            this.size = size;
+        }
+    }
+
+    private static class SessionUsage {
+        final WebSession session;
+        // Access ordered, so iteration starts from least recently used result
+        final LinkedHashMap<String, RetainedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+        final Set<WebSQLContextInfo> contexts = new HashSet<>();
+        long resultsSize;
+
+        SessionUsage(WebSession session) {
+            this.session = session;
+        }
+    }
+
+    private final long maxSessionSize;
+    private final long maxTotalSize;
+    private final Map<String, SessionUsage> sessions = new HashMap<>();
+    private long totalSize;
+
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    public WebSQLResultsGovernor(long maxSessionSize, long maxTotalSize) {
+        this.maxSessionSize = maxSessionSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Drops accounting of all sessions. Saved results stay in their contexts.
+     */
+    public synchronized void dispose() {
+        sessions.clear();
+        totalSize = 0;
+        log.debug(toString());
+    }
+
+    synchronized void registerContext(@NotNull WebSQLContextInfo context) {
+        getSessionUsage(context, true).contexts.add(context);
+    }
+
+    synchronized void unregisterContext(@NotNull WebSQLContextInfo context) {
+        SessionUsage usage = getSessionUsage(context, false);
+        if (usage == null) {
+            return;
+        }
+        usage.contexts.remove(context);
+        for (Iterator<RetainedResult> iter = usage.results.values().iterator(); iter.hasNext(); ) {
+            RetainedResult result = iter.next();
+            if (result.context == context) {
+                iter.remove();
+                releaseResult(usage, result);
+            }
+        }
+        removeIdleSession(usage);
+    }
+
+    /**
+     * Registers saved results and evicts the least recently used results if limits are exceeded.
+     * Just saved results are never evicted.
+     */
+    void registerResult(@NotNull WebSQLContextInfo context, @NotNull WebSQLResultsInfo resultsInfo) {
+        List<RetainedResult> evicted = new ArrayList<>();
+        synchronized (this) {
+            SessionUsage usage = getSessionUsage(context, false);
+            if (usage == null || !usage.contexts.contains(context)) {
+                // Context was already disposed
+                return;
+            }
+            RetainedResult result = new RetainedResult(
+                makeResultKey(context, resultsInfo.getId()), context, resultsInfo.getId(), resultsInfo.getEstimatedSize());
+            RetainedResult oldResult = usage.results.put(result.key, result);
+            if (oldResult != null) {
+                releaseResult(usage, oldResult);
+            }
+            usage.resultsSize += result.size;
+            totalSize += result.size;
+
+            for (Iterator<RetainedResult> iter = usage.results.values().iterator(); usage.resultsSize > maxSessionSize && iter.hasNext(); ) {
+                RetainedResult lruResult = iter.next();
+                if (lruResult != result) {
+                    iter.remove();
+                    releaseResult(usage, lruResult);
+                    evicted.add(lruResult);
+                }
+            }
+            while (totalSize > maxTotalSize) {
+                SessionUsage lruUsage = null;
+                RetainedResult lruResult = null;
+                for (SessionUsage su : sessions.values()) {
+                    for (RetainedResult r : su.results.values()) {
+                        if (r != result) {
+                            if (lruResult == null || r.lastAccessTime < lruResult.lastAccessTime) {
+                                lruUsage = su;
+                                lruResult = r;
+                            }
+                            break;
+                        }
+                    }
+                }
+                if (lruResult == null) {
+                    break;
+                }
+                lruUsage.results.remove(lruResult.key);
+                releaseResult(lruUsage, lruResult);
+                evicted.add(lruResult);
+                removeIdleSession(lruUsage);
+            }
+        }
+        for (RetainedResult result : evicted) {
+            evictedCount.incrementAndGet();
+            log.debug("Evict results '" + result.resultId + "' of context '" + result.context.getId() + "' (" + result.size + " bytes)");
+            result.context.evictResult(result.resultId);
+        }
+    }
+
+    synchronized void touchResult(@NotNull WebSQLContextInfo context, @NotNull String resultId) {
+        SessionUsage usage = getSessionUsage(context, false);
+        if (usage != null) {
+            RetainedResult result = usage.results.get(makeResultKey(context, resultId));
+            if (result != null) {
+                result.lastAccessTime = System.currentTimeMillis();
+            }
+        }
+    }
+
+    synchronized void unregisterResult(@NotNull WebSQLContextInfo context, @NotNull String resultId) {
+        SessionUsage usage = getSessionUsage(context, false);
+        if (usage != null) {
+            RetainedResult result = usage.results.remove(makeResultKey(context, resultId));
+            if (result != null) {
+                releaseResult(usage, result);
+            }
+            removeIdleSession(usage);
+        }
+    }
+
+    @Nullable
+    private SessionUsage getSessionUsage(@NotNull WebSQLContextInfo context, boolean create) {
+        WebSession session = context.getProcessor().getWebSession();
+        return create ?
+            sessions.computeIfAbsent(session.getSessionId(), id -> new SessionUsage(session)) :
+            sessions.get(session.getSessionId());
+    }
+
+    private void releaseResult(@NotNull SessionUsage usage, @NotNull RetainedResult result) {
+        usage.resultsSize -= result.size;
+        totalSize -= result.size;
+    }
+
+    private void removeIdleSession(@NotNull SessionUsage usage) {
+        if (usage.contexts.isEmpty() && usage.results.isEmpty()) {
+            sessions.remove(usage.session.getSessionId());
+        }
+    }
+
+    @NotNull
+    private static String makeResultKey(@NotNull WebSQLContextInfo context, @NotNull String resultId) {
+        return context.getProcessor().getConnection().getId() + "/" + context.getId() + "/" + resultId;
+    }
+
+    ///////////////////////////////////
+    // Statistics
+
+    /**
+     * Memory retained by sessions, the biggest holders first
+     */
+    @NotNull
+    public List<WebSQLMemoryHolder> getSessionHolders(int maxHolders) {
+        return collectHolders(false, maxHolders);
+    }
+
+    /**
+     * Memory retained by connections of sessions, the biggest holders first
+     */
+    @NotNull
+    public List<WebSQLMemoryHolder> getConnectionHolders(int maxHolders) {
+        return collectHolders(true, maxHolders);
+    }
+
+    @NotNull
+    private List<WebSQLMemoryHolder> collectHolders(boolean byConnection, int maxHolders) {
+        List<WebSQLMemoryHolder> holders = new ArrayList<>();
+        synchronized (this) {
+            for (SessionUsage usage : sessions.values()) {
+                Map<String, WebSQLMemoryHolder> sessionHolders = new LinkedHashMap<>();
+                for (WebSQLContextInfo context : usage.contexts) {
+                    getHolder(sessionHolders, usage.session, byConnection ? context : null).addContext(context.getEstimatedSize());
+                }
+                for (RetainedResult result : usage.results.values()) {
+                    getHolder(sessionHolders, usage.session, byConnection ? result.context : null).addResult(result.size);
+                }
+                holders.addAll(sessionHolders.values());
+            }
+        }
+        holders.sort(Comparator.comparingLong(WebSQLMemoryHolder::getTotalSize).reversed());
+        return holders.size() > maxHolders ? new ArrayList<>(holders.subList(0, maxHolders)) : holders;
+    }
+
+    @NotNull
+    private static WebSQLMemoryHolder getHolder(@NotNull Map<String, WebSQLMemoryHolder> holders, @NotNull WebSession session, @Nullable WebSQLContextInfo context) {
+        String connectionId = context == null ? null : context.getProcessor().getConnection().getId();
+        return holders.computeIfAbsent(String.valueOf(connectionId), id -> new WebSQLMemoryHolder(session, connectionId));
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getMaxTotalSize() {
+        return maxTotalSize;
+    }
+
+    public long getMaxSessionSize() {
+        return maxSessionSize;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SQL results governor: sessions=" + sessions.size() +
+            ", size=" + getTotalSize() + "/" + maxTotalSize +
+            ", evicted=" + getEvictedCount();
+    }
+
+}
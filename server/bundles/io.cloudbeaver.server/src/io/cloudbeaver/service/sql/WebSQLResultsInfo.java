@@ -16,6 +16,7 @@
  */
 package io.cloudbeaver.service.sql;
 
+import io.cloudbeaver.model.WebMetadataCache;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
@@ -27,6 +28,9 @@ import org.jkiss.dbeaver.model.struct.DBSDataContainer;
  */
 public class WebSQLResultsInfo {
 
+    // Binding with column metadata, value handler and row identifier references
+    private static final long ATTRIBUTE_BINDING_SIZE = 512;
+
     @NotNull
     private final DBSDataContainer dataContainer;
     @NotNull
@@ -56,6 +60,21 @@ public class WebSQLResultsInfo {
         this.attributes = attributes;
     }
 
+    /**
+     * Estimated heap size of attribute bindings and query text retained by these results
+     */
+    public long getEstimatedSize() {
+        long size = 64 + WebMetadataCache.estimateSize(id);
+        if (attributes != null) {
+            size += 16 + attributes.length * ATTRIBUTE_BINDING_SIZE;
+        }
+        if (dataContainer instanceof WebSQLQueryDataContainer) {
+            // Query container is created for these results only. Table containers are shared metadata objects.
+            size += 2 * WebMetadataCache.estimateSize(dataContainer.getName());
+        }
+        return size;
+    }
+
     @Nullable
     public DBDRowIdentifier getDefaultRowIdentifier() {
         for (DBDAttributeBinding column : attributes) {
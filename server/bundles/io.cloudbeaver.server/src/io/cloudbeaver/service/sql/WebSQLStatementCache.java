@@ -0,0 +1,248 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.exec.DBCException;
+import org.jkiss.dbeaver.model.exec.DBCExecutionContext;
+import org.jkiss.dbeaver.model.exec.DBCSession;
+import org.jkiss.dbeaver.model.exec.DBCStatement;
+import org.jkiss.dbeaver.model.exec.jdbc.JDBCSession;
+import org.jkiss.dbeaver.model.impl.jdbc.exec.JDBCPreparedStatementImpl;
+import org.jkiss.dbeaver.model.impl.jdbc.exec.JDBCStatementImpl;
+import org.jkiss.dbeaver.model.qm.QMUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statements of SQL context which are kept open for reuse.
+ * <p>
+ * Statement is taken out of cache while it is executed (or while its results cursor is open)
+ * and returned back on release, so cached statement is never used concurrently.
+ * Least recently used statements are closed when cache is full.
+ * <p>
+ * Statement wrapper is bound to the session which opened it (its monitor is used for cancel and its
+ * query manager events go to this session). Sessions live for one execution only, so on reuse
+ * native JDBC statement is wrapped again for the new session. Statements which can't be re-bound are not reused.
+ */
+public class WebSQLStatementCache {
+
+    private static final Log log = Log.getLog(WebSQLStatementCache.class);
+
+    @FunctionalInterface
+    interface StatementFactory {
+        @NotNull
+        DBCStatement createStatement() throws DBCException;
+    }
+
+    private static class CachedStatement {
+        final String key;
+        final DBCExecutionContext context;
+        final DBCStatement statement;
+        final long prepareTime;
+
+        CachedStatement(String key, DBCExecutionContext context, DBCStatement statement, long prepareTime) {
+            this.key = key;
+            this.context = context;
+            this.statement = statement;
+            this.prepareTime = prepareTime;
+        }
+    }
+
+    private final int maxSize;
+    // Access ordered, so iteration starts from least recently used statement
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<DBCStatement, CachedStatement> openedStatements = new IdentityHashMap<>();
+    private boolean disposed;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong savedPrepareTime = new AtomicLong();
+
+    WebSQLStatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns cached statement bound to the session or creates new one. Statement must be released with {@link #releaseStatement}.
+     *
+     * @param key normalized query text along with everything which affects statement preparation
+     */
+    @NotNull
+    DBCStatement openStatement(@NotNull DBCSession session, @NotNull String key, @NotNull StatementFactory factory) throws DBCException {
+        DBCExecutionContext context = session.getExecutionContext();
+        CachedStatement cached;
+        synchronized (this) {
+            cached = statements.remove(key);
+        }
+        if (cached != null) {
+            // Otherwise context was re-opened
+            DBCStatement statement = cached.context == context ? rebindStatement(cached.statement, session) : null;
+            if (statement != null) {
+                hitCount.incrementAndGet();
+                savedPrepareTime.addAndGet(cached.prepareTime);
+                synchronized (this) {
+                    openedStatements.put(statement, new CachedStatement(key, context, statement, cached.prepareTime));
+                }
+                return statement;
+            }
+            closeStatements(Collections.singletonList(cached));
+        }
+        missCount.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        DBCStatement statement = factory.createStatement();
+        CachedStatement cached = new CachedStatement(key, context, statement, System.currentTimeMillis() - startTime);
+        synchronized (this) {
+            openedStatements.put(statement, cached);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns statement back to cache. Statements which weren't opened by cache are closed.
+     *
+     * @param reusable false if statement execution failed, such statements are closed
+     */
+    void releaseStatement(@NotNull DBCStatement statement, boolean reusable) {
+        List<CachedStatement> closedStatements = new ArrayList<>();
+        boolean closeStatement;
+        synchronized (this) {
+            CachedStatement cached = openedStatements.remove(statement);
+            closeStatement = cached == null || !reusable || disposed || maxSize <= 0;
+            if (!closeStatement) {
+                CachedStatement oldStatement = statements.put(cached.key, cached);
+                if (oldStatement != null) {
+                    // The same query was executed concurrently
+                    closedStatements.add(oldStatement);
+                }
+                for (Iterator<CachedStatement> iter = statements.values().iterator(); statements.size() > maxSize && iter.hasNext(); ) {
+                    closedStatements.add(iter.next());
+                    iter.remove();
+                    evictionCount.incrementAndGet();
+                }
+            }
+        }
+        if (closeStatement) {
+            closeStatement(statement);
+        } else if (statement instanceof JDBCStatementImpl) {
+            // Session of the statement is finished, the next use gets new wrapper
+            QMUtils.getDefaultHandler().handleStatementClose(statement, 0);
+        }
+        closeStatements(closedStatements);
+    }
+
+    void dispose() {
+        List<CachedStatement> closedStatements;
+        synchronized (this) {
+            disposed = true;
+            closedStatements = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        if (hitCount.get() > 0 || missCount.get() > 0) {
+            log.debug(toString());
+        }
+        // Opened statements are closed on release
+        closeStatements(closedStatements);
+    }
+
+    ///////////////////////////////////
+    // Statistics
+
+    public synchronized int getSize() {
+        return statements.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Total time (ms) of statements preparation which was avoided by statements reuse
+     */
+    public long getSavedPrepareTime() {
+        return savedPrepareTime.get();
+    }
+
+    /**
+     * Wraps native statement for the session. Returns null if statement can't be bound to another session.
+     */
+    @Nullable
+    private static DBCStatement rebindStatement(@NotNull DBCStatement statement, @NotNull DBCSession session) {
+        if (!(statement instanceof JDBCPreparedStatementImpl) || !(session instanceof JDBCSession)) {
+            return null;
+        }
+        JDBCPreparedStatementImpl jdbcStatement = (JDBCPreparedStatementImpl) statement;
+        JDBCPreparedStatementImpl reboundStatement = new JDBCPreparedStatementImpl(
+            (JDBCSession) session,
+            jdbcStatement.getOriginal(),
+            jdbcStatement.getQueryString(),
+            false);
+        reboundStatement.setStatementSource(jdbcStatement.getStatementSource());
+        return reboundStatement;
+    }
+
+    /**
+     * Closes cached statements. Their wrappers were already released in query manager, so native statements are closed.
+     */
+    private static void closeStatements(List<CachedStatement> statements) {
+        for (CachedStatement cached : statements) {
+            if (cached.statement instanceof JDBCStatementImpl) {
+                try {
+                    ((JDBCStatementImpl<?>) cached.statement).getOriginal().close();
+                } catch (Throwable e) {
+                    log.debug("Error closing statement", e);
+                }
+            } else {
+                closeStatement(cached.statement);
+            }
+        }
+    }
+
+    private static void closeStatement(DBCStatement statement) {
+        try {
+            statement.close();
+        } catch (Throwable e) {
+            log.debug("Error closing statement", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SQL statement cache: size=" + getSize() + "/" + maxSize +
+            ", hits=" + getHitCount() +
+            ", misses=" + getMissCount() +
+            ", evictions=" + getEvictionCount() +
+            ", saved prepare time=" + getSavedPrepareTime() + "ms";
+    }
+
+}
@@ -16,8 +16,8 @@
  */
 package io.cloudbeaver.service.sql;
 
+import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.model.session.WebSession;
-import io.cloudbeaver.server.CBConstants;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.data.*;
 import org.jkiss.dbeaver.model.exec.DBCException;
@@ -43,7 +43,7 @@ public class WebSQLUtils {
 
     public static Object makeWebCellValue(WebSession session, DBSTypedObject type, Object cellValue, WebDataFormat dataFormat) throws DBCException {
         if (cellValue instanceof Date) {
-            return CBConstants.ISO_DATE_FORMAT.format(cellValue);
+            return WebServiceUtils.formatISODate((Date) cellValue);
         }
         if (cellValue instanceof DBDValue) {
             DBDValue dbValue = (DBDValue) cellValue;
@@ -20,9 +20,14 @@ import graphql.schema.DataFetchingEnvironment;
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.WebConnectionInfo;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.service.DBWBindingContext;
+import io.cloudbeaver.service.DBWServiceBindingServlet;
 import io.cloudbeaver.service.WebServiceBindingBase;
+import io.cloudbeaver.service.sql.impl.WebSQLResultsServlet;
 import io.cloudbeaver.service.sql.impl.WebServiceSQL;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.utils.CommonUtils;
 
@@ -34,7 +39,7 @@ import java.util.stream.Collectors;
 /**
  * Web service implementation
  */
-public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> {
+public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> implements DBWServiceBindingServlet {
 
     public WebServiceBindingSQL() {
         super(DBWServiceSQL.class, new WebServiceSQL(), "schema/service.sql.graphqls");
@@ -73,8 +78,15 @@ public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> {
                 getService(env).executeQuery(
                     getSQLContext(env),
                     env.getArgument("sql"),
+                    env.getArgument("parameters"),
                     getDataFilter(env),
                     getDataFormat(env)))
+            .dataFetcher("sqlFetchNextPage", env ->
+                getService(env).fetchNextPage(
+                    getSQLContext(env),
+                    env.getArgument("resultsId"),
+                    env.getArgument("limit"),
+                    getDataFormat(env)))
             .dataFetcher("sqlResultClose", env ->
                 getService(env).closeResult(
                     getSQLContext(env),
@@ -105,6 +117,7 @@ public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> {
                 getService(env).asyncExecuteQuery(
                     getSQLContext(env),
                     env.getArgument("sql"),
+                    env.getArgument("parameters"),
                     getDataFilter(env),
                     getDataFormat(env)
                 ))
@@ -114,6 +127,13 @@ public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> {
                 ));
     }
 
+    @Override
+    public void addServlets(CBApplication application, ServletContextHandler servletContextHandler) {
+        servletContextHandler.addServlet(
+            new ServletHolder("sqlResults", new WebSQLResultsServlet()),
+            application.getServicesURI() + "sql-results/*");
+    }
+
     private WebDataFormat getDataFormat(DataFetchingEnvironment env) {
         String dataFormat = env.getArgument("dataFormat");
         return CommonUtils.valueOf(WebDataFormat.class, dataFormat, WebDataFormat.resultset);
@@ -124,7 +144,10 @@ public class WebServiceBindingSQL extends WebServiceBindingBase<DBWServiceSQL> {
     }
 
     public static WebSQLProcessor getSQLProcessor(DataFetchingEnvironment env) throws DBWebException {
-        WebConnectionInfo connectionInfo = getWebConnection(env);
+        return getSQLProcessor(getWebConnection(env));
+    }
+
+    public static WebSQLProcessor getSQLProcessor(WebConnectionInfo connectionInfo) throws DBWebException {
         return getSQLConfiguration(connectionInfo.getSession()).getSQLProcessor(connectionInfo);
     }
 
@@ -0,0 +1,174 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.sql.impl;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import io.cloudbeaver.DBWebException;
+import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBPlatform;
+import io.cloudbeaver.server.graphql.GraphQLConstants;
+import io.cloudbeaver.service.sql.*;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.json.JSONUtils;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.utils.CommonUtils;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams query results directly into response.
+ * <p>
+ * POST: request body is a JSON object with connectionId, contextId, sql or containerNodePath, filter and dataFormat.
+ * Results are written as JSON. Response ends with status field ("ok" or "error" with errorMessage) which must be checked
+ * because error may happen after part of rows was already sent.
+ * <p>
+ * GET /{connectionId}/{contextId}/{resultsId}?offset=N&amp;limit=N: reads page of saved results in binary columnar format.
+ * Offset is required, GET doesn't change results state.
+ * <p>
+ * POST /{connectionId}/{contextId}/{resultsId}?limit=N: the same as GET but if offset is not specified and results have
+ * open cursor then next page is read from cursor.
+ */
+public class WebSQLResultsServlet extends HttpServlet {
+
+    private static final Log log = Log.getLog(WebSQLResultsServlet.class);
+
+    private static final Gson gson = new GsonBuilder().create();
+
+    private static final String CONTENT_TYPE_COLUMNAR = "application/octet-stream";
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!CommonUtils.isEmpty(request.getPathInfo()) && !"/".equals(request.getPathInfo())) {
+            // Cursor read changes results state, so it is not allowed in GET
+            readColumnarPage(request, response, true);
+            return;
+        }
+        try {
+            WebSession webSession = CBPlatform.getInstance().getSessionManager().findWebSession(request);
+            if (webSession == null) {
+                throw new DBWebException("No active session");
+            }
+            Map<String, Object> params = JSONUtils.parseMap(gson, request.getReader());
+
+            WebConnectionInfo connectionInfo = webSession.getWebConnectionInfo(JSONUtils.getString(params, "connectionId"));
+            WebSQLProcessor processor = WebServiceBindingSQL.getSQLProcessor(connectionInfo);
+            String contextId = JSONUtils.getString(params, "contextId");
+            WebSQLContextInfo contextInfo = contextId == null ? null : processor.getContext(contextId);
+            if (contextInfo == null) {
+                throw new DBWebException("SQL context '" + contextId + "' not found");
+            }
+
+            DBRProgressMonitor monitor = webSession.getProgressMonitor();
+            DBSDataContainer dataContainer;
+            String containerNodePath = JSONUtils.getString(params, "containerNodePath");
+            if (!CommonUtils.isEmpty(containerNodePath)) {
+                dataContainer = processor.getDataContainerByNodePath(monitor, containerNodePath, DBSDataContainer.class);
+            } else {
+                String sql = JSONUtils.getString(params, "sql");
+                if (CommonUtils.isEmpty(sql)) {
+                    throw new DBWebException("Neither query nor container node path specified");
+                }
+                dataContainer = new WebSQLQueryDataContainer(connectionInfo.getDataSource(), sql);
+            }
+            Map<String, Object> filterProps = JSONUtils.getObjectOrNull(params, "filter");
+            WebSQLDataFilter filter = filterProps == null ? new WebSQLDataFilter() : new WebSQLDataFilter(filterProps);
+            WebDataFormat dataFormat = CommonUtils.valueOf(WebDataFormat.class, JSONUtils.getString(params, "dataFormat"), WebDataFormat.resultset);
+
+            response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
+            JsonWriter json = new JsonWriter(response.getWriter());
+            json.setLenient(true);
+            processor.readDataStream(contextInfo, monitor, dataContainer, filter, dataFormat, json);
+        } catch (Exception e) {
+            log.error(e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Error reading data: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        readColumnarPage(request, response, false);
+    }
+
+    private void readColumnarPage(HttpServletRequest request, HttpServletResponse response, boolean allowCursor) throws IOException {
+        try {
+            WebSession webSession = CBPlatform.getInstance().getSessionManager().findWebSession(request);
+            if (webSession == null) {
+                throw new DBWebException("No active session");
+            }
+            String pathInfo = request.getPathInfo();
+            if (CommonUtils.isEmpty(pathInfo)) {
+                throw new DBWebException("Results ID not specified");
+            }
+            while (pathInfo.startsWith("/")) {
+                pathInfo = pathInfo.substring(1);
+            }
+            String[] path = pathInfo.split("/");
+            if (path.length != 3) {
+                throw new DBWebException("Results path must be /{connectionId}/{contextId}/{resultsId}");
+            }
+            WebConnectionInfo connectionInfo = webSession.getWebConnectionInfo(path[0]);
+            WebSQLProcessor processor = WebServiceBindingSQL.getSQLProcessor(connectionInfo);
+            WebSQLContextInfo contextInfo = processor.getContext(path[1]);
+            if (contextInfo == null) {
+                throw new DBWebException("SQL context '" + path[1] + "' not found");
+            }
+
+            Map<String, Object> filterProps = new HashMap<>();
+            String offset = request.getParameter("offset");
+            if (CommonUtils.isEmpty(offset) && !allowCursor) {
+                throw new DBWebException("Results offset not specified");
+            }
+            filterProps.put("offset", offset);
+            filterProps.put("limit", request.getParameter("limit"));
+            WebSQLDataFilter filter = new WebSQLDataFilter(filterProps);
+
+            // Whole page is read before the first byte is written, so errors are still reported with status code
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            processor.readColumnarData(
+                contextInfo,
+                webSession.getProgressMonitor(),
+                path[2],
+                filter,
+                CommonUtils.isEmpty(offset),
+                new DataOutputStream(buffer));
+
+            response.setContentType(CONTENT_TYPE_COLUMNAR);
+            response.setContentLength(buffer.size());
+            buffer.writeTo(response.getOutputStream());
+        } catch (Exception e) {
+            log.error(e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Error reading data: " + e.getMessage());
+            }
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ import io.cloudbeaver.WebAction;
 import io.cloudbeaver.model.WebAsyncTaskInfo;
 import io.cloudbeaver.model.session.WebAsyncTaskProcessor;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.service.sql.*;
 import org.eclipse.jface.text.Document;
 import org.jkiss.code.NotNull;
@@ -48,6 +49,8 @@ import java.util.Map;
  */
 public class WebServiceSQL implements DBWServiceSQL {
 
+    private static final int DEFAULT_MAX_PROPOSALS = 200;
+
     @Override
     @NotNull
     public WebSQLDialectInfo getDialectInfo(@NotNull WebSQLProcessor processor) throws DBWebException {
@@ -58,6 +61,23 @@ public class WebServiceSQL implements DBWServiceSQL {
 
     @NotNull
     public WebSQLCompletionProposal[] getCompletionProposals(@NotNull WebSQLContextInfo sqlContext, @NotNull String query, Integer position, Integer maxResults) throws DBWebException {
+        if (CBApplication.getInstance().isSQLCompletionIndexEnabled()) {
+            WebSQLCompletionProposal[] proposals = sqlContext.getProcessor().getCompletionIndex().getProposals(
+                sqlContext,
+                query,
+                position == null ? 0 : position,
+                maxResults == null ? DEFAULT_MAX_PROPOSALS : maxResults);
+            if (proposals != null) {
+                return proposals;
+            }
+        }
+        // Proposals depend on query text and position, so they are not cached.
+        // Index partitions (names of container children and table columns) are shared instead.
+        return readCompletionProposals(sqlContext, query, position, maxResults);
+    }
+
+    @NotNull
+    private static WebSQLCompletionProposal[] readCompletionProposals(@NotNull WebSQLContextInfo sqlContext, @NotNull String query, Integer position, Integer maxResults) throws DBWebException {
         try {
             DBPDataSource dataSource = sqlContext.getProcessor().getConnection().getDataSourceContainer().getDataSource();
             Document document = new Document();
@@ -73,7 +93,7 @@ public class WebServiceSQL implements DBWServiceSQL {
             SQLCompletionAnalyzer analyzer = new SQLCompletionAnalyzer(request);
             analyzer.runAnalyzer(sqlContext.getProcessor().getWebSession().getProgressMonitor());
             List<SQLCompletionProposalBase> proposals = analyzer.getProposals();
-            if (maxResults == null) maxResults = 200;
+            if (maxResults == null) maxResults = DEFAULT_MAX_PROPOSALS;
             if (proposals.size() > maxResults) {
                 proposals = proposals.subList(0, maxResults);
             }
@@ -113,15 +133,21 @@ public class WebServiceSQL implements DBWServiceSQL {
 
     @WebAction
     @NotNull
-    public WebSQLExecuteInfo executeQuery(@NotNull WebSQLContextInfo sqlContext, @NotNull String sql, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBWebException {
+    public WebSQLExecuteInfo executeQuery(@NotNull WebSQLContextInfo sqlContext, @NotNull String sql, @Nullable List<Object> parameters, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) throws DBWebException {
         return sqlContext.getProcessor().processQuery(
             sqlContext.getProcessor().getWebSession().getProgressMonitor(),
             sqlContext,
             sql,
+            parameters,
             filter,
             dataFormat);
     }
 
+    @Override
+    public WebSQLExecuteInfo fetchNextPage(@NotNull WebSQLContextInfo contextInfo, @NotNull String resultsId, @Nullable Integer limit, @Nullable WebDataFormat dataFormat) throws DBWebException {
+        return contextInfo.getProcessor().fetchNextPage(contextInfo, resultsId, limit, dataFormat);
+    }
+
     @Override
     public Boolean closeResult(@NotNull WebSQLContextInfo sqlContext, @NotNull String resultId) throws DBWebException {
         if (!sqlContext.closeResult(resultId)) {
@@ -160,16 +186,17 @@ public class WebServiceSQL implements DBWServiceSQL {
     }
 
     @NotNull
-    public WebAsyncTaskInfo asyncExecuteQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) {
+    public WebAsyncTaskInfo asyncExecuteQuery(@NotNull WebSQLContextInfo contextInfo, @NotNull String sql, @Nullable List<Object> parameters, @Nullable WebSQLDataFilter filter, @Nullable WebDataFormat dataFormat) {
         WebAsyncTaskProcessor<String> runnable = new WebAsyncTaskProcessor<String>() {
             @Override
             public void run(DBRProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
                 try {
                     monitor.beginTask("Execute query", 1);
                     monitor.subTask("Process query " + sql);
-                    WebSQLExecuteInfo executeResults = contextInfo.getProcessor().processQuery(monitor, contextInfo, sql, filter, dataFormat);
+                    WebSQLExecuteInfo executeResults = contextInfo.getProcessor().processQuery(monitor, contextInfo, sql, parameters, filter, dataFormat);
                     this.result = executeResults.getStatusMessage();
                     this.extendedResults = executeResults;
+                    this.extendedResultsSize = executeResults.getEstimatedSize();
                 } catch (Throwable e) {
                     throw new InvocationTargetException(e);
                 } finally {
@@ -177,17 +204,19 @@ public class WebServiceSQL implements DBWServiceSQL {
                 }
             }
         };
-        return contextInfo.getProcessor().getWebSession().createAndRunAsyncTask("SQL execute", runnable);
+        return contextInfo.getProcessor().getWebSession().createAndRunAsyncTask("SQL execute", contextInfo.getProcessor().getConnection(), runnable);
     }
 
     @Override
     public WebSQLExecuteInfo asyncGetQueryResults(@NotNull WebSession webSession, @NotNull String taskId) throws DBWebException {
         WebAsyncTaskInfo taskStatus = webSession.asyncTaskStatus(taskId, false);
+        if (taskStatus != null && taskStatus.isResultEvicted()) {
+            throw new DBWebException("Results of task '" + taskId + "' were evicted from session memory. Execute query again.");
+        }
         if (taskStatus != null) {
             return (WebSQLExecuteInfo) taskStatus.getExtendedResult();
         }
         return null;
     }
 
-
 }
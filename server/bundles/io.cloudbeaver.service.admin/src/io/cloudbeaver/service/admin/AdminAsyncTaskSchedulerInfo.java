@@ -0,0 +1,72 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.admin;
+
+import io.cloudbeaver.model.session.WebAsyncTaskScheduler;
+
+/**
+ * Queue depth and wait time of async tasks
+ */
+public class AdminAsyncTaskSchedulerInfo {
+
+    private final WebAsyncTaskScheduler scheduler;
+
+    public AdminAsyncTaskSchedulerInfo(WebAsyncTaskScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public int getRunningTasks() {
+        return scheduler.getRunningCount();
+    }
+
+    public int getMaxRunningTasks() {
+        return scheduler.getMaxRunningCount();
+    }
+
+    public int getQueuedTasks() {
+        return scheduler.getQueuedCount();
+    }
+
+    public int getMaxSessionQueuedTasks() {
+        return scheduler.getMaxSessionQueuedCount();
+    }
+
+    public int getSessionQueues() {
+        return scheduler.getSessionQueueCount();
+    }
+
+    public long getSubmittedTasks() {
+        return scheduler.getSubmittedCount();
+    }
+
+    public long getStartedTasks() {
+        return scheduler.getStartedCount();
+    }
+
+    public long getRejectedTasks() {
+        return scheduler.getRejectedCount();
+    }
+
+    public long getAverageWaitTime() {
+        return scheduler.getAverageWaitTime();
+    }
+
+    public long getMaxWaitTime() {
+        return scheduler.getMaxWaitTime();
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2020 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.admin;
+
+import io.cloudbeaver.service.sql.WebSQLMemoryHolder;
+import io.cloudbeaver.service.sql.WebSQLResultsGovernor;
+
+import java.util.List;
+
+/**
+ * Memory retained by SQL results and contexts of web sessions
+ */
+public class AdminMemoryUsageInfo {
+
+    private final WebSQLResultsGovernor governor;
+    private final int maxHolders;
+
+    public AdminMemoryUsageInfo(WebSQLResultsGovernor governor, int maxHolders) {
+        this.governor = governor;
+        this.maxHolders = maxHolders;
+    }
+
+    public long getResultsSize() {
+        return governor.getTotalSize();
+    }
+
+    public long getMaxResultsSize() {
+        return governor.getMaxTotalSize();
+    }
+
+    public long getMaxSessionResultsSize() {
+        return governor.getMaxSessionSize();
+    }
+
+    public long getEvictedResults() {
+        return governor.getEvictedCount();
+    }
+
+    public List<WebSQLMemoryHolder> getSessions() {
+        return governor.getSessionHolders(maxHolders);
+    }
+
+    public List<WebSQLMemoryHolder> getConnections() {
+        return governor.getConnectionHolders(maxHolders);
+    }
+
+}
@@ -94,6 +94,10 @@ public interface DBWServiceAdmin extends DBWService {
     boolean configureServer(WebSession webSession, AdminServerConfig config) throws DBWebException;
     @WebAction(requirePermissions = DBWConstants.PERMISSION_ADMIN)
     boolean setDefaultNavigatorSettings(WebSession webSession, DBNBrowseSettings settings) throws DBWebException;
+    @WebAction(requirePermissions = DBWConstants.PERMISSION_ADMIN)
+    AdminMemoryUsageInfo getMemoryUsage(WebSession webSession, @Nullable Integer maxHolders) throws DBWebException;
+    @WebAction(requirePermissions = DBWConstants.PERMISSION_ADMIN)
+    AdminAsyncTaskSchedulerInfo getAsyncTaskSchedulerInfo(WebSession webSession) throws DBWebException;
 
     ////////////////////////////////////////////////////////////////////
     // Permissions
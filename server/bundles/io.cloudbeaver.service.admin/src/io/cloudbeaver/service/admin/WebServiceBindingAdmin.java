@@ -92,6 +92,11 @@ public class WebServiceBindingAdmin extends WebServiceBindingBase<DBWServiceAdmi
             env -> getService(env).configureServer(getWebSession(env), new AdminServerConfig(env.getArgument("configuration"))))
         .dataFetcher("setDefaultNavigatorSettings",
             env -> getService(env).setDefaultNavigatorSettings(getWebSession(env), WebServiceUtils.parseNavigatorSettings(env.getArgument("settings"))))
+
+        .dataFetcher("memoryUsage",
+            env -> getService(env).getMemoryUsage(getWebSession(env), env.getArgument("maxHolders")))
+        .dataFetcher("asyncTaskSchedulerInfo",
+            env -> getService(env).getAsyncTaskSchedulerInfo(getWebSession(env)))
         ;
     }
 
@@ -22,6 +22,7 @@ import io.cloudbeaver.WebServiceUtils;
 import io.cloudbeaver.auth.provider.local.LocalAuthProvider;
 import io.cloudbeaver.model.WebConnectionConfig;
 import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.session.WebAsyncTaskScheduler;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.model.user.WebRole;
 import io.cloudbeaver.model.user.WebUser;
@@ -34,6 +35,7 @@ import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.server.CBPlatform;
 import io.cloudbeaver.service.DBWServiceServerConfigurator;
 import io.cloudbeaver.service.admin.*;
+import io.cloudbeaver.service.sql.WebSQLResultsGovernor;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
@@ -60,6 +62,8 @@ public class WebServiceAdmin implements DBWServiceAdmin {
 
     private static final Log log = Log.getLog(WebServiceAdmin.class);
 
+    private static final int DEFAULT_MEMORY_HOLDERS = 20;
+
     @NotNull
     @Override
     public List<AdminUserInfo> listUsers(@NotNull WebSession webSession, String userName) throws DBWebException {
@@ -389,6 +393,26 @@ public class WebServiceAdmin implements DBWServiceAdmin {
         return true;
     }
 
+    @Override
+    public AdminMemoryUsageInfo getMemoryUsage(WebSession webSession, Integer maxHolders) throws DBWebException {
+        WebSQLResultsGovernor governor = CBPlatform.getInstance().getSQLResultsGovernor();
+        if (governor == null) {
+            throw new DBWebException("SQL results governor is not initialized");
+        }
+        return new AdminMemoryUsageInfo(
+            governor,
+            maxHolders == null || maxHolders <= 0 ? DEFAULT_MEMORY_HOLDERS : maxHolders);
+    }
+
+    @Override
+    public AdminAsyncTaskSchedulerInfo getAsyncTaskSchedulerInfo(WebSession webSession) throws DBWebException {
+        WebAsyncTaskScheduler scheduler = CBPlatform.getInstance().getAsyncTaskScheduler();
+        if (scheduler == null) {
+            throw new DBWebException("Async task scheduler is not initialized");
+        }
+        return new AdminAsyncTaskSchedulerInfo(scheduler);
+    }
+
     ////////////////////////////////////////////////////////////////////
     // Access management
 
@@ -165,7 +165,7 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
                 }
             }
         };
-        return sqlProcessor.getWebSession().createAndRunAsyncTask("Data export", runnable);
+        return sqlProcessor.getWebSession().createAndRunAsyncTask("Data export", sqlProcessor.getConnection(), runnable);
     }
 
     private void exportData(
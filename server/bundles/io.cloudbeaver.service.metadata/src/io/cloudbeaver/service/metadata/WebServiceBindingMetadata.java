@@ -42,7 +42,7 @@ public class WebServiceBindingMetadata extends WebServiceBindingBase<DBWServiceM
             WebSession webSession = getWebSession(env);
 
             String nodePath = env.getArgument("nodeId");
-            DBNNode node = webSession.getNavigatorModel().getNodeByPath(webSession.getProgressMonitor(), nodePath);
+            DBNNode node = webSession.getNavigatorNode(webSession.getProgressMonitor(), nodePath);
             Map<String, Object> options = env.getArgument("options");
 
             return getService(env).getNodeDDL(webSession, node, options);